@@ -0,0 +1,232 @@
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Typed change stream of an InventoryStore (plus the sales logged against it), as a Flow
+// publisher. The store calls the hooks below on every mutation, the way it updates its stats, and
+// each change gets the next sequence number under the feed's monitor, so every subscriber sees
+// the same order and one item's changes in the order they happened.
+//
+// Each subscription has a bounded buffer and delivers on an executor only as much as its
+// subscriber has requested. Producers never wait: a till must not stall on a slow consumer. A
+// subscriber that falls a whole buffer behind gets what was buffered, then onError with an
+// OverflowException naming the last sequence it saw; it should rescan and subscribe again.
+// With no subscribers the hooks return at once, so an unwatched store pays one volatile read.
+public class ChangeFeed implements Flow.Publisher<InventoryChange> {
+    public static final int DEFAULT_BUFFER = 4096;
+
+    // The subscriber missed changes after lastSequence
+    public static class OverflowException extends IllegalStateException {
+        private final long lastSequence;
+
+        OverflowException(long lastSequence) {
+            super("Change buffer overflowed after sequence " + lastSequence);
+            this.lastSequence = lastSequence;
+        }
+
+        public long getLastSequence() { return lastSequence; }
+    }
+
+    private final InventoryStore store;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService defaultExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "inventory-changes");
+        t.setDaemon(true);
+        return t;
+    });
+    private long sequence;
+
+    ChangeFeed(InventoryStore store) {
+        this.store = store;
+    }
+
+    public boolean hasSubscribers() { return !subscriptions.isEmpty(); }
+
+    // Sequence number of the latest change published
+    public synchronized long getSequence() { return sequence; }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super InventoryChange> subscriber) {
+        subscribe(subscriber, DEFAULT_BUFFER, defaultExecutor);
+    }
+
+    // Deliveries run on 'executor', one at a time per subscription
+    public void subscribe(Flow.Subscriber<? super InventoryChange> subscriber, int bufferSize, Executor executor) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        if (bufferSize <= 0) throw new IllegalArgumentException("Buffer size must be positive.");
+        Subscription s = new Subscription(subscriber, bufferSize, executor);
+        subscriber.onSubscribe(s);
+        // Added only once onSubscribe has returned, so nothing is delivered before it
+        if (!s.cancelled) subscriptions.add(s);
+    }
+
+    // Completes every subscription once its buffer is delivered; later changes go nowhere
+    public void close() {
+        for (Subscription s : subscriptions) s.complete();
+        subscriptions.clear();
+    }
+
+    void itemAdded(int row) {
+        if (subscriptions.isEmpty()) return;
+        publish(InventoryChange.Type.ITEM_ADDED, System.currentTimeMillis(), store.getSku(row), store.getName(row),
+            0, store.getQuantity(row), store.getMinStock(row), 0, null, null, 0);
+    }
+
+    // An upsert rewrote the row; wasLow is whether it was low before
+    void itemUpdated(int row, int oldQty, boolean wasLow) {
+        if (subscriptions.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        String sku = store.getSku(row);
+        int qty = store.getQuantity(row);
+        int min = store.getMinStock(row);
+        publish(InventoryChange.Type.ITEM_UPDATED, now, sku, store.getName(row), oldQty, qty, min, 0, null, null, 0);
+        if (wasLow != qty <= min) publish(InventoryChange.Type.LOW_STOCK_CROSSED, now, sku, null, oldQty, qty, min, 0, null, null, 0);
+    }
+
+    // locationCode is -1 when the change was made at the item's home without naming a location
+    void quantityChanged(int row, int oldQty, int newQty, int locationCode) {
+        if (subscriptions.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        String sku = store.getSku(row);
+        String location = locationCode == -1 ? null : store.getLocations().decode(locationCode);
+        publish(InventoryChange.Type.QUANTITY_CHANGED, now, sku, null, oldQty, newQty, 0, 0, location, null, 0);
+        int min = store.getMinStock(row);
+        if (oldQty <= min != newQty <= min) publish(InventoryChange.Type.LOW_STOCK_CROSSED, now, sku, null, oldQty, newQty, min, 0, null, null, 0);
+    }
+
+    void transferred(int row, int fromLocation, int toLocation, int qty) {
+        if (subscriptions.isEmpty()) return;
+        publish(InventoryChange.Type.TRANSFERRED, System.currentTimeMillis(), store.getSku(row), null, 0, 0, 0, qty,
+            store.getLocations().decode(fromLocation), store.getLocations().decode(toLocation), 0);
+    }
+
+    void itemDeleted(int row) {
+        if (subscriptions.isEmpty()) return;
+        publish(InventoryChange.Type.ITEM_DELETED, System.currentTimeMillis(), store.getSku(row), null,
+            store.getQuantity(row), 0, 0, 0, null, null, 0);
+    }
+
+    public void saleRecorded(String sku, int qty, int priceCents, long timestamp) {
+        if (subscriptions.isEmpty()) return;
+        publish(InventoryChange.Type.SALE_RECORDED, timestamp, sku, null, 0, 0, 0, qty, null, null, priceCents);
+    }
+
+    private synchronized void publish(InventoryChange.Type type, long timestamp, String sku, String name, int oldQty, int newQty,
+                                      int min, int qty, String location, String toLocation, int priceCents) {
+        InventoryChange change = new InventoryChange(++sequence, type, timestamp, sku, name, oldQty, newQty, min, qty,
+            location, toLocation, priceCents);
+        for (Subscription s : subscriptions) s.offer(change);
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super InventoryChange> subscriber;
+        private final Executor executor;
+        // Ring of undelivered changes, guarded by this
+        private final InventoryChange[] buffer;
+        private int head;
+        private int count;
+        private boolean overflowed;
+        private boolean completed;
+        private Throwable failure;
+        private long lastDelivered;
+
+        private final AtomicLong demand = new AtomicLong();
+        // Drain requests since the running drain started; only the 0 -> 1 transition schedules one
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        Subscription(Flow.Subscriber<? super InventoryChange> subscriber, int bufferSize, Executor executor) {
+            this.subscriber = subscriber;
+            this.buffer = new InventoryChange[bufferSize];
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) return;
+            if (n <= 0) {
+                synchronized (this) {
+                    failure = new IllegalArgumentException("Requested " + n + " changes; must be positive (Reactive Streams rule 3.9)");
+                }
+            } else {
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        // Called by publish, under the feed's monitor
+        synchronized void offer(InventoryChange change) {
+            if (overflowed || completed) return;
+            if (count == buffer.length) {
+                overflowed = true;
+                subscriptions.remove(this);
+            } else {
+                buffer[(head + count++) % buffer.length] = change;
+            }
+            signal();
+        }
+
+        synchronized void complete() {
+            completed = true;
+            signal();
+        }
+
+        private void signal() {
+            if (pending.getAndIncrement() == 0) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                long requested = demand.get();
+                long delivered = 0;
+                while (delivered != requested && !cancelled) {
+                    InventoryChange change;
+                    synchronized (this) {
+                        if (failure != null || count == 0) break;
+                        change = buffer[head];
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        count--;
+                    }
+                    try {
+                        subscriber.onNext(change);
+                    } catch (Throwable t) {
+                        // A subscriber must not throw (rule 2.13); treat it as gone
+                        cancel();
+                        return;
+                    }
+                    lastDelivered = change.sequence;
+                    delivered++;
+                }
+                if (delivered != 0 && requested != Long.MAX_VALUE) demand.addAndGet(-delivered);
+                if (cancelled) return;
+                Throwable error = null;
+                boolean done = false;
+                synchronized (this) {
+                    if (failure != null) error = failure;
+                    else if (count == 0 && overflowed) error = new OverflowException(lastDelivered);
+                    else if (count == 0 && completed) done = true;
+                }
+                if (error != null || done) {
+                    cancel();
+                    if (error != null) subscriber.onError(error);
+                    else subscriber.onComplete();
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+// Collects row updates from any thread and applies them to a table model on the EDT at most
+// once per frame. A row changed many times between frames is announced once, and neighbouring
+// rows are merged into one fireTableRowsUpdated range; past MAX_RANGES ranges a frame sends a
+// single min..max event instead, so the sorter and table see a bounded number of events no
+// matter how fast stock is changing elsewhere.
+//
+// Producers only take this object's monitor for a bit test and an array store. The first
+// change after a flush schedules the next one, so an idle table costs nothing.
+public class CoalescingTableUpdater {
+    private static final int MAX_RANGES = 32;
+
+    // Counters since creation, plus the queue depth and peak since the previous sample
+    public static final class Metrics {
+        public final long deltas;          // row changes queued
+        public final long frames;          // flushes that applied something
+        public final long events;          // table events fired
+        public final long applyNanos;      // total time spent applying on the EDT
+        public final long maxApplyNanos;
+        public final int queueDepth;       // distinct rows waiting right now
+        public final int peakQueueDepth;   // most distinct rows waiting at once since the last sample
+
+        Metrics(long deltas, long frames, long events, long applyNanos, long maxApplyNanos, int queueDepth, int peakQueueDepth) {
+            this.deltas = deltas;
+            this.frames = frames;
+            this.events = events;
+            this.applyNanos = applyNanos;
+            this.maxApplyNanos = maxApplyNanos;
+            this.queueDepth = queueDepth;
+            this.peakQueueDepth = peakQueueDepth;
+        }
+    }
+
+    private final AbstractTableModel model;
+    private final long frameNanos;
+    private final Timer timer;
+
+    // Guarded by this
+    private final BitSet dirty = new BitSet();
+    private int[] pending = new int[256];
+    private int pendingCount;
+    private int peakDepth;
+    private boolean scheduled;
+    private long deltas;
+
+    // EDT only
+    private int[] applying = new int[256];
+    private long lastFlushNanos;
+    private long lastApplyNanos;
+    private volatile long frames;
+    private volatile long events;
+    private volatile long applyNanos;
+    private volatile long maxApplyNanos;
+
+    public CoalescingTableUpdater(AbstractTableModel model, int framesPerSecond) {
+        this.model = model;
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+        this.timer = new Timer(0, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    // Any thread
+    public void rowUpdated(int row) {
+        boolean schedule;
+        synchronized (this) {
+            deltas++;
+            add(row);
+            schedule = markScheduled();
+        }
+        if (schedule) SwingUtilities.invokeLater(this::startTimer);
+    }
+
+    // Any thread; rows[0..count) need not be distinct
+    public void rowsUpdated(int[] rows, int count) {
+        if (count == 0) return;
+        boolean schedule;
+        synchronized (this) {
+            deltas += count;
+            for (int i = 0; i < count; i++) add(rows[i]);
+            schedule = markScheduled();
+        }
+        if (schedule) SwingUtilities.invokeLater(this::startTimer);
+    }
+
+    // EDT: applies everything queued so far right away, e.g. before rows are moved or removed
+    public void flush() {
+        int n;
+        synchronized (this) {
+            n = pendingCount;
+            if (n == 0) {
+                scheduled = false;
+                return;
+            }
+            int[] swap = applying;
+            applying = pending;
+            pending = swap;
+            for (int i = 0; i < n; i++) dirty.clear(applying[i]);
+            pendingCount = 0;
+            scheduled = false;
+        }
+        timer.stop();
+        long start = System.nanoTime();
+        int[] rows = applying;
+        Arrays.sort(rows, 0, n);
+        int rowCount = model.getRowCount();
+        while (n > 0 && rows[n - 1] >= rowCount) n--; // removed since they were queued
+        int ranges = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || rows[i] != rows[i - 1] + 1) ranges++;
+        }
+        int fired = 0;
+        if (ranges > MAX_RANGES) {
+            model.fireTableRowsUpdated(rows[0], rows[n - 1]);
+            fired = 1;
+        } else {
+            for (int i = 0; i < n; ) {
+                int first = rows[i];
+                while (i + 1 < n && rows[i + 1] == rows[i] + 1) i++;
+                model.fireTableRowsUpdated(first, rows[i]);
+                fired++;
+                i++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = start + elapsed;
+        lastApplyNanos = elapsed;
+        frames++;
+        events += fired;
+        applyNanos += elapsed;
+        if (elapsed > maxApplyNanos) maxApplyNanos = elapsed;
+    }
+
+    public Metrics sampleMetrics() {
+        int depth, peak;
+        long queued;
+        synchronized (this) {
+            depth = pendingCount;
+            peak = peakDepth;
+            peakDepth = depth;
+            queued = deltas;
+        }
+        return new Metrics(queued, frames, events, applyNanos, maxApplyNanos, depth, peak);
+    }
+
+    private void add(int row) {
+        if (dirty.get(row)) return;
+        dirty.set(row);
+        if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+        pending[pendingCount++] = row;
+        if (pendingCount > peakDepth) peakDepth = pendingCount;
+    }
+
+    private boolean markScheduled() {
+        if (scheduled) return false;
+        scheduled = true;
+        return true;
+    }
+
+    // EDT: the next flush lands a frame after the previous one ended, or later if applying took
+    // longer than a frame (e.g. a large sorted table), so the EDT is never more than half busy
+    private void startTimer() {
+        long wait = lastFlushNanos + Math.max(frameNanos, lastApplyNanos) - System.nanoTime();
+        timer.setInitialDelay((int) Math.max(0, wait / 1_000_000));
+        timer.restart();
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+// Streams an InventorySnapshot or a pinned sales-ledger view to CSV (RFC 4180 quoting, UTF-8,
+// '\n' line endings) through large buffered writes on a FileChannel. Files whose name ends in
+// ".gz" are gzip-compressed. Meant to run off the EDT; both sources are fixed copies, so the
+// store and ledger can keep changing.
+public class CsvExporter {
+    public static final String[] SALES_COLUMNS = {"Time", "SKU", "Name", "Category", "Qty", "Price"};
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int PROGRESS_EVERY = 4096;
+
+    // Reports rows written so far; returning false cancels the export
+    public interface Progress {
+        boolean update(int done, int total);
+    }
+
+    // Returns false if cancelled, in which case the partial file is deleted
+    public static boolean writeInventory(InventorySnapshot snapshot, String[] columnNames, Path file, Progress progress) throws IOException {
+        int total = snapshot.getRowCount();
+        return write(file, columnNames, total, progress, (line, row) -> {
+            appendField(line, snapshot.getSku(row)).append(',');
+            appendField(line, snapshot.getName(row)).append(',');
+            line.append(snapshot.getQuantity(row)).append(',');
+            line.append(snapshot.getCostPrice(row)).append(',');
+            line.append(snapshot.getSellingPrice(row)).append(',');
+            appendField(line, snapshot.getCategory(row)).append(',');
+            appendField(line, snapshot.getLocation(row)).append(',');
+            line.append(snapshot.getMinStock(row));
+        });
+    }
+
+    // The ledger only grows, so a view taken from it stays fixed while sales keep arriving
+    public static boolean writeSales(SalesLedger sales, SalesLedger.View view, Path file, Progress progress) throws IOException {
+        int total = view.size();
+        TimestampFormatter timestamps = new TimestampFormatter(sales.getZone());
+        return write(file, SALES_COLUMNS, total, progress, (line, i) -> {
+            int skuId = view.getSkuId(i);
+            timestamps.append(line, view.getTimestamp(i)).append(',');
+            appendField(line, sales.getSku(skuId)).append(',');
+            appendField(line, sales.getName(skuId)).append(',');
+            appendField(line, sales.getCategory(skuId)).append(',');
+            line.append(view.getQuantity(i)).append(',');
+            appendCents(line, view.getPriceCents(i));
+        });
+    }
+
+    // Appends a value, quoting it if it contains a comma, quote or line break
+    public static StringBuilder appendField(StringBuilder line, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return line.append(value);
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    // Same output as String.format("%.2f", cents / 100.0) without the formatter
+    public static StringBuilder appendCents(StringBuilder line, long cents) {
+        if (cents < 0) {
+            line.append('-');
+            cents = -cents;
+        }
+        long frac = cents % 100;
+        return line.append(cents / 100).append('.').append(frac < 10 ? "0" : "").append(frac);
+    }
+
+    private interface RowWriter {
+        void write(StringBuilder line, int row);
+    }
+
+    private static boolean write(Path file, String[] header, int total, Progress progress, RowWriter rows) throws IOException {
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(new OutputStreamWriter(open(channel, file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(256);
+            char[] chars = new char[256];
+            for (int c = 0; c < header.length; c++) {
+                if (c > 0) line.append(',');
+                appendField(line, header[c]);
+            }
+            chars = writeLine(out, line, chars);
+            for (int row = 0; row < total; row++) {
+                if (row % PROGRESS_EVERY == 0 && !progress.update(row, total)) return false;
+                line.setLength(0);
+                rows.write(line, row);
+                chars = writeLine(out, line, chars);
+            }
+            progress.update(total, total);
+            completed = true;
+        } finally {
+            if (!completed) Files.deleteIfExists(file);
+        }
+        return true;
+    }
+
+    // Copies the line into a reused char buffer so no String is created per row
+    private static char[] writeLine(Writer out, StringBuilder line, char[] chars) throws IOException {
+        line.append('\n');
+        int len = line.length();
+        if (len > chars.length) chars = new char[Math.max(len, chars.length * 2)];
+        line.getChars(0, len, chars, 0);
+        out.write(chars, 0, len);
+        return chars;
+    }
+
+    private static OutputStream open(FileChannel channel, Path file) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        if (file.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return out;
+    }
+}
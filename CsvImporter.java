@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+// Parses an inventory CSV in the layout CsvExporter writes (SKU, name, quantity, cost, selling
+// price, category, location, min stock; optional header line) on several worker threads.
+// The file is read into memory once and cut into chunks at record boundaries by a quote-aware
+// byte scan; each chunk is decoded and run through ItemValidator on a worker, and the chunks'
+// columns are concatenated in file order. Files whose name ends in ".gz" are decompressed first.
+// Nothing touches the store here: the caller applies the result on the EDT.
+public class CsvImporter {
+    public static final int FIELDS = 8;
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    // Valid rows as columns plus one message per rejected line. An empty SKU means
+    // "new item": the caller assigns one before applying the batch.
+    public static class Result {
+        public int count;
+        public String[] skus;
+        public String[] names;
+        public int[] quantities;
+        public double[] costPrices;
+        public double[] sellingPrices;
+        public String[] categories;
+        public String[] locations;
+        public int[] minStocks;
+        public final List<String> errors = new ArrayList<>();
+
+        Result(int capacity) {
+            skus = new String[capacity];
+            names = new String[capacity];
+            quantities = new int[capacity];
+            costPrices = new double[capacity];
+            sellingPrices = new double[capacity];
+            categories = new String[capacity];
+            locations = new String[capacity];
+            minStocks = new int[capacity];
+        }
+
+        private void add(String sku, ItemValidator.Item item) {
+            if (count == skus.length) grow();
+            skus[count] = sku;
+            names[count] = item.name;
+            quantities[count] = item.quantity;
+            costPrices[count] = item.costPrice;
+            sellingPrices[count] = item.sellingPrice;
+            categories[count] = item.category;
+            locations[count] = item.location;
+            minStocks[count] = item.minStock;
+            count++;
+        }
+
+        private void grow() {
+            int cap = Math.max(16, skus.length * 2);
+            skus = Arrays.copyOf(skus, cap);
+            names = Arrays.copyOf(names, cap);
+            quantities = Arrays.copyOf(quantities, cap);
+            costPrices = Arrays.copyOf(costPrices, cap);
+            sellingPrices = Arrays.copyOf(sellingPrices, cap);
+            categories = Arrays.copyOf(categories, cap);
+            locations = Arrays.copyOf(locations, cap);
+            minStocks = Arrays.copyOf(minStocks, cap);
+        }
+    }
+
+    // Parses the whole file; returns null if cancelled through the progress callback (chunks done / total)
+    public static Result read(Path file, ItemValidator validator, int threads, CsvExporter.Progress progress)
+            throws IOException, InterruptedException {
+        byte[] data = readBytes(file);
+        int start = data.length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF ? 3 : 0;
+
+        // Chunk boundaries fall only on a newline outside quotes, so no record is split
+        List<int[]> chunks = new ArrayList<>(); // {startOffset, endOffset, firstLineNumber}
+        boolean inQuotes = false;
+        int line = 1, chunkStart = start, chunkLine = 1;
+        for (int i = start; i < data.length; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n') {
+                line++;
+                if (!inQuotes && i + 1 - chunkStart >= CHUNK_BYTES) {
+                    chunks.add(new int[]{chunkStart, i + 1, chunkLine});
+                    chunkStart = i + 1;
+                    chunkLine = line;
+                }
+            }
+        }
+        if (chunkStart < data.length) chunks.add(new int[]{chunkStart, data.length, chunkLine});
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks.size())), r -> {
+            Thread t = new Thread(r, "inventory-import");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> parts = new ArrayList<>(chunks.size());
+            for (int c = 0; c < chunks.size(); c++) {
+                int[] chunk = chunks.get(c);
+                boolean first = c == 0;
+                parts.add(pool.submit(() -> parseChunk(data, chunk[0], chunk[1], chunk[2], first, validator)));
+            }
+            int total = chunks.size();
+            Result[] results = new Result[total];
+            int rows = 0;
+            for (int c = 0; c < total; c++) {
+                if (!progress.update(c, total)) return null;
+                results[c] = parts.get(c).get();
+                rows += results[c].count;
+            }
+            progress.update(total, total);
+
+            Result merged = new Result(rows);
+            for (Result part : results) {
+                int at = merged.count;
+                System.arraycopy(part.skus, 0, merged.skus, at, part.count);
+                System.arraycopy(part.names, 0, merged.names, at, part.count);
+                System.arraycopy(part.quantities, 0, merged.quantities, at, part.count);
+                System.arraycopy(part.costPrices, 0, merged.costPrices, at, part.count);
+                System.arraycopy(part.sellingPrices, 0, merged.sellingPrices, at, part.count);
+                System.arraycopy(part.categories, 0, merged.categories, at, part.count);
+                System.arraycopy(part.locations, 0, merged.locations, at, part.count);
+                System.arraycopy(part.minStocks, 0, merged.minStocks, at, part.count);
+                merged.count += part.count;
+                merged.errors.addAll(part.errors);
+            }
+            return merged;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static byte[] readBytes(Path file) throws IOException {
+        if (!file.getFileName().toString().toLowerCase().endsWith(".gz")) return Files.readAllBytes(file);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Parses the records in data[from, to); 'line' is the file line number the chunk starts on
+    private static Result parseChunk(byte[] data, int from, int to, int line, boolean first, ItemValidator validator) {
+        String text = new String(data, from, to - from, StandardCharsets.UTF_8);
+        Result result = new Result(Math.max(16, (to - from) / 48));
+        String[] fields = new String[FIELDS];
+        StringBuilder field = new StringBuilder(64);
+        int pos = 0, n = text.length();
+        boolean header = first;
+        while (pos < n) {
+            int recordLine = line;
+            int count = 0;
+            boolean overflow = false;
+            // One record: fields separated by ',', ended by an unquoted '\n' (an optional '\r' before it is dropped)
+            while (true) {
+                field.setLength(0);
+                if (pos < n && text.charAt(pos) == '"') {
+                    pos++;
+                    while (pos < n) {
+                        char c = text.charAt(pos++);
+                        if (c == '"') {
+                            if (pos < n && text.charAt(pos) == '"') {
+                                field.append('"');
+                                pos++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            if (c == '\n') line++;
+                            field.append(c);
+                        }
+                    }
+                }
+                while (pos < n) {
+                    char c = text.charAt(pos);
+                    if (c == ',' || c == '\n') break;
+                    if (c != '\r') field.append(c);
+                    pos++;
+                }
+                if (count < FIELDS) fields[count] = field.toString();
+                else overflow = true;
+                count++;
+                if (pos >= n) break;
+                char c = text.charAt(pos++);
+                if (c == '\n') {
+                    line++;
+                    break;
+                }
+            }
+
+            if (header) {
+                header = false;
+                if (fields[0].trim().equalsIgnoreCase("SKU")) continue;
+            }
+            if (count == 1 && fields[0].trim().isEmpty()) continue; // blank line
+            if (count != FIELDS || overflow) {
+                result.errors.add("Line " + recordLine + ": expected " + FIELDS + " fields, found " + count);
+                continue;
+            }
+            try {
+                ItemValidator.Item item = validator.parse(fields[1], fields[2], fields[3], fields[4],
+                    fields[5].trim(), fields[6].trim(), fields[7]);
+                result.add(fields[0].trim(), item);
+            } catch (IllegalArgumentException ex) {
+                result.errors.add("Line " + recordLine + ": " + ex.getMessage());
+            }
+        }
+        return result;
+    }
+}
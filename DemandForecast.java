@@ -0,0 +1,189 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Per-SKU demand estimates kept current from the sales stream instead of recomputed from the
+// log. Each SKU's daily demand is an exponentially weighted moving average with an exponentially
+// weighted variance; a sale adds to the SKU's running total for its day, and a day is folded
+// into the averages when the SKU's next sale (or a report) lands on a later day. Days without
+// sales count as zero demand and are folded in closed form, so the work per sale is constant
+// however long the SKU sat idle.
+//
+// From those: days of cover (on hand / daily demand), the estimated stockout date, a reorder
+// point covering the lead time plus safety stock at a 95% service level, and a suggested order
+// that lifts stock to cover the lead time plus the review period.
+//
+//   -Dinventory.forecast.halfLifeDays  weight of a day halves after this many days (default 14)
+//   -Dinventory.forecast.leadTimeDays  days from order to delivery (default 7)
+//   -Dinventory.forecast.reviewDays    days an order should last beyond the lead time (default 14)
+public class DemandForecast implements SalesLedger.Listener {
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final double SERVICE_LEVEL_Z = 1.645;
+
+    // One SKU's outlook as of a report
+    public static class Entry {
+        public final String sku;
+        public final String name;
+        public final int onHand;
+        public final int minStock;
+        public final double dailyDemand;
+        public final double dailyStdDev;
+        public final double daysOfCover;      // infinite without demand
+        public final LocalDate stockoutDate;  // null without demand
+        public final int reorderPoint;
+        public final int suggestedOrder;      // 0 while stock is above the reorder point
+
+        Entry(String sku, String name, int onHand, int minStock, double dailyDemand, double dailyStdDev,
+              double daysOfCover, LocalDate stockoutDate, int reorderPoint, int suggestedOrder) {
+            this.sku = sku;
+            this.name = name;
+            this.onHand = onHand;
+            this.minStock = minStock;
+            this.dailyDemand = dailyDemand;
+            this.dailyStdDev = dailyStdDev;
+            this.daysOfCover = daysOfCover;
+            this.stockoutDate = stockoutDate;
+            this.reorderPoint = reorderPoint;
+            this.suggestedOrder = suggestedOrder;
+        }
+    }
+
+    private final SalesLedger ledger;
+    private final double alpha;
+    private final int leadTimeDays;
+    private final int reviewDays;
+
+    // By ledger SKU id; guarded by this. openDay is the start of the day dayUnits belongs to
+    // (0 before the SKU's first sale), days counts the days folded so far.
+    private long[] openDay = new long[64];
+    private long[] dayUnits = new long[64];
+    private double[] mean = new double[64];
+    private double[] variance = new double[64];
+    private int[] days = new int[64];
+
+    public DemandForecast(SalesLedger ledger) {
+        this(ledger, Integer.getInteger("inventory.forecast.halfLifeDays", 14),
+            Integer.getInteger("inventory.forecast.leadTimeDays", 7), Integer.getInteger("inventory.forecast.reviewDays", 14));
+    }
+
+    // Sales already in the ledger are not seen; attach before restoring history
+    public DemandForecast(SalesLedger ledger, int halfLifeDays, int leadTimeDays, int reviewDays) {
+        if (halfLifeDays <= 0 || leadTimeDays < 0 || reviewDays < 0) throw new IllegalArgumentException("Invalid forecast settings.");
+        this.ledger = ledger;
+        this.alpha = 1 - Math.pow(0.5, 1.0 / halfLifeDays);
+        this.leadTimeDays = leadTimeDays;
+        this.reviewDays = reviewDays;
+        ledger.addListener(this);
+    }
+
+    public int getLeadTimeDays() { return leadTimeDays; }
+    public int getReviewDays() { return reviewDays; }
+
+    @Override
+    public synchronized void saleAppended(long dayStartMillis, long timestamp, int skuId, int quantity, int priceCents) {
+        if (skuId >= openDay.length) grow(skuId + 1);
+        if (openDay[skuId] == 0) {
+            openDay[skuId] = dayStartMillis;
+        } else if (dayStartMillis > openDay[skuId]) {
+            roll(skuId, dayStartMillis);
+        }
+        // A late sale for a day already folded counts towards the open day
+        dayUnits[skuId] += quantity;
+    }
+
+    // Estimated units per day, as of the given day (start of a local day)
+    public synchronized double getDailyDemand(int skuId, long dayStartMillis) {
+        if (skuId >= openDay.length || openDay[skuId] == 0) return 0;
+        if (dayStartMillis > openDay[skuId]) roll(skuId, dayStartMillis);
+        return mean[skuId];
+    }
+
+    // Every SKU with sales history, most urgent first: soonest stockout, then largest demand
+    public List<Entry> coverReport(InventoryStore store, long nowMillis) {
+        ZoneId zone = ledger.getZone();
+        LocalDate today = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+        long todayStart = today.atStartOfDay(zone).toInstant().toEpochMilli();
+        int skuCount = ledger.getSkuCount();
+        double[] demand = new double[skuCount];
+        double[] stdDev = new double[skuCount];
+        // Forecasts are read under the lock, the store outside it (on the caller's thread)
+        synchronized (this) {
+            for (int id = 0; id < Math.min(skuCount, openDay.length); id++) {
+                if (openDay[id] == 0) continue;
+                if (todayStart > openDay[id]) roll(id, todayStart);
+                demand[id] = mean[id];
+                stdDev[id] = Math.sqrt(variance[id]);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (int id = 0; id < skuCount; id++) {
+            int row = store.findBySku(ledger.getSku(id));
+            if (row == -1) continue;
+            entries.add(entry(store, row, demand[id], stdDev[id], today));
+        }
+        entries.sort((a, b) -> {
+            int c = Double.compare(a.daysOfCover, b.daysOfCover);
+            return c != 0 ? c : Double.compare(b.dailyDemand, a.dailyDemand);
+        });
+        return entries;
+    }
+
+    private Entry entry(InventoryStore store, int row, double demand, double stdDev, LocalDate today) {
+        int onHand = store.getQuantity(row);
+        double cover = demand > 0 ? onHand / demand : Double.POSITIVE_INFINITY;
+        LocalDate stockout = demand > 0 && cover < 365 * 100 ? today.plusDays((long) Math.floor(cover)) : null;
+        double safety = SERVICE_LEVEL_Z * stdDev * Math.sqrt(leadTimeDays);
+        int reorderPoint = (int) Math.ceil(demand * leadTimeDays + safety);
+        int suggested = 0;
+        if (demand > 0 && onHand <= reorderPoint) {
+            double target = demand * (leadTimeDays + reviewDays) + safety;
+            suggested = (int) Math.max(0, Math.ceil(target - onHand));
+        }
+        return new Entry(store.getSku(row), store.getName(row), onHand, store.getMinStock(row), demand, stdDev,
+            cover, stockout, reorderPoint, suggested);
+    }
+
+    // Folds the open day, then any empty days, up to the day starting at dayStartMillis
+    private void roll(int id, long dayStartMillis) {
+        // DST days are 23 or 25 hours long, hence the rounding
+        long elapsed = Math.round((dayStartMillis - openDay[id]) / (double) DAY_MILLIS);
+        fold(id, dayUnits[id]);
+        if (elapsed > 1) {
+            // k zero days: the mean shrinks by B = (1 - alpha)^k and the variance becomes
+            // B * (variance + mean^2 * (1 - B)), the same as folding them one at a time
+            double b = Math.pow(1 - alpha, elapsed - 1);
+            double m = mean[id];
+            variance[id] = b * (variance[id] + m * m * (1 - b));
+            mean[id] = b * m;
+            days[id] = (int) Math.min(Integer.MAX_VALUE, days[id] + elapsed - 1);
+        }
+        openDay[id] = dayStartMillis;
+        dayUnits[id] = 0;
+    }
+
+    // West's exponentially weighted mean and variance; the first day seeds the mean
+    private void fold(int id, double units) {
+        if (days[id]++ == 0) {
+            mean[id] = units;
+            variance[id] = 0;
+            return;
+        }
+        double diff = units - mean[id];
+        double incr = alpha * diff;
+        mean[id] += incr;
+        variance[id] = (1 - alpha) * (variance[id] + diff * incr);
+    }
+
+    private void grow(int min) {
+        int cap = Math.max(min, openDay.length * 2);
+        openDay = Arrays.copyOf(openDay, cap);
+        dayUnits = Arrays.copyOf(dayUnits, cap);
+        mean = Arrays.copyOf(mean, cap);
+        variance = Arrays.copyOf(variance, cap);
+        days = Arrays.copyOf(days, cap);
+    }
+}
@@ -0,0 +1,60 @@
+import javax.swing.table.AbstractTableModel;
+
+// One row per operation in OperationMetrics; refresh() takes a new reading of every histogram
+public class DiagnosticsTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {
+        "Operation", "Count", "Errors", "Mean (ms)", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "Max (ms)"
+    };
+
+    private final OperationMetrics metrics;
+    private OperationMetrics.Stats[] stats;
+
+    public DiagnosticsTableModel(OperationMetrics metrics) {
+        this.metrics = metrics;
+        this.stats = metrics.getOperations();
+    }
+
+    public void refresh() {
+        stats = metrics.getOperations();
+        fireTableRowsUpdated(0, stats.length - 1);
+    }
+
+    @Override
+    public int getRowCount() { return stats.length; }
+
+    @Override
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMN_NAMES[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0: return String.class;
+            case 1:
+            case 2: return Long.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        OperationMetrics.Stats s = stats[row];
+        switch (column) {
+            case 0: return s.getOperation();
+            case 1: return s.getCount();
+            case 2: return s.getErrors();
+            case 3: return millis(s.getMeanMillis());
+            case 4: return millis(s.getP50Millis());
+            case 5: return millis(s.getP99Millis());
+            case 6: return millis(s.getP999Millis());
+            case 7: return millis(s.getMaxMillis());
+            default: throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    private static String millis(double ms) {
+        return String.format("%.3f", ms);
+    }
+}
@@ -0,0 +1,80 @@
+import javax.swing.SwingUtilities;
+
+// Watches the EDT from a daemon thread: every PERIOD_MS it posts a no-op task and records how
+// long that task waited. If one waits past the threshold, the EDT's stack is sampled while it is
+// still stuck, so the stall is reported with the code that caused it, and the whole stall is
+// recorded in OperationMetrics once the EDT catches up.
+//
+// -Dinventory.edt.stallMillis sets the threshold (default 250).
+public class EdtStallMonitor {
+    private static final long PERIOD_MS = 50;
+
+    private final OperationMetrics metrics;
+    private final long thresholdNanos;
+    private final Thread thread;
+    private final Runnable heartbeat = this::beat;
+
+    private volatile Thread edt;
+    private volatile long postedNanos;
+    private volatile long waitedNanos;
+    private volatile boolean pending;
+    private volatile boolean running;
+
+    public EdtStallMonitor(OperationMetrics metrics) {
+        this(metrics, Long.getLong("inventory.edt.stallMillis", 250));
+    }
+
+    public EdtStallMonitor(OperationMetrics metrics, long thresholdMillis) {
+        this.metrics = metrics;
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+        this.thread = new Thread(this::watch, "edt-stall-monitor");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    // On the EDT
+    private void beat() {
+        edt = Thread.currentThread();
+        long waited = System.nanoTime() - postedNanos;
+        metrics.recordEdtLatency(waited);
+        waitedNanos = waited;
+        pending = false;
+    }
+
+    private void watch() {
+        StackTraceElement[] stallStack = null;
+        long stallStartMillis = 0;
+        while (running) {
+            if (!pending) {
+                if (stallStack != null) {
+                    metrics.recordEdtStall(stallStartMillis, waitedNanos, stallStack);
+                    stallStack = null;
+                }
+                pending = true;
+                postedNanos = System.nanoTime();
+                SwingUtilities.invokeLater(heartbeat);
+            } else if (stallStack == null) {
+                long waited = System.nanoTime() - postedNanos;
+                Thread t = edt;
+                if (waited >= thresholdNanos && t != null) {
+                    stallStack = t.getStackTrace();
+                    stallStartMillis = System.currentTimeMillis() - waited / 1_000_000;
+                }
+            }
+            try {
+                Thread.sleep(PERIOD_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+// Picker for one facet of the Inventory tab: "All" followed by every value of a store
+// dictionary (categories or locations), each labelled with how many items it would show.
+// The counts come from FacetIndex and are pushed in by setCounts. Selection is kept by
+// position, so relabelling keeps it, and values defined at runtime show up on the next
+// refresh. EDT only.
+public class FacetComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+    private final InventoryStore.Dictionary values;
+    private final String allLabel;
+    private String[] labels;
+    private int selected;  // 0 is "All", otherwise the value's code + 1
+
+    public FacetComboBoxModel(InventoryStore.Dictionary values, String allLabel) {
+        this.values = values;
+        this.allLabel = allLabel;
+        this.labels = new String[]{allLabel};
+    }
+
+    // The selected value's code, or FacetIndex.ANY
+    public int getSelectedCode() {
+        return selected == 0 ? FacetIndex.ANY : selected - 1;
+    }
+
+    // counts is indexed by code; total is the count for "All"
+    public void setCounts(int[] counts, int total) {
+        int oldSize = labels.length;
+        String[] next = new String[values.size() + 1];
+        next[0] = String.format("%s (%,d)", allLabel, total);
+        for (int code = 0; code + 1 < next.length; code++) {
+            next[code + 1] = String.format("%s (%,d)", values.decode(code), code < counts.length ? counts[code] : 0);
+        }
+        labels = next;
+        if (next.length > oldSize) fireIntervalAdded(this, oldSize, next.length - 1);
+        fireContentsChanged(this, 0, oldSize - 1);
+    }
+
+    @Override
+    public int getSize() { return labels.length; }
+
+    @Override
+    public String getElementAt(int index) { return labels[index]; }
+
+    @Override
+    public Object getSelectedItem() { return labels[selected]; }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(item)) {
+                if (i != selected) {
+                    selected = i;
+                    fireContentsChanged(this, -1, -1);
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Bitmap indexes over the dictionary-encoded category and location columns and the low-stock
+// flag, maintained by InventoryStore on every mutation. A facet filter such as "Electronics in
+// Warehouse B, low on stock" is an intersection of at most three bitmaps, and the count shown
+// next to each facet value is an intersection count, so neither ever reads the rows.
+//
+// Structural changes run exclusively (see InventoryService), but low-stock flips arrive from
+// several threads at once, so every bitmap is guarded by this object's monitor.
+public class FacetIndex {
+    // Leaves a dimension unconstrained
+    public static final int ANY = -1;
+
+    private final InventoryStore store;
+    private RowBitmap[] categories = new RowBitmap[0];
+    private RowBitmap[] locations = new RowBitmap[0];
+    private final RowBitmap lowStock = new RowBitmap();
+
+    FacetIndex(InventoryStore store) {
+        this.store = store;
+    }
+
+    // Rows in the given category and location (either may be ANY), optionally only low-stock ones
+    public synchronized BitSet rows(int categoryCode, int locationCode, boolean lowStockOnly) {
+        RowBitmap[] maps = select(categoryCode, locationCode, lowStockOnly);
+        if (maps == null) return new BitSet();
+        if (maps.length == 0) {
+            BitSet all = new BitSet(store.size());
+            all.set(0, store.size());
+            return all;
+        }
+        return RowBitmap.and(maps);
+    }
+
+    public synchronized int count(int categoryCode, int locationCode, boolean lowStockOnly) {
+        RowBitmap[] maps = select(categoryCode, locationCode, lowStockOnly);
+        if (maps == null) return 0;
+        return maps.length == 0 ? store.size() : RowBitmap.andCardinality(maps);
+    }
+
+    // Rows per category code within the given location and low-stock selection
+    public synchronized int[] categoryCounts(int locationCode, boolean lowStockOnly) {
+        return counts(categories, store.getCategories().size(), select(ANY, locationCode, lowStockOnly));
+    }
+
+    // Rows per location code within the given category and low-stock selection
+    public synchronized int[] locationCounts(int categoryCode, boolean lowStockOnly) {
+        return counts(locations, store.getLocations().size(), select(categoryCode, ANY, lowStockOnly));
+    }
+
+    public synchronized long getSizeInBytes() {
+        long bytes = lowStock.getSizeInBytes();
+        for (RowBitmap m : categories) if (m != null) bytes += m.getSizeInBytes();
+        for (RowBitmap m : locations) if (m != null) bytes += m.getSizeInBytes();
+        return bytes;
+    }
+
+    synchronized void rowAdded(int row) {
+        category(store.getCategoryCode(row)).add(row);
+        location(store.getLocationCode(row)).add(row);
+        if (store.isLowStock(row)) lowStock.add(row);
+    }
+
+    // Per-row changes are serialized by the caller (the SKU's stripe), so only flips need the lock
+    void quantityChanged(int row, int oldQty, int newQty) {
+        int min = store.getMinStock(row);
+        boolean isLow = newQty <= min;
+        if (isLow == (oldQty <= min)) return;
+        synchronized (this) {
+            if (isLow) lowStock.add(row);
+            else lowStock.remove(row);
+        }
+    }
+
+    // Called before the store overwrites 'row' with the contents of 'movedFromRow' (or -1)
+    synchronized void rowRemoving(int row, int movedFromRow) {
+        category(store.getCategoryCode(row)).remove(row);
+        location(store.getLocationCode(row)).remove(row);
+        lowStock.remove(row);
+        if (movedFromRow != -1) {
+            RowBitmap cat = category(store.getCategoryCode(movedFromRow));
+            cat.remove(movedFromRow);
+            cat.add(row);
+            RowBitmap loc = location(store.getLocationCode(movedFromRow));
+            loc.remove(movedFromRow);
+            loc.add(row);
+            if (lowStock.contains(movedFromRow)) {
+                lowStock.remove(movedFromRow);
+                lowStock.add(row);
+            }
+        }
+    }
+
+    private static int[] counts(RowBitmap[] values, int size, RowBitmap[] filter) {
+        RowBitmap[] groups = Arrays.copyOf(values, size);
+        if (filter == null) return new int[size];
+        if (filter.length == 0) {
+            int[] counts = new int[size];
+            for (int i = 0; i < size; i++) counts[i] = groups[i] == null ? 0 : groups[i].getCardinality();
+            return counts;
+        }
+        return RowBitmap.andCardinalities(groups, filter);
+    }
+
+    // The bitmaps to intersect; empty for "every row", null if a code has no rows at all
+    private RowBitmap[] select(int categoryCode, int locationCode, boolean lowStockOnly) {
+        List<RowBitmap> maps = new ArrayList<>(3);
+        if (categoryCode != ANY) {
+            if (categoryCode >= categories.length || categories[categoryCode] == null) return null;
+            maps.add(categories[categoryCode]);
+        }
+        if (locationCode != ANY) {
+            if (locationCode >= locations.length || locations[locationCode] == null) return null;
+            maps.add(locations[locationCode]);
+        }
+        if (lowStockOnly) maps.add(lowStock);
+        return maps.toArray(new RowBitmap[0]);
+    }
+
+    private RowBitmap category(int code) {
+        if (code >= categories.length) categories = Arrays.copyOf(categories, Math.max(code + 1, categories.length * 2));
+        if (categories[code] == null) categories[code] = new RowBitmap();
+        return categories[code];
+    }
+
+    private RowBitmap location(int code) {
+        if (code >= locations.length) locations = Arrays.copyOf(locations, Math.max(code + 1, locations.length * 2));
+        if (locations[code] == null) locations[code] = new RowBitmap();
+        return locations[code];
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// The default ItemStorage: a primitive array per numeric field and String arrays for SKU and name.
+class HeapItemStorage implements ItemStorage {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] NO_ROWS = new int[0];
+
+    // Hash indexes kept in sync with every add/remove/move. Names may repeat: nameIndex holds
+    // names used by exactly one row, duplicateNames (rare) holds every row of a shared name.
+    // The name indexes are built on first name lookup, so a bulk load only pays for SKUs.
+    private StringIntMap skuIndex = new StringIntMap(INITIAL_CAPACITY);
+    private volatile StringIntMap nameIndex;
+    private final Map<String, int[]> duplicateNames = new HashMap<>();
+
+    private int size;
+    private String[] skus = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private double[] costPrices = new double[INITIAL_CAPACITY];
+    private double[] sellingPrices = new double[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private int[] locationCodes = new int[INITIAL_CAPACITY];
+    private int[] minStocks = new int[INITIAL_CAPACITY];
+
+    @Override public int size() { return size; }
+
+    @Override public String getSku(int row) { return skus[row]; }
+    @Override public String getName(int row) { return names[row]; }
+    @Override public int getQuantity(int row) { return quantities[row]; }
+    @Override public double getCostPrice(int row) { return costPrices[row]; }
+    @Override public double getSellingPrice(int row) { return sellingPrices[row]; }
+    @Override public int getCategoryCode(int row) { return categoryCodes[row]; }
+    @Override public int getLocationCode(int row) { return locationCodes[row]; }
+    @Override public int getMinStock(int row) { return minStocks[row]; }
+
+    @Override
+    public int findBySku(String sku) {
+        return skuIndex.get(sku);
+    }
+
+    @Override
+    public int[] findByName(String name) {
+        StringIntMap index = nameIndex;
+        if (index == null) index = buildNameIndex();
+        int row = index.get(name);
+        if (row != -1) return new int[]{row};
+        int[] rows = duplicateNames.get(name);
+        return rows == null ? NO_ROWS : rows.clone();
+    }
+
+    @Override
+    public int append(String sku, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        skus[row] = sku;
+        write(row, name, qty, cost, sell, categoryCode, locationCode, min);
+        skuIndex.put(sku, row);
+        addNameRow(name, row);
+        return row;
+    }
+
+    @Override
+    public void appendAll(String[] newSkus, String[] newNames, int[] newQuantities, double[] newCosts, double[] newSells,
+                          int[] newCategoryCodes, int[] newLocationCodes, int[] newMinStocks, int count) {
+        int first = size;
+        if (first == 0) {
+            // Bulk load into an empty store: size the indexes once instead of rehashing as they grow
+            skuIndex = new StringIntMap(count);
+            nameIndex = null;
+            duplicateNames.clear();
+        }
+        for (int i = 0; i < count; i++) {
+            if (skuIndex.putIfAbsent(newSkus[i], first + i) != -1) {
+                for (int j = 0; j < i; j++) skuIndex.remove(newSkus[j]);
+                throw new IllegalArgumentException("Duplicate SKU: " + newSkus[i]);
+            }
+        }
+        ensureCapacity(size + count);
+        System.arraycopy(newSkus, 0, skus, first, count);
+        System.arraycopy(newNames, 0, names, first, count);
+        System.arraycopy(newQuantities, 0, quantities, first, count);
+        System.arraycopy(newCosts, 0, costPrices, first, count);
+        System.arraycopy(newSells, 0, sellingPrices, first, count);
+        System.arraycopy(newCategoryCodes, 0, categoryCodes, first, count);
+        System.arraycopy(newLocationCodes, 0, locationCodes, first, count);
+        System.arraycopy(newMinStocks, 0, minStocks, first, count);
+        size += count;
+        for (int row = first; row < size; row++) addNameRow(names[row], row);
+    }
+
+    @Override
+    public void update(int row, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        removeNameRow(names[row], row);
+        write(row, name, qty, cost, sell, categoryCode, locationCode, min);
+        addNameRow(name, row);
+    }
+
+    @Override
+    public void setQuantity(int row, int qty) {
+        quantities[row] = qty;
+    }
+
+    @Override
+    public void remove(int row) {
+        int last = size - 1;
+        size = last;
+        skuIndex.remove(skus[row]);
+        removeNameRow(names[row], row);
+        if (row != last) {
+            skus[row] = skus[last];
+            write(row, names[last], quantities[last], costPrices[last], sellingPrices[last],
+                categoryCodes[last], locationCodes[last], minStocks[last]);
+            skuIndex.put(skus[row], row);
+            removeNameRow(names[row], last);
+            addNameRow(names[row], row);
+        }
+        skus[last] = null;
+        names[last] = null;
+    }
+
+    @Override
+    public long getOffHeapBytes() { return 0; }
+
+    private void write(int row, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        names[row] = name;
+        quantities[row] = qty;
+        costPrices[row] = cost;
+        sellingPrices[row] = sell;
+        categoryCodes[row] = categoryCode;
+        locationCodes[row] = locationCode;
+        minStocks[row] = min;
+    }
+
+    // Concurrent lookups may race to build it; the index is published only once complete
+    private synchronized StringIntMap buildNameIndex() {
+        if (nameIndex != null) return nameIndex;
+        StringIntMap index = new StringIntMap(size);
+        for (int row = 0; row < size; row++) addNameRow(index, names[row], row);
+        nameIndex = index;
+        return index;
+    }
+
+    private void addNameRow(String name, int row) {
+        if (nameIndex != null) addNameRow(nameIndex, name, row);
+    }
+
+    private void addNameRow(StringIntMap index, String name, int row) {
+        int[] rows = duplicateNames.get(name);
+        if (rows != null) {
+            int[] grown = Arrays.copyOf(rows, rows.length + 1);
+            grown[rows.length] = row;
+            duplicateNames.put(name, grown);
+            return;
+        }
+        int existing = index.putIfAbsent(name, row);
+        if (existing != -1) {
+            index.remove(name);
+            duplicateNames.put(name, new int[]{existing, row});
+        }
+    }
+
+    private void removeNameRow(String name, int row) {
+        if (nameIndex == null) return;
+        int[] rows = duplicateNames.get(name);
+        if (rows == null) {
+            if (nameIndex.get(name) == row) nameIndex.remove(name);
+            return;
+        }
+        int idx = -1;
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == row) { idx = i; break; }
+        }
+        if (idx == -1) return;
+        if (rows.length == 2) {
+            duplicateNames.remove(name);
+            nameIndex.put(name, rows[1 - idx]);
+            return;
+        }
+        int[] shrunk = new int[rows.length - 1];
+        System.arraycopy(rows, 0, shrunk, 0, idx);
+        System.arraycopy(rows, idx + 1, shrunk, idx, rows.length - idx - 1);
+        duplicateNames.put(name, shrunk);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= skus.length) return;
+        int cap = Math.max(needed, skus.length * 2);
+        skus = Arrays.copyOf(skus, cap);
+        names = Arrays.copyOf(names, cap);
+        quantities = Arrays.copyOf(quantities, cap);
+        costPrices = Arrays.copyOf(costPrices, cap);
+        sellingPrices = Arrays.copyOf(sellingPrices, cap);
+        categoryCodes = Arrays.copyOf(categoryCodes, cap);
+        locationCodes = Arrays.copyOf(locationCodes, cap);
+        minStocks = Arrays.copyOf(minStocks, cap);
+    }
+}
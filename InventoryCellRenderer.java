@@ -0,0 +1,49 @@
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.event.RowSorterListener;
+import javax.swing.event.TableModelListener;
+import java.awt.Color;
+
+// Inventory table renderer: low-stock rows are tinted using the flag InventoryStats keeps
+// up to date on mutation. The view-to-model conversion and flag lookup happen once per
+// row rather than once per cell; the cache is dropped whenever the model or sort changes.
+public class InventoryCellRenderer extends StripedTableCellRenderer {
+    static final Color LOW_STOCK_ROW = new Color(255, 200, 200); // Soft red for low stock
+
+    private final InventoryStats stats;
+    private final TableModelListener modelListener = e -> resetRowCache();
+    private final RowSorterListener sorterListener = e -> resetRowCache();
+    private RowSorter<?> sorter;
+
+    private JTable cachedTable;
+    private int cachedViewRow = -1;
+    private boolean cachedLow;
+
+    public InventoryCellRenderer(JTable table, InventoryStats stats) {
+        this.stats = stats;
+        table.getModel().addTableModelListener(modelListener);
+        attachSorter(table.getRowSorter());
+        table.addPropertyChangeListener("rowSorter", e -> attachSorter((RowSorter<?>) e.getNewValue()));
+    }
+
+    @Override
+    protected Color rowBackground(JTable table, int row) {
+        if (row != cachedViewRow || table != cachedTable) {
+            cachedTable = table;
+            cachedViewRow = row;
+            cachedLow = stats.isLowStock(table.convertRowIndexToModel(row));
+        }
+        return cachedLow ? LOW_STOCK_ROW : super.rowBackground(table, row);
+    }
+
+    private void attachSorter(RowSorter<?> newSorter) {
+        if (sorter != null) sorter.removeRowSorterListener(sorterListener);
+        sorter = newSorter;
+        if (sorter != null) sorter.addRowSorterListener(sorterListener);
+        resetRowCache();
+    }
+
+    private void resetRowCache() {
+        cachedViewRow = -1;
+    }
+}
@@ -0,0 +1,90 @@
+// One change to the inventory, as published by ChangeFeed. Sequence numbers count every change
+// published, from 1, so a subscriber that never overflowed sees them without gaps. Fields that
+// don't apply to the type are null or 0.
+public final class InventoryChange {
+
+    public enum Type {
+        // A new item: name, newQuantity, minStock
+        ITEM_ADDED,
+        // An import rewrote the item: name, oldQuantity -> newQuantity, minStock
+        ITEM_UPDATED,
+        // Total on hand went oldQuantity -> newQuantity; location is set when it changed at one location
+        QUANTITY_CHANGED,
+        // The item crossed its minimum, either way: isLow() tells which
+        LOW_STOCK_CROSSED,
+        // quantity units moved from location to toLocation; the total is unchanged
+        TRANSFERRED,
+        // quantity units sold at priceCents each, at timestamp
+        SALE_RECORDED,
+        // The item was removed with oldQuantity on hand
+        ITEM_DELETED
+    }
+
+    public final long sequence;
+    public final Type type;
+    public final long timestamp;
+    public final String sku;
+    public final String name;
+    public final int oldQuantity;
+    public final int newQuantity;
+    public final int minStock;
+    public final int quantity;
+    public final String location;
+    public final String toLocation;
+    public final int priceCents;
+
+    InventoryChange(long sequence, Type type, long timestamp, String sku, String name, int oldQuantity, int newQuantity,
+                    int minStock, int quantity, String location, String toLocation, int priceCents) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.sku = sku;
+        this.name = name;
+        this.oldQuantity = oldQuantity;
+        this.newQuantity = newQuantity;
+        this.minStock = minStock;
+        this.quantity = quantity;
+        this.location = location;
+        this.toLocation = toLocation;
+        this.priceCents = priceCents;
+    }
+
+    // For LOW_STOCK_CROSSED: true if the item went low, false if it recovered
+    public boolean isLow() { return newQuantity <= minStock; }
+
+    public Json.Writer write(Json.Writer json) {
+        json.beginObject().field("sequence", sequence).field("type", type.name()).field("timestamp", timestamp).field("sku", sku);
+        switch (type) {
+            case ITEM_ADDED:
+                json.field("name", name).field("quantity", newQuantity).field("minStock", minStock);
+                break;
+            case ITEM_UPDATED:
+                json.field("name", name).field("oldQuantity", oldQuantity).field("newQuantity", newQuantity).field("minStock", minStock);
+                break;
+            case QUANTITY_CHANGED:
+                json.field("oldQuantity", oldQuantity).field("newQuantity", newQuantity);
+                if (location != null) json.field("location", location);
+                break;
+            case LOW_STOCK_CROSSED:
+                json.field("low", isLow()).field("quantity", newQuantity).field("minStock", minStock);
+                break;
+            case TRANSFERRED:
+                json.field("from", location).field("to", toLocation).field("quantity", quantity);
+                break;
+            case SALE_RECORDED:
+                json.field("quantity", quantity).centsField("price", priceCents);
+                break;
+            case ITEM_DELETED:
+                json.field("quantity", oldQuantity);
+                break;
+        }
+        return json.endObject();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(128);
+        write(new Json.Writer(sb));
+        return sb.toString();
+    }
+}
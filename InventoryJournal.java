@@ -0,0 +1,736 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only binary write-ahead journal of inventory and sales mutations.
+//
+// Record layout: [int payloadLength][byte type][payload][int crc32 of type+payload].
+// Stock records that name no sale time (add, upsert, restock, delete) end with the time they
+// were appended, so replay can date the stock movements they make.
+// Callers encode into an in-memory batch; a single flusher thread writes each batch with
+// one FileChannel write and one fsync (group commit). Appends return the record's sequence
+// number as soon as it is queued; in SYNC mode the caller then passes it to awaitDurable,
+// which returns once the record is on disk, so it can drop its own locks before waiting and
+// concurrent appenders share the same fsync. In ASYNC mode awaitDurable returns immediately
+// and the batch is forced every syncIntervalMillis.
+//
+// Offsets are logical: they count every record ever appended, so they stay valid after the file
+// drops its prefix. The file starts with the long offset of its first record, then the records.
+// On open, the existing journal is replayed from a given offset (the one recorded by the
+// latest snapshot, or 0); a torn or corrupt tail is truncated away. Once a snapshot covering
+// an offset is on disk, truncateBefore lets the flusher rewrite the file without the records
+// before it.
+public class InventoryJournal implements Closeable {
+    public static final byte ADD = 1;
+    public static final byte RESTOCK = 2;
+    public static final byte SALE = 3;
+    public static final byte DELETE = 4;
+    public static final byte UPSERT = 5;
+    // Multi-line transactions are one record each, so a torn tail drops the whole batch
+    public static final byte ORDER = 6;
+    public static final byte RESTOCK_BATCH = 7;
+    // A category or location defined at runtime, so it survives a restart before any item uses it
+    public static final byte CATEGORY = 8;
+    public static final byte LOCATION = 9;
+    // Stock movements that name a location; RESTOCK and SALE act on the item's home location
+    public static final byte TRANSFER = 10;
+    public static final byte RESTOCK_AT = 11;
+    public static final byte SALE_AT = 12;
+
+    public enum Durability { SYNC, ASYNC }
+
+    // Receives journal records in write order during replay
+    public interface Replayer {
+        // Called before each record that carries the time it was written
+        default void clock(long timestamp) {}
+        void add(String sku, String name, int qty, double cost, double sell, String category, String location, int min);
+        void restock(String sku, int qty);
+        void sale(String sku, int qty, double sellingPrice, long timestamp);
+        void delete(String sku);
+        void upsert(String sku, String name, int qty, double cost, double sell, String category, String location, int min);
+        // An atomic multi-line sale; by default replayed line by line
+        default void order(String[] skus, int[] qty, double[] sellingPrices, long timestamp) {
+            for (int i = 0; i < skus.length; i++) sale(skus[i], qty[i], sellingPrices[i], timestamp);
+        }
+        // An atomic batch restock; by default replayed line by line
+        default void restocks(String[] skus, int[] qty) {
+            for (int i = 0; i < skus.length; i++) restock(skus[i], qty[i]);
+        }
+        void category(String name);
+        void location(String name);
+        void transfer(String sku, String fromLocation, String toLocation, int qty);
+        void restockAt(String sku, String location, int qty);
+        void saleAt(String sku, String location, int qty, double sellingPrice, long timestamp);
+    }
+
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int HEADER_BYTES = 5;
+    private static final int TRAILER_BYTES = 4;
+
+    private final Path file;
+    // Replaced only by the flusher when it compacts the file
+    private FileChannel channel;
+    // Logical offset of the first record in the file
+    private long baseOffset;
+    private final Durability durability;
+    private final long syncIntervalMillis;
+    // Not a monitor: appenders and durability waiters may be virtual threads, which would stay
+    // pinned to their carrier through Object.wait on JDK 21-23
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();   // records queued, or closing
+    private final Condition flushed = lock.newCondition();   // durableSeq advanced, or failed
+    private final Thread flusher;
+
+    private ByteBuffer batch = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private int recordStart;
+    private long appendedSeq;
+    private long durableSeq;
+    private long endOffset;
+    private long compactBefore;
+    private IOException failure;
+    private boolean closed;
+
+    private InventoryJournal(Path file, FileChannel channel, long baseOffset, long endOffset, Durability durability, long syncIntervalMillis) {
+        this.file = file;
+        this.channel = channel;
+        this.baseOffset = baseOffset;
+        this.compactBefore = baseOffset;
+        this.endOffset = endOffset;
+        this.durability = durability;
+        this.syncIntervalMillis = Math.max(0, syncIntervalMillis);
+        this.flusher = new Thread(this::flushLoop, "inventory-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Opens (creating if needed) the journal at 'file', replays its records from 'fromOffset',
+    // and returns it ready for appends
+    public static InventoryJournal open(Path file, Durability durability, long syncIntervalMillis,
+                                        long fromOffset, Replayer replayer) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long base;
+            if (channel.size() < FILE_HEADER_BYTES) {
+                // New, or torn before its first record
+                channel.truncate(0);
+                writeFileHeader(channel, 0);
+                channel.force(false);
+                base = 0;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+                while (header.hasRemaining()) channel.read(header, header.position());
+                base = header.getLong(0);
+            }
+            long from = FILE_HEADER_BYTES + Math.max(fromOffset - base, 0);
+            long end = replay(channel, Math.min(from, channel.size()), replayer);
+            if (end < channel.size()) channel.truncate(end);
+            channel.position(end);
+            return new InventoryJournal(file, channel, base, base + end - FILE_HEADER_BYTES, durability, syncIntervalMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long appendAdd(String sku, String name, int qty, double cost, double sell, String category, String location, int min) {
+        byte[] skuBytes = utf8(sku), nameBytes = utf8(name), catBytes = utf8(category), locBytes = utf8(location);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(ADD, itemPayload(skuBytes, nameBytes, catBytes, locBytes) + 8);
+            putItem(b, skuBytes, nameBytes, qty, cost, sell, catBytes, locBytes, min);
+            b.putLong(System.currentTimeMillis());
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Appends one UPSERT record per item and returns the sequence number of the last
+    public long appendUpserts(String[] skus, String[] names, int[] qty, double[] cost, double[] sell,
+                              String[] categories, String[] locations, int[] min, int count) {
+        if (count == 0) return 0;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                byte[] skuBytes = utf8(skus[i]), nameBytes = utf8(names[i]);
+                byte[] catBytes = utf8(categories[i]), locBytes = utf8(locations[i]);
+                ByteBuffer b = begin(UPSERT, itemPayload(skuBytes, nameBytes, catBytes, locBytes) + 8);
+                putItem(b, skuBytes, nameBytes, qty[i], cost[i], sell[i], catBytes, locBytes, min[i]);
+                b.putLong(now);
+                seal(b);
+            }
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendRestock(String sku, int qty) {
+        byte[] skuBytes = utf8(sku);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(RESTOCK, 4 + skuBytes.length + 4 + 8);
+            putString(b, skuBytes);
+            b.putInt(qty).putLong(System.currentTimeMillis());
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendSale(String sku, int qty, double sellingPrice, long timestamp) {
+        byte[] skuBytes = utf8(sku);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(SALE, 4 + skuBytes.length + 4 + 8 + 8);
+            putString(b, skuBytes);
+            b.putInt(qty).putDouble(sellingPrice).putLong(timestamp);
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // One ORDER record for all 'count' lines, sold at the same instant
+    public long appendOrder(String[] skus, int[] qty, double[] sellingPrices, long timestamp, int count) {
+        byte[][] skuBytes = new byte[count][];
+        int payload = 4 + 8;
+        for (int i = 0; i < count; i++) {
+            skuBytes[i] = utf8(skus[i]);
+            payload += 4 + skuBytes[i].length + 4 + 8;
+        }
+        lock.lock();
+        try {
+            ByteBuffer b = begin(ORDER, payload);
+            b.putInt(count).putLong(timestamp);
+            for (int i = 0; i < count; i++) {
+                putString(b, skuBytes[i]);
+                b.putInt(qty[i]).putDouble(sellingPrices[i]);
+            }
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // One RESTOCK_BATCH record for all 'count' lines
+    public long appendRestocks(String[] skus, int[] qty, int count) {
+        byte[][] skuBytes = new byte[count][];
+        int payload = 4 + 8;
+        for (int i = 0; i < count; i++) {
+            skuBytes[i] = utf8(skus[i]);
+            payload += 4 + skuBytes[i].length + 4;
+        }
+        lock.lock();
+        try {
+            ByteBuffer b = begin(RESTOCK_BATCH, payload);
+            b.putInt(count);
+            for (int i = 0; i < count; i++) {
+                putString(b, skuBytes[i]);
+                b.putInt(qty[i]);
+            }
+            b.putLong(System.currentTimeMillis());
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendTransfer(String sku, String fromLocation, String toLocation, int qty) {
+        byte[] skuBytes = utf8(sku);
+        byte[] fromBytes = utf8(fromLocation);
+        byte[] toBytes = utf8(toLocation);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(TRANSFER, 4 + skuBytes.length + 4 + fromBytes.length + 4 + toBytes.length + 4);
+            putString(b, skuBytes);
+            putString(b, fromBytes);
+            putString(b, toBytes);
+            b.putInt(qty);
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendRestockAt(String sku, String location, int qty) {
+        byte[] skuBytes = utf8(sku);
+        byte[] locationBytes = utf8(location);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(RESTOCK_AT, 4 + skuBytes.length + 4 + locationBytes.length + 4 + 8);
+            putString(b, skuBytes);
+            putString(b, locationBytes);
+            b.putInt(qty).putLong(System.currentTimeMillis());
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendSaleAt(String sku, String location, int qty, double sellingPrice, long timestamp) {
+        byte[] skuBytes = utf8(sku);
+        byte[] locationBytes = utf8(location);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(SALE_AT, 4 + skuBytes.length + 4 + locationBytes.length + 4 + 8 + 8);
+            putString(b, skuBytes);
+            putString(b, locationBytes);
+            b.putInt(qty).putDouble(sellingPrice).putLong(timestamp);
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendCategory(String name) {
+        return appendName(CATEGORY, name);
+    }
+
+    public long appendLocation(String name) {
+        return appendName(LOCATION, name);
+    }
+
+    private long appendName(byte type, String name) {
+        byte[] nameBytes = utf8(name);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(type, 4 + nameBytes.length);
+            putString(b, nameBytes);
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendDelete(String sku) {
+        byte[] skuBytes = utf8(sku);
+        lock.lock();
+        try {
+            ByteBuffer b = begin(DELETE, 4 + skuBytes.length + 8);
+            putString(b, skuBytes);
+            b.putLong(System.currentTimeMillis());
+            return seal(b);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Offset just past the last appended record (durable or not); a snapshot taken now resumes replay here
+    public long endOffset() {
+        lock.lock();
+        try {
+            return endOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sequence number of the last appended record (durable or not)
+    public long appendedSeq() {
+        lock.lock();
+        try {
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // In SYNC mode, blocks until the record numbered 'seq' is on disk; returns at once in ASYNC
+    // mode, where the flusher forces it within syncIntervalMillis
+    public void awaitDurable(long seq) {
+        if (durability != Durability.SYNC) return;
+        lock.lock();
+        try {
+            waitFor(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal write failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lets the flusher drop the records before 'offset' from the file; call once a snapshot
+    // taken at that offset is on disk. A failed rewrite keeps the old file and is retried on
+    // the next call.
+    public void truncateBefore(long offset) {
+        lock.lock();
+        try {
+            if (offset > compactBefore) {
+                compactBefore = offset;
+                pending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until every record appended so far is on disk
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            waitFor(appendedSeq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            waitFor(appendedSeq);
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private ByteBuffer begin(byte type, int payloadLength) {
+        if (closed) throw new IllegalStateException("Journal is closed");
+        if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+        int needed = HEADER_BYTES + payloadLength + TRAILER_BYTES;
+        if (batch.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + needed));
+            batch.flip();
+            grown.put(batch);
+            batch = grown;
+        }
+        recordStart = batch.position();
+        batch.putInt(payloadLength).put(type);
+        return batch;
+    }
+
+    // Finishes the record just written and hands it to the flusher
+    private long seal(ByteBuffer b) {
+        // CRC covers the type byte and payload of the record just written
+        int payloadLength = b.getInt(recordStart);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), recordStart + 4, payloadLength + 1);
+        b.putInt((int) crc.getValue());
+        endOffset += b.position() - recordStart;
+        long seq = ++appendedSeq;
+        pending.signal();
+        return seq;
+    }
+
+    private void waitFor(long seq) throws IOException {
+        while (durableSeq < seq && failure == null) {
+            try {
+                flushed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for journal sync", e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer toWrite = null;
+            long seq = 0;
+            long compactTo;
+            lock.lock();
+            try {
+                while (batch.position() == 0 && compactBefore <= baseOffset && !closed) {
+                    try {
+                        pending.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (batch.position() == 0 && closed) return;
+                compactTo = compactBefore;
+                if (batch.position() > 0) {
+                    if (durability == Durability.ASYNC && syncIntervalMillis > 0) {
+                        // Let more records pile into this batch before paying for the fsync
+                        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+                        long remaining;
+                        while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                            try {
+                                pending.awaitNanos(remaining);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                    toWrite = batch;
+                    batch = spare;
+                    batch.clear();
+                    spare = toWrite;
+                    seq = appendedSeq;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Everything in the file is already forced, so it can be rewritten before this batch
+            if (compactTo > baseOffset) compact(compactTo);
+            if (toWrite == null) continue;
+            try {
+                toWrite.flip();
+                while (toWrite.hasRemaining()) channel.write(toWrite);
+                channel.force(false);
+                lock.lock();
+                try {
+                    durableSeq = seq;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    // Copies the records from 'offset' on into a temp file that is fsynced and renamed over the
+    // journal, then appends there. Runs on the flusher, the only thread writing the file.
+    private void compact(long offset) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel compacted = null;
+        try {
+            compacted = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writeFileHeader(compacted, offset);
+            long size = channel.size();
+            for (long pos = FILE_HEADER_BYTES + offset - baseOffset; pos < size; ) {
+                pos += channel.transferTo(pos, size - pos, compacted);
+            }
+            compacted.force(false);
+            // The snapshot's own rename must reach disk before the journal loses its prefix
+            try (FileChannel dir = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                dir.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            try {
+                if (compacted != null) compacted.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // The old journal is still intact
+            }
+            lock.lock();
+            try {
+                compactBefore = baseOffset;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        FileChannel old = channel;
+        channel = compacted;
+        lock.lock();
+        try {
+            baseOffset = offset;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            old.close();
+        } catch (IOException ignored) {
+            // Already replaced
+        }
+    }
+
+    private static void writeFileHeader(FileChannel channel, long baseOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putLong(0, baseOffset);
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    // Applies every intact record from file position 'fromOffset' on and returns the position
+    // just past the last one
+    private static long replay(FileChannel channel, long fromOffset, Replayer replayer) throws IOException {
+        long size = channel.size();
+        ByteBuffer in = ByteBuffer.allocate((int) Math.min(Math.max(size, 1), 1 << 20));
+        in.flip();
+        long offset = fromOffset;
+        long readPos = fromOffset;
+        CRC32 crc = new CRC32();
+        while (true) {
+            if (in.remaining() < HEADER_BYTES) {
+                readPos = refill(channel, in, readPos);
+                if (in.remaining() < HEADER_BYTES) return offset;
+            }
+            int payloadLength = in.getInt(in.position());
+            if (payloadLength < 0 || payloadLength > (1 << 24)) return offset;
+            int recordLength = HEADER_BYTES + payloadLength + TRAILER_BYTES;
+            if (in.remaining() < recordLength) {
+                if (in.capacity() < recordLength) {
+                    ByteBuffer grown = ByteBuffer.allocate(recordLength);
+                    grown.put(in);
+                    grown.flip();
+                    in = grown;
+                }
+                readPos = refill(channel, in, readPos);
+                if (in.remaining() < recordLength) return offset;
+            }
+            int start = in.position();
+            crc.reset();
+            crc.update(in.array(), start + 4, payloadLength + 1);
+            if ((int) crc.getValue() != in.getInt(start + HEADER_BYTES + payloadLength)) return offset;
+
+            in.position(start + 4);
+            byte type = in.get();
+            switch (type) {
+                case ADD:
+                case UPSERT: {
+                    String sku = getString(in), name = getString(in);
+                    int qty = in.getInt();
+                    double cost = in.getDouble(), sell = in.getDouble();
+                    String category = getString(in), location = getString(in);
+                    int min = in.getInt();
+                    replayer.clock(in.getLong());
+                    if (type == ADD) replayer.add(sku, name, qty, cost, sell, category, location, min);
+                    else replayer.upsert(sku, name, qty, cost, sell, category, location, min);
+                    break;
+                }
+                case RESTOCK: {
+                    String sku = getString(in);
+                    int qty = in.getInt();
+                    replayer.clock(in.getLong());
+                    replayer.restock(sku, qty);
+                    break;
+                }
+                case SALE: {
+                    String sku = getString(in);
+                    int qty = in.getInt();
+                    double price = in.getDouble();
+                    long timestamp = in.getLong();
+                    replayer.clock(timestamp);
+                    replayer.sale(sku, qty, price, timestamp);
+                    break;
+                }
+                case DELETE: {
+                    String sku = getString(in);
+                    replayer.clock(in.getLong());
+                    replayer.delete(sku);
+                    break;
+                }
+                case ORDER: {
+                    int n = in.getInt();
+                    long timestamp = in.getLong();
+                    replayer.clock(timestamp);
+                    String[] skus = new String[n];
+                    int[] qty = new int[n];
+                    double[] prices = new double[n];
+                    for (int i = 0; i < n; i++) {
+                        skus[i] = getString(in);
+                        qty[i] = in.getInt();
+                        prices[i] = in.getDouble();
+                    }
+                    replayer.order(skus, qty, prices, timestamp);
+                    break;
+                }
+                case RESTOCK_BATCH: {
+                    int n = in.getInt();
+                    String[] skus = new String[n];
+                    int[] qty = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        skus[i] = getString(in);
+                        qty[i] = in.getInt();
+                    }
+                    replayer.clock(in.getLong());
+                    replayer.restocks(skus, qty);
+                    break;
+                }
+                case CATEGORY:
+                    replayer.category(getString(in));
+                    break;
+                case LOCATION:
+                    replayer.location(getString(in));
+                    break;
+                case TRANSFER:
+                    replayer.transfer(getString(in), getString(in), getString(in), in.getInt());
+                    break;
+                case RESTOCK_AT: {
+                    String sku = getString(in), location = getString(in);
+                    int qty = in.getInt();
+                    replayer.clock(in.getLong());
+                    replayer.restockAt(sku, location, qty);
+                    break;
+                }
+                case SALE_AT: {
+                    String sku = getString(in), location = getString(in);
+                    int qty = in.getInt();
+                    double price = in.getDouble();
+                    long timestamp = in.getLong();
+                    replayer.clock(timestamp);
+                    replayer.saleAt(sku, location, qty, price, timestamp);
+                    break;
+                }
+                default:
+                    return offset;
+            }
+            in.position(start + recordLength);
+            offset += recordLength;
+        }
+    }
+
+
+    private static long refill(FileChannel channel, ByteBuffer in, long readPos) throws IOException {
+        in.compact();
+        int n;
+        while (in.hasRemaining() && (n = channel.read(in, readPos)) > 0) readPos += n;
+        in.flip();
+        return readPos;
+    }
+
+    private static int itemPayload(byte[] sku, byte[] name, byte[] category, byte[] location) {
+        return 4 * 4 + sku.length + name.length + category.length + location.length + 4 + 8 + 8 + 4;
+    }
+
+    private static void putItem(ByteBuffer b, byte[] sku, byte[] name, int qty, double cost, double sell,
+                                byte[] category, byte[] location, int min) {
+        putString(b, sku);
+        putString(b, name);
+        b.putInt(qty).putDouble(cost).putDouble(sell);
+        putString(b, category);
+        putString(b, location);
+        b.putInt(min);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer b, byte[] bytes) {
+        b.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer b) {
+        int len = b.getInt();
+        String s = new String(b.array(), b.position(), len, StandardCharsets.UTF_8);
+        b.position(b.position() + len);
+        return s;
+    }
+}
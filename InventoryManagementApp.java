@@ -8,47 +8,49 @@ import javax.swing.event.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Arrays;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class InventoryManagementApp {
     // Existing fields unchanged
-    private static final String[] COLUMN_NAMES = {
+    static final String[] COLUMN_NAMES = {
         "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
         "Category", "Location", "Min Stock Threshold"
     };
-    private int skuCounter = 1;
-    private static final String[] CATEGORIES = {
+    static final String[] CATEGORIES = {
         "Electronics", "Clothing", "Food", "Other"
     };
-    private static final String[] LOCATIONS = {
+    static final String[] LOCATIONS = {
         "Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"
     };
-    private DefaultTableModel model;
+    // First entry of the restock and sale location pickers
+    private static final String ITEM_LOCATION = "Item's location";
+    private final InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+    // Checks against the store's dictionaries, so categories and locations defined at runtime are accepted
+    private final ItemValidator validator = new ItemValidator(store.getCategories(), store.getLocations());
+    private InventoryTableModel model;
     private JTable inventoryTable;
-    private List<SaleRecord> salesLog = new ArrayList<>();
-    private TableRowSorter<DefaultTableModel> sorter;
-
-    // SaleRecord class unchanged
-    private static class SaleRecord {
-        String sku, name, category;
-        int quantity;
-        double sellingPrice;
-        String timestamp;
-        SaleRecord(String sku, String name, String category, int quantity, double sellingPrice, String timestamp) {
-            this.sku = sku;
-            this.name = name;
-            this.category = category;
-            this.quantity = quantity;
-            this.sellingPrice = sellingPrice;
-            this.timestamp = timestamp;
-        }
-    }
+    private final SalesLedger sales = new SalesLedger();
+    private final SalesAnalytics analytics = new SalesAnalytics(sales);
+    // Listens to the ledger from the start so journal replay feeds it too
+    private final DemandForecast forecast = new DemandForecast(sales);
+    // Every mutation goes through the service; the UI only reads the store on the EDT
+    private final InventoryService service = new InventoryService(store, sales, true);
+    private TableRowSorter<InventoryTableModel> sorter;
 
 
 
@@ -88,6 +90,9 @@ public class InventoryManagementApp {
         frame.setMinimumSize(new Dimension(800, 500));
         frame.getContentPane().setBackground(new Color(245, 245, 245)); // Light gray background
 
+        // Restore state from the snapshot and journal before any views attach to the store
+        openJournal(frame);
+
         // Modern tabbed pane
         JTabbedPane tabbedPane = new JTabbedPane();
         tabbedPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -95,9 +100,7 @@ public class InventoryManagementApp {
         tabbedPane.setForeground(new Color(50, 50, 50));
 
         // Initialize table model
-        model = new DefaultTableModel(COLUMN_NAMES, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
+        model = new InventoryTableModel(store, COLUMN_NAMES);
         inventoryTable = new JTable(model);
         inventoryTable.setAutoCreateRowSorter(true);
         sorter = new TableRowSorter<>(model);
@@ -111,30 +114,10 @@ public class InventoryManagementApp {
         inventoryTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
 
         // Custom table renderer for low-stock and alternating rows
-        inventoryTable.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                int modelRow = table.convertRowIndexToModel(row);
-                c.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-                try {
-                    int qty = Integer.parseInt(model.getValueAt(modelRow, 2).toString());
-                    int min = Integer.parseInt(model.getValueAt(modelRow, 7).toString());
-                    if (qty <= min) {
-                        c.setBackground(new Color(255, 200, 200)); // Soft red for low stock
-                    } else {
-                        c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(240, 240, 240)); // Alternating rows
-                    }
-                    if (isSelected) {
-                        c.setBackground(new Color(200, 220, 255)); // Selection highlight
-                    }
-                } catch (Exception ex) {
-                    c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(240, 240, 240));
-                }
-                c.setForeground(Color.BLACK);
-                ((JLabel) c).setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5)); // Cell padding
-                return c;
-            }
-        });
+        InventoryCellRenderer inventoryRenderer = new InventoryCellRenderer(inventoryTable, store.getStats());
+        // Numeric columns report Integer/Double so they sort numerically; keep them on the same renderer
+        inventoryTable.setDefaultRenderer(Object.class, inventoryRenderer);
+        inventoryTable.setDefaultRenderer(Number.class, inventoryRenderer);
 
         // Entry Tab
         JPanel entryPanel = new JPanel(new GridBagLayout());
@@ -161,10 +144,14 @@ public class InventoryManagementApp {
         JTextField quantityField = new JTextField();
         JTextField costField = new JTextField();
         JTextField sellField = new JTextField();
-        JComboBox<String> categoryBox = new JComboBox<>(CATEGORIES);
-        JComboBox<String> locationBox = new JComboBox<>(LOCATIONS);
+        // Built after the journal replay, so restored user-defined values are included
+        JComboBox<String> categoryBox = new JComboBox<>(store.getCategories().values().toArray(new String[0]));
+        JComboBox<String> locationBox = new JComboBox<>(store.getLocations().values().toArray(new String[0]));
+        JButton newCategoryButton = createStyledButton("New Category...");
+        JButton newLocationButton = createStyledButton("New Location...");
         JTextField minStockField = new JTextField();
         JButton addButton = createStyledButton("Add Item");
+        JButton importButton = createStyledButton("Import CSV...");
 
         itemNameField.setToolTipText("Enter item name");
         quantityField.setToolTipText("Enter quantity (positive integer)");
@@ -174,6 +161,9 @@ public class InventoryManagementApp {
         locationBox.setToolTipText("Select location");
         minStockField.setToolTipText("Enter minimum stock threshold");
         addButton.setToolTipText("Add item to inventory");
+        newCategoryButton.setToolTipText("Define a category items can be filed under");
+        newLocationButton.setToolTipText("Define a location items can be stored at");
+        importButton.setToolTipText("Add or update many items from a CSV file (same columns as Save to CSV)");
 
         // Style form fields
         styleTextField(itemNameField);
@@ -203,10 +193,19 @@ public class InventoryManagementApp {
         gbc.gridx = 0; gbc.gridy = row; addItemPanel.add(new JLabel("Location:"), gbc);
         gbc.gridx = 1; addItemPanel.add(locationBox, gbc);
         row++;
+        JPanel definePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        definePanel.setBackground(new Color(245, 245, 245));
+        definePanel.add(newCategoryButton);
+        definePanel.add(newLocationButton);
+        gbc.gridx = 0; gbc.gridy = row; gbc.gridwidth = 2; addItemPanel.add(definePanel, gbc);
+        gbc.gridwidth = 1;
+        row++;
         gbc.gridx = 0; gbc.gridy = row; addItemPanel.add(new JLabel("Min Stock Threshold:"), gbc);
         gbc.gridx = 1; addItemPanel.add(minStockField, gbc);
         row++;
         gbc.gridx = 0; gbc.gridy = row; gbc.gridwidth = 2; addItemPanel.add(addButton, gbc);
+        row++;
+        gbc.gridx = 0; gbc.gridy = row; gbc.gridwidth = 2; addItemPanel.add(importButton, gbc);
 
         // Restock Section
         JPanel restockPanel = new JPanel(new GridBagLayout());
@@ -221,28 +220,80 @@ public class InventoryManagementApp {
         restockPanel.setBackground(new Color(245, 245, 245));
 
         JComboBox<String> restockSKUBox = new JComboBox<>();
+        JComboBox<String> restockLocationBox = locationPicker();
         JTextField restockQtyField = new JTextField();
         JButton restockButton = createStyledButton("Restock Item");
         styleComboBox(restockSKUBox);
+        styleComboBox(restockLocationBox);
         styleTextField(restockQtyField);
         restockButton.setToolTipText("Add stock to existing item");
+        restockLocationBox.setToolTipText("Where the stock arrives");
 
         int restockRow = 0;
         gbc.gridx = 0; gbc.gridy = restockRow; restockPanel.add(new JLabel("Restock SKU:"), gbc);
         gbc.gridx = 1; restockPanel.add(restockSKUBox, gbc);
         restockRow++;
+        gbc.gridx = 0; gbc.gridy = restockRow; restockPanel.add(new JLabel("At Location:"), gbc);
+        gbc.gridx = 1; restockPanel.add(restockLocationBox, gbc);
+        restockRow++;
         gbc.gridx = 0; gbc.gridy = restockRow; restockPanel.add(new JLabel("Quantity to Add:"), gbc);
         gbc.gridx = 1; restockPanel.add(restockQtyField, gbc);
         restockRow++;
         gbc.gridx = 0; gbc.gridy = restockRow; gbc.gridwidth = 2; restockPanel.add(restockButton, gbc);
+        gbc.gridwidth = 1;
+
+        // Transfer Section: moves stock of one item between locations in a single step
+        JPanel transferPanel = new JPanel(new GridBagLayout());
+        transferPanel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(new Color(74, 144, 226), 2, true),
+            "Transfer Stock",
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Segoe UI", Font.BOLD, 14),
+            new Color(50, 50, 50)
+        ));
+        transferPanel.setBackground(new Color(245, 245, 245));
+
+        JComboBox<String> transferSKUBox = new JComboBox<>();
+        JComboBox<String> transferFromBox = new JComboBox<>(store.getLocations().values().toArray(new String[0]));
+        JComboBox<String> transferToBox = new JComboBox<>(store.getLocations().values().toArray(new String[0]));
+        JTextField transferQtyField = new JTextField();
+        JButton transferButton = createStyledButton("Transfer");
+        JLabel transferStockLabel = new JLabel(" ");
+        transferStockLabel.setForeground(new Color(110, 110, 110));
+        styleComboBox(transferSKUBox);
+        styleComboBox(transferFromBox);
+        styleComboBox(transferToBox);
+        styleTextField(transferQtyField);
+        transferButton.setToolTipText("Debit one location and credit the other together");
+
+        int transferRow = 0;
+        gbc.gridx = 0; gbc.gridy = transferRow; transferPanel.add(new JLabel("SKU:"), gbc);
+        gbc.gridx = 1; transferPanel.add(transferSKUBox, gbc);
+        transferRow++;
+        gbc.gridx = 0; gbc.gridy = transferRow; gbc.gridwidth = 2; transferPanel.add(transferStockLabel, gbc);
+        gbc.gridwidth = 1;
+        transferRow++;
+        gbc.gridx = 0; gbc.gridy = transferRow; transferPanel.add(new JLabel("From:"), gbc);
+        gbc.gridx = 1; transferPanel.add(transferFromBox, gbc);
+        transferRow++;
+        gbc.gridx = 0; gbc.gridy = transferRow; transferPanel.add(new JLabel("To:"), gbc);
+        gbc.gridx = 1; transferPanel.add(transferToBox, gbc);
+        transferRow++;
+        gbc.gridx = 0; gbc.gridy = transferRow; transferPanel.add(new JLabel("Quantity to Move:"), gbc);
+        gbc.gridx = 1; transferPanel.add(transferQtyField, gbc);
+        transferRow++;
+        gbc.gridx = 0; gbc.gridy = transferRow; gbc.gridwidth = 2; transferPanel.add(transferButton, gbc);
 
         // Combine sections in Entry tab
         gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.weightx = 1.0;
-        gbc.gridx = 0; gbc.gridy = 0; entryPanel.add(addItemPanel, gbc);
+        gbc.gridx = 0; gbc.gridy = 0; gbc.gridheight = 2; entryPanel.add(addItemPanel, gbc);
+        gbc.gridheight = 1;
         gbc.gridx = 1; gbc.gridy = 0; entryPanel.add(restockPanel, gbc);
+        gbc.gridy = 1; entryPanel.add(transferPanel, gbc);
 
         // Inventory Tab
         JPanel listPanel = new JPanel(new BorderLayout(10, 10));
@@ -264,11 +315,51 @@ public class InventoryManagementApp {
         searchPanel.add(lowStockButton);
         searchPanel.add(deleteButton);
 
-        listPanel.add(searchPanel, BorderLayout.NORTH);
+        // Facets: each picker shows how many items every value would leave, given the other picks
+        JPanel facetPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        facetPanel.setBackground(new Color(245, 245, 245));
+        FacetComboBoxModel categoryFacets = new FacetComboBoxModel(store.getCategories(), "All categories");
+        FacetComboBoxModel locationFacets = new FacetComboBoxModel(store.getLocations(), "All locations");
+        JComboBox<String> categoryFacetBox = new JComboBox<>(categoryFacets);
+        JComboBox<String> locationFacetBox = new JComboBox<>(locationFacets);
+        JCheckBox lowStockFacet = new JCheckBox("Low stock only");
+        styleComboBox(categoryFacetBox);
+        styleComboBox(locationFacetBox);
+        lowStockFacet.setBackground(new Color(245, 245, 245));
+        JLabel facetStatus = new JLabel(" ");
+        facetStatus.setForeground(new Color(110, 110, 110));
+        facetPanel.add(new JLabel("Category:"));
+        facetPanel.add(categoryFacetBox);
+        facetPanel.add(new JLabel("Location:"));
+        facetPanel.add(locationFacetBox);
+        facetPanel.add(lowStockFacet);
+        facetPanel.add(facetStatus);
+
+        JPanel filterPanel = new JPanel(new GridLayout(2, 1));
+        filterPanel.add(searchPanel);
+        filterPanel.add(facetPanel);
+        listPanel.add(filterPanel, BorderLayout.NORTH);
         JScrollPane tableScroll = new JScrollPane(inventoryTable);
         tableScroll.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true));
         listPanel.add(tableScroll, BorderLayout.CENTER);
 
+        // Live update rate: how much background stock traffic the table is absorbing
+        JLabel updateStatus = new JLabel(" ");
+        updateStatus.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        updateStatus.setForeground(new Color(110, 110, 110));
+        updateStatus.setBorder(BorderFactory.createEmptyBorder(4, 2, 0, 2));
+        listPanel.add(updateStatus, BorderLayout.SOUTH);
+        CoalescingTableUpdater.Metrics[] lastMetrics = {model.getUpdates().sampleMetrics()};
+        new Timer(1000, e -> {
+            CoalescingTableUpdater.Metrics m = model.getUpdates().sampleMetrics();
+            CoalescingTableUpdater.Metrics prev = lastMetrics[0];
+            long frames = m.frames - prev.frames;
+            updateStatus.setText(String.format("Live updates: %,d changes/s in %d frames/s, queue peak %,d rows, apply %.2f ms/frame",
+                m.deltas - prev.deltas, frames, m.peakQueueDepth,
+                frames == 0 ? 0.0 : (m.applyNanos - prev.applyNanos) / 1e6 / frames));
+            lastMetrics[0] = m;
+        }).start();
+
         // Exit Tab
         JPanel exitPanel = new JPanel(new GridBagLayout());
         exitPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -290,25 +381,63 @@ public class InventoryManagementApp {
         sellPanel.setBackground(new Color(245, 245, 245));
 
         JComboBox<String> exitComboBox = new JComboBox<>();
+        JComboBox<String> exitLocationBox = locationPicker();
         JTextField exitQtyField = new JTextField();
         JButton exitButton = createStyledButton("Confirm Sale");
         styleComboBox(exitComboBox);
+        styleComboBox(exitLocationBox);
         styleTextField(exitQtyField);
         exitButton.setToolTipText("Sell item (reduce stock)");
+        exitLocationBox.setToolTipText("Where the units leave from (the basket always sells from each item's location)");
 
         int xrow = 0;
         xgbc.gridx = 0; xgbc.gridy = xrow; sellPanel.add(new JLabel("Select Item:"), xgbc);
         xgbc.gridx = 1; sellPanel.add(exitComboBox, xgbc);
         xrow++;
+        xgbc.gridx = 0; xgbc.gridy = xrow; sellPanel.add(new JLabel("From Location:"), xgbc);
+        xgbc.gridx = 1; sellPanel.add(exitLocationBox, xgbc);
+        xrow++;
         xgbc.gridx = 0; xgbc.gridy = xrow; sellPanel.add(new JLabel("Quantity to Sell:"), xgbc);
         xgbc.gridx = 1; sellPanel.add(exitQtyField, xgbc);
         xrow++;
         xgbc.gridx = 0; xgbc.gridy = xrow; xgbc.gridwidth = 2; sellPanel.add(exitButton, xgbc);
+        JButton addToBasketButton = createStyledButton("Add to Basket");
+        addToBasketButton.setToolTipText("Collect lines and sell them together at checkout");
+        xrow++;
+        xgbc.gridy = xrow; sellPanel.add(addToBasketButton, xgbc);
+
+        // Basket: a multi-line sale that checks out in one transaction
+        JPanel basketPanel = new JPanel(new BorderLayout(8, 8));
+        basketPanel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(new Color(74, 144, 226), 2, true),
+            "Basket",
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Segoe UI", Font.BOLD, 14),
+            new Color(50, 50, 50)
+        ));
+        basketPanel.setBackground(new Color(245, 245, 245));
+        DefaultListModel<String> basketListModel = new DefaultListModel<>();
+        JList<String> basketList = new JList<>(basketListModel);
+        basketList.setVisibleRowCount(8);
+        JScrollPane basketScroll = new JScrollPane(basketList);
+        basketScroll.setPreferredSize(new Dimension(320, 180));
+        basketPanel.add(basketScroll, BorderLayout.CENTER);
+        JPanel basketButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        basketButtons.setBackground(new Color(245, 245, 245));
+        JButton checkoutButton = createStyledButton("Checkout Basket");
+        JButton clearBasketButton = createStyledButton("Clear Basket");
+        checkoutButton.setToolTipText("Sell every line, or none if any is short");
+        basketButtons.add(checkoutButton);
+        basketButtons.add(clearBasketButton);
+        basketPanel.add(basketButtons, BorderLayout.SOUTH);
 
         xgbc = new GridBagConstraints();
         xgbc.insets = new Insets(10, 10, 10, 10);
         xgbc.fill = GridBagConstraints.HORIZONTAL;
         xgbc.gridx = 0; xgbc.gridy = 0; exitPanel.add(sellPanel, xgbc);
+        xgbc.fill = GridBagConstraints.BOTH;
+        xgbc.gridx = 1; exitPanel.add(basketPanel, xgbc);
 
         // Reports Tab
         JPanel reportsPanel = new JPanel(new BorderLayout(10, 10));
@@ -320,33 +449,63 @@ public class InventoryManagementApp {
     JButton stockSummaryButton = createStyledButton("Stock Summary");
     JButton salesReportButton = createStyledButton("Sales Report");
     JButton exportCSVButton = createStyledButton("Save to CSV");
+    JButton exportSalesButton = createStyledButton("Save Sales to CSV");
+    JButton analyticsButton = createStyledButton("Sales Analytics");
+    JButton coverButton = createStyledButton("Days of Cover");
+    JButton asOfButton = createStyledButton("Stock As Of");
+    JComboBox<String> analyticsPeriodBox = new JComboBox<>(new String[]{"By Day", "By Week", "By Month"});
+    analyticsPeriodBox.setSelectedIndex(2);
+    styleComboBox(analyticsPeriodBox);
     stockSummaryButton.setForeground(Color.BLACK);
     salesReportButton.setForeground(Color.BLACK);
     exportCSVButton.setForeground(Color.BLACK);
+    exportSalesButton.setForeground(Color.BLACK);
+    analyticsButton.setForeground(Color.BLACK);
+    coverButton.setForeground(Color.BLACK);
+    asOfButton.setForeground(Color.BLACK);
         buttonPanel.add(stockSummaryButton);
         buttonPanel.add(salesReportButton);
         buttonPanel.add(exportCSVButton);
+        buttonPanel.add(exportSalesButton);
+        buttonPanel.add(analyticsButton);
+        buttonPanel.add(analyticsPeriodBox);
+        buttonPanel.add(coverButton);
+        buttonPanel.add(asOfButton);
 
         String[] salesColumns = {"Time", "SKU", "Name", "Category", "Qty", "Price"};
-        DefaultTableModel salesTableModel = new DefaultTableModel(salesColumns, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
+        SalesTableModel salesTableModel = new SalesTableModel(sales, salesColumns);
         JTable salesTable = new JTable(salesTableModel);
         salesTable.setRowHeight(28);
         salesTable.setGridColor(new Color(200, 200, 200));
         salesTable.getTableHeader().setBackground(new Color(74, 144, 226));
         salesTable.getTableHeader().setForeground(Color.WHITE);
-        salesTable.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                c.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-                c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(240, 240, 240));
-                if (isSelected) c.setBackground(new Color(200, 220, 255));
-                c.setForeground(Color.BLACK);
-                ((JLabel) c).setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
-                return c;
-            }
-        });
+        salesTable.getTableHeader().setToolTipText("Click Time to reverse the order");
+        StripedTableCellRenderer salesRenderer = new StripedTableCellRenderer();
+        salesTable.setDefaultRenderer(Object.class, salesRenderer);
+        salesTable.setDefaultRenderer(Number.class, salesRenderer);
+
+        // Sales filter: date range (inclusive, yyyy-MM-dd) and SKU, applied by the model without copying
+        JTextField salesFromField = new JTextField(10);
+        JTextField salesToField = new JTextField(10);
+        JTextField salesSkuField = new JTextField(10);
+        salesFromField.setToolTipText("First day (yyyy-MM-dd), blank for no limit");
+        salesToField.setToolTipText("Last day (yyyy-MM-dd), blank for no limit");
+        salesSkuField.setToolTipText("Only this SKU, blank for all");
+        styleTextField(salesFromField);
+        styleTextField(salesToField);
+        styleTextField(salesSkuField);
+        JButton salesFilterButton = createStyledButton("Filter");
+        JButton salesClearButton = createStyledButton("Clear");
+        JPanel salesFilterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 5));
+        salesFilterPanel.setBackground(new Color(245, 245, 245));
+        salesFilterPanel.add(new JLabel("From:"));
+        salesFilterPanel.add(salesFromField);
+        salesFilterPanel.add(new JLabel("To:"));
+        salesFilterPanel.add(salesToField);
+        salesFilterPanel.add(new JLabel("SKU:"));
+        salesFilterPanel.add(salesSkuField);
+        salesFilterPanel.add(salesFilterButton);
+        salesFilterPanel.add(salesClearButton);
 
         JTextArea reportArea = new JTextArea(15, 60);
         reportArea.setEditable(false);
@@ -355,53 +514,99 @@ public class InventoryManagementApp {
         JScrollPane reportScroll = new JScrollPane(reportArea);
         JScrollPane salesScroll = new JScrollPane(salesTable);
         salesScroll.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true));
+        JPanel salesPanel = new JPanel(new BorderLayout(5, 5));
+        salesPanel.setBackground(new Color(245, 245, 245));
+        salesPanel.add(salesFilterPanel, BorderLayout.NORTH);
+        salesPanel.add(salesScroll, BorderLayout.CENTER);
 
         reportsPanel.add(buttonPanel, BorderLayout.NORTH);
         reportsPanel.add(reportScroll, BorderLayout.CENTER);
 
+        // Diagnostics Tab: operation latencies and EDT stalls, refreshed while the tab is showing
+        OperationMetrics metrics = service.getMetrics();
+        JPanel diagnosticsPanel = new JPanel(new BorderLayout(10, 10));
+        diagnosticsPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        diagnosticsPanel.setBackground(new Color(245, 245, 245));
+        DiagnosticsTableModel diagnosticsModel = new DiagnosticsTableModel(metrics);
+        JTable diagnosticsTable = new JTable(diagnosticsModel);
+        diagnosticsTable.setRowHeight(24);
+        diagnosticsTable.setGridColor(new Color(200, 200, 200));
+        diagnosticsTable.getTableHeader().setBackground(new Color(74, 144, 226));
+        diagnosticsTable.getTableHeader().setForeground(Color.WHITE);
+        StripedTableCellRenderer diagnosticsRenderer = new StripedTableCellRenderer();
+        diagnosticsTable.setDefaultRenderer(Object.class, diagnosticsRenderer);
+        diagnosticsTable.setDefaultRenderer(Number.class, diagnosticsRenderer);
+        JScrollPane diagnosticsScroll = new JScrollPane(diagnosticsTable);
+        diagnosticsScroll.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true));
+        diagnosticsScroll.setPreferredSize(new Dimension(600, 24 * 10 + 30));
+        JLabel edtStatus = new JLabel(" ");
+        JButton resetMetricsButton = createStyledButton("Reset");
+        resetMetricsButton.setForeground(Color.BLACK);
+        JPanel edtPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        edtPanel.setBackground(new Color(245, 245, 245));
+        edtPanel.add(resetMetricsButton);
+        edtPanel.add(edtStatus);
+        JTextArea stallArea = new JTextArea(10, 60);
+        stallArea.setEditable(false);
+        stallArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JScrollPane stallScroll = new JScrollPane(stallArea);
+        stallScroll.setBorder(BorderFactory.createTitledBorder("Recent EDT stalls (newest first)"));
+        JPanel diagnosticsTop = new JPanel(new BorderLayout(5, 5));
+        diagnosticsTop.setBackground(new Color(245, 245, 245));
+        diagnosticsTop.add(diagnosticsScroll, BorderLayout.CENTER);
+        diagnosticsTop.add(edtPanel, BorderLayout.SOUTH);
+        diagnosticsPanel.add(diagnosticsTop, BorderLayout.NORTH);
+        diagnosticsPanel.add(stallScroll, BorderLayout.CENTER);
+        Runnable showDiagnostics = () -> {
+            diagnosticsModel.refresh();
+            edtStatus.setText(String.format("Mutations: %,d   Errors: %,d   EDT wait p99 %.1f ms, max %.1f ms   Stalls: %,d",
+                metrics.getMutationCount(), metrics.getErrorCount(), metrics.getEdtLatencyP99Millis(),
+                metrics.getEdtLatencyMaxMillis(), metrics.getEdtStallCount()));
+            String[] stalls = metrics.getRecentEdtStalls();
+            String text = stalls.length == 0 ? "None" : String.join("\n", stalls);
+            if (!text.equals(stallArea.getText())) stallArea.setText(text);
+        };
+        new Timer(1000, e -> {
+            if (diagnosticsPanel.isShowing()) showDiagnostics.run();
+        }).start();
+        resetMetricsButton.addActionListener(e -> {
+            metrics.reset();
+            showDiagnostics.run();
+        });
+        new EdtStallMonitor(metrics).start();
+        String jmxProblem = metrics.registerMBean();
+        if (jmxProblem != null) System.err.println("Operation metrics not published over JMX: " + jmxProblem);
+
         // Add tabs
         tabbedPane.addTab("Entry", entryPanel);
         tabbedPane.addTab("Inventory", listPanel);
         tabbedPane.addTab("Exit", exitPanel);
         tabbedPane.addTab("Reports", reportsPanel);
+        tabbedPane.addTab("Diagnostics", diagnosticsPanel);
+        tabbedPane.addChangeListener(e -> {
+            if (tabbedPane.getSelectedComponent() == diagnosticsPanel) showDiagnostics.run();
+        });
 
         // Event handlers (unchanged from original)
         addButton.addActionListener(e -> {
-            String name = itemNameField.getText().trim();
-            String qtyStr = quantityField.getText().trim();
-            String costStr = costField.getText().trim();
-            String sellStr = sellField.getText().trim();
-            String category = (String) categoryBox.getSelectedItem();
-            String location = (String) locationBox.getSelectedItem();
-            String minStr = minStockField.getText().trim();
-            if (name.isEmpty() || qtyStr.isEmpty() || costStr.isEmpty() || sellStr.isEmpty() || minStr.isEmpty()) {
-                JOptionPane.showMessageDialog(frame, "Please fill all fields!", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            int qty, min;
-            double cost, sell;
+            ItemValidator.Item item;
             try {
-                qty = Integer.parseInt(qtyStr);
-                min = Integer.parseInt(minStr);
-                cost = Double.parseDouble(costStr);
-                sell = Double.parseDouble(sellStr);
-                if (qty < 0 || min < 0 || cost < 0 || sell < 0) throw new Exception();
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(frame, "Invalid numeric values. All must be positive.", "Error", JOptionPane.ERROR_MESSAGE);
+                item = validator.parse(itemNameField.getText(), quantityField.getText(), costField.getText(), sellField.getText(),
+                    (String) categoryBox.getSelectedItem(), (String) locationBox.getSelectedItem(), minStockField.getText());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(frame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            String sku = String.format("UQ%03d", skuCounter++);
-            model.addRow(new Object[]{sku, name, qty, cost, sell, category, location, min});
-            itemNameField.setText(""); quantityField.setText(""); costField.setText(""); sellField.setText(""); minStockField.setText("");
-            JOptionPane.showMessageDialog(frame, "Item added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            mutate(frame, () -> service.addItem(item), sku -> {
+                itemNameField.setText(""); quantityField.setText(""); costField.setText(""); sellField.setText(""); minStockField.setText("");
+                JOptionPane.showMessageDialog(frame, "Item added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
 
-        model.addTableModelListener(e -> {
-            restockSKUBox.removeAllItems();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                restockSKUBox.addItem(model.getValueAt(i, 0).toString());
-            }
-        });
+        importButton.addActionListener(e -> importCsv(frame));
+
+        // Pickers read the store directly and follow it row by row
+        ItemComboBoxModel.bySku(store).install(restockSKUBox);
 
         restockButton.addActionListener(e -> {
             String sku = (String) restockSKUBox.getSelectedItem();
@@ -418,58 +623,136 @@ public class InventoryManagementApp {
                 JOptionPane.showMessageDialog(frame, "Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            for (int i = 0; i < model.getRowCount(); i++) {
-                if (sku.equals(model.getValueAt(i, 0))) {
-                    int currentQty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                    model.setValueAt(currentQty + qty, i, 2);
-                    JOptionPane.showMessageDialog(frame, "Stock updated. New quantity: " + (currentQty + qty), "Success", JOptionPane.INFORMATION_MESSAGE);
-                    restockQtyField.setText("");
-                    break;
-                }
+            String location = pickedLocation(restockLocationBox);
+            mutate(frame, () -> service.restock(sku, location, qty), newQty -> {
+                JOptionPane.showMessageDialog(frame, "Stock updated. New quantity: " + newQty, "Success", JOptionPane.INFORMATION_MESSAGE);
+                restockQtyField.setText("");
+            }, ex -> JOptionPane.showMessageDialog(frame, ex instanceof ArithmeticException ? "Invalid quantity." : ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+        });
+
+        ItemComboBoxModel.bySku(store).install(transferSKUBox);
+        // Read under the SKU's lock, so it never shows half of a transfer made elsewhere
+        Runnable showTransferStock = () -> {
+            String sku = (String) transferSKUBox.getSelectedItem();
+            int[] quantities = sku == null ? null : service.getQuantities(sku);
+            transferStockLabel.setText(quantities == null ? " " : "On hand: " + stockByLocation(quantities));
+        };
+        transferSKUBox.addActionListener(e -> showTransferStock.run());
+
+        transferButton.addActionListener(e -> {
+            String sku = (String) transferSKUBox.getSelectedItem();
+            String qtyStr = transferQtyField.getText().trim();
+            if (sku == null || qtyStr.isEmpty()) {
+                JOptionPane.showMessageDialog(frame, "Please select SKU and enter quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            int qty;
+            try {
+                qty = Integer.parseInt(qtyStr);
+                if (qty <= 0) throw new Exception();
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(frame, "Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            String from = (String) transferFromBox.getSelectedItem();
+            String to = (String) transferToBox.getSelectedItem();
+            mutate(frame, () -> service.transfer(sku, from, to, qty), remaining -> {
+                showTransferStock.run();
+                JOptionPane.showMessageDialog(frame, "Moved " + qty + " to " + to + ". Left at " + from + ": " + remaining, "Success", JOptionPane.INFORMATION_MESSAGE);
+                transferQtyField.setText("");
+            });
         });
 
         deleteButton.addActionListener(e -> {
             int selectedRow = inventoryTable.getSelectedRow();
             if (selectedRow != -1) {
-                int modelRow = inventoryTable.convertRowIndexToModel(selectedRow);
-                model.removeRow(modelRow);
-                JOptionPane.showMessageDialog(frame, "Item deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                String sku = store.getSku(inventoryTable.convertRowIndexToModel(selectedRow));
+                mutate(frame, () -> service.delete(sku),
+                    deleted -> JOptionPane.showMessageDialog(frame, "Item deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE));
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an item to delete.", "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
         lowStockButton.addActionListener(e -> {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int qty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                int min = Integer.parseInt(model.getValueAt(i, 7).toString());
-                if (qty <= min) {
-                    sb.append("SKU: ").append(model.getValueAt(i, 0)).append(", Name: ").append(model.getValueAt(i, 1))
-                      .append(", Qty: ").append(qty).append(", Min: ").append(min).append("\n");
-                }
-            }
+            StringBuilder sb = appendLowStock(new StringBuilder(), store);
             if (sb.length() == 0) sb.append("No low-stock items.");
             JOptionPane.showMessageDialog(frame, sb.toString(), "Low Stock Items", JOptionPane.INFORMATION_MESSAGE);
         });
 
+        // Debounced, indexed search off the EDT; the text is matched literally against SKU, name and category
+        InventorySearch search = new InventorySearch(store, sorter, service.getMetrics());
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             public void insertUpdate(DocumentEvent e) { filter(); }
             public void removeUpdate(DocumentEvent e) { filter(); }
             public void changedUpdate(DocumentEvent e) { filter(); }
             private void filter() {
-                String text = searchField.getText().trim();
-                if (text.length() == 0) {
-                    sorter.setRowFilter(null);
+                search.setQuery(searchField.getText());
+            }
+        });
+
+        // Facet counts are bitmap intersection counts, cheap enough to redo on every pick and
+        // once a second as sales and restocks move items in and out of low stock
+        int[] appliedFacets = {FacetIndex.ANY, FacetIndex.ANY, 0};
+        Runnable refreshFacets = () -> {
+            FacetIndex facets = store.getFacets();
+            int cat = categoryFacets.getSelectedCode();
+            int loc = locationFacets.getSelectedCode();
+            boolean low = lowStockFacet.isSelected();
+            categoryFacets.setCounts(facets.categoryCounts(loc, low), facets.count(FacetIndex.ANY, loc, low));
+            locationFacets.setCounts(facets.locationCounts(cat, low), facets.count(cat, FacetIndex.ANY, low));
+            lowStockFacet.setText(String.format("Low stock only (%,d)", facets.count(cat, loc, true)));
+            facetStatus.setText(String.format("%,d items", facets.count(cat, loc, low)));
+        };
+        ActionListener applyFacets = e -> {
+            int cat = categoryFacets.getSelectedCode();
+            int loc = locationFacets.getSelectedCode();
+            int low = lowStockFacet.isSelected() ? 1 : 0;
+            // Relabelling the pickers also fires here; only a changed pick re-filters
+            if (cat == appliedFacets[0] && loc == appliedFacets[1] && low == appliedFacets[2]) return;
+            appliedFacets[0] = cat;
+            appliedFacets[1] = loc;
+            appliedFacets[2] = low;
+            search.setFacets(cat, loc, low == 1);
+            refreshFacets.run();
+        };
+        categoryFacetBox.addActionListener(applyFacets);
+        locationFacetBox.addActionListener(applyFacets);
+        lowStockFacet.addActionListener(applyFacets);
+        refreshFacets.run();
+        int[] lastLowCount = {store.getStats().getLowStockCount()};
+        new Timer(1000, e -> {
+            refreshFacets.run();
+            // Items crossing their threshold change what "low stock only" shows
+            int lowCount = store.getStats().getLowStockCount();
+            if (lowStockFacet.isSelected() && lowCount != lastLowCount[0]) {
+                search.setFacets(appliedFacets[0], appliedFacets[1], true);
+            }
+            lastLowCount[0] = lowCount;
+        }).start();
+
+        // Values defined here or over HTTP join the pickers (structural changes run on the EDT)
+        store.addListener(new InventoryStore.Listener() {
+            public void rowsInserted(int firstRow, int lastRow) {}
+            public void rowUpdated(int row) {}
+            public void rowRemoved(int row, int movedFromRow) {}
+            @Override
+            public void dictionaryChanged(InventoryStore.Dictionary dictionary) {
+                String value = dictionary.decode(dictionary.size() - 1);
+                if (dictionary == store.getCategories()) {
+                    categoryBox.addItem(value);
                 } else {
-                    sorter.setRowFilter(RowFilter.regexFilter("(?i)" + text, 0, 1, 5));
+                    for (JComboBox<String> box : List.of(locationBox, restockLocationBox, transferFromBox, transferToBox, exitLocationBox)) {
+                        box.addItem(value);
+                    }
                 }
+                refreshFacets.run();
             }
         });
+        newCategoryButton.addActionListener(e -> defineValue(frame, "Category", categoryBox));
+        newLocationButton.addActionListener(e -> defineValue(frame, "Location", locationBox));
 
-        updateNameComboBox(exitComboBox);
-        model.addTableModelListener(e -> updateNameComboBox(exitComboBox));
+        ItemComboBoxModel.byName(store).install(exitComboBox);
 
         exitButton.addActionListener(e -> {
             String name = (String) exitComboBox.getSelectedItem();
@@ -486,86 +769,206 @@ public class InventoryManagementApp {
                 JOptionPane.showMessageDialog(frame, "Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            for (int i = 0; i < model.getRowCount(); i++) {
-                if (name.equals(model.getValueAt(i, 1))) {
-                    int currentQty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                    if (qty > currentQty) {
-                        JOptionPane.showMessageDialog(frame, "Sale quantity exceeds stock.", "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                    model.setValueAt(currentQty - qty, i, 2);
-                    String sku = model.getValueAt(i, 0).toString();
-                    String category = model.getValueAt(i, 5).toString();
-                    double sellPrice = Double.parseDouble(model.getValueAt(i, 4).toString());
-                    String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-                    salesLog.add(new SaleRecord(sku, name, category, qty, sellPrice, timestamp));
-                    JOptionPane.showMessageDialog(frame, "Sale confirmed. Remaining stock: " + (currentQty - qty), "Success", JOptionPane.INFORMATION_MESSAGE);
-                    exitQtyField.setText("");
-                    break;
-                }
+            String sku = skuOfName(frame, name);
+            if (sku == null) return;
+            // The stock check happens inside the service, atomically with the sale itself
+            String location = pickedLocation(exitLocationBox);
+            mutate(frame, () -> service.sell(sku, location, qty), remaining -> {
+                JOptionPane.showMessageDialog(frame, "Sale confirmed. Remaining stock: " + remaining, "Success", JOptionPane.INFORMATION_MESSAGE);
+                exitQtyField.setText("");
+            });
+        });
+
+        // SKU -> quantity; lines for the same item are merged
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        Runnable showBasket = () -> {
+            basketListModel.clear();
+            for (Map.Entry<String, Integer> line : basket.entrySet()) {
+                int itemRow = store.findBySku(line.getKey());
+                String name = itemRow == -1 ? "(deleted)" : store.getName(itemRow);
+                basketListModel.addElement(line.getKey() + "  " + name + "  x " + line.getValue());
+            }
+        };
+
+        addToBasketButton.addActionListener(e -> {
+            String name = (String) exitComboBox.getSelectedItem();
+            String qtyStr = exitQtyField.getText().trim();
+            if (name == null || qtyStr.isEmpty()) {
+                JOptionPane.showMessageDialog(frame, "Please select item and enter quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            int qty;
+            try {
+                qty = Integer.parseInt(qtyStr);
+                if (qty <= 0) throw new Exception();
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(frame, "Invalid quantity.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            String sku = skuOfName(frame, name);
+            if (sku == null) return;
+            basket.merge(sku, qty, Integer::sum);
+            showBasket.run();
+            exitQtyField.setText("");
         });
 
-        stockSummaryButton.addActionListener(e -> {
-            int totalItems = model.getRowCount();
-            double totalValue = 0;
-            StringBuilder lowStock = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int qty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                double cost = Double.parseDouble(model.getValueAt(i, 3).toString());
-                int min = Integer.parseInt(model.getValueAt(i, 7).toString());
-                totalValue += qty * cost;
-                if (qty <= min) {
-                    lowStock.append("SKU: ").append(model.getValueAt(i, 0)).append(", Name: ").append(model.getValueAt(i, 1))
-                            .append(", Qty: ").append(qty).append(", Min: ").append(min).append("\n");
-                }
+        checkoutButton.addActionListener(e -> {
+            if (basket.isEmpty()) {
+                JOptionPane.showMessageDialog(frame, "The basket is empty.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-            StringBuilder sb = new StringBuilder();
-            sb.append("Total Items: ").append(totalItems).append("\n");
-            sb.append("Total Inventory Value: $").append(String.format("%.2f", totalValue)).append("\n");
-            sb.append("Low Stock Items:\n").append(lowStock.length() == 0 ? "None" : lowStock.toString());
-            reportsPanel.remove(salesScroll);
+            String[] skus = basket.keySet().toArray(new String[0]);
+            int[] quantities = new int[skus.length];
+            for (int i = 0; i < skus.length; i++) quantities[i] = basket.get(skus[i]);
+            mutate(frame, () -> service.sellAll(skus, quantities), remaining -> {
+                basket.clear();
+                showBasket.run();
+                JOptionPane.showMessageDialog(frame, "Sale confirmed for " + skus.length + " line(s).", "Success", JOptionPane.INFORMATION_MESSAGE);
+            }, ex -> JOptionPane.showMessageDialog(frame, ex.getMessage() + " Nothing was sold.", "Error", JOptionPane.ERROR_MESSAGE));
+        });
+
+        clearBasketButton.addActionListener(e -> {
+            basket.clear();
+            showBasket.run();
+        });
+
+        stockSummaryButton.addActionListener(e -> {
+            reportsPanel.remove(salesPanel);
             reportsPanel.add(reportScroll, BorderLayout.CENTER);
             reportsPanel.revalidate();
             reportsPanel.repaint();
-            reportArea.setText(sb.toString());
+            long start = System.nanoTime();
+            String summary = stockSummary(store);
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            reportArea.setText(summary);
         });
 
         salesReportButton.addActionListener(e -> {
-            salesTableModel.setRowCount(0);
-            for (SaleRecord sr : salesLog) {
-                salesTableModel.addRow(new Object[]{sr.timestamp, sr.sku, sr.name, sr.category, sr.quantity, String.format("%.2f", sr.sellingPrice)});
-            }
+            // Only pins the current ledger contents; rows are read as they scroll into view
+            salesTableModel.refresh();
             reportsPanel.remove(reportScroll);
-            reportsPanel.add(salesScroll, BorderLayout.CENTER);
+            reportsPanel.add(salesPanel, BorderLayout.CENTER);
             reportsPanel.revalidate();
             reportsPanel.repaint();
         });
 
-        exportCSVButton.addActionListener(e -> {
-            JFileChooser chooser = new JFileChooser();
-            chooser.setDialogTitle("Save Inventory as CSV");
-            int res = chooser.showSaveDialog(frame);
-            if (res == JFileChooser.APPROVE_OPTION) {
-                File file = chooser.getSelectedFile();
-                try (FileWriter fw = new FileWriter(file)) {
-                    for (int c = 0; c < COLUMN_NAMES.length; c++) {
-                        fw.write(COLUMN_NAMES[c]);
-                        if (c < COLUMN_NAMES.length - 1) fw.write(",");
-                    }
-                    fw.write("\n");
-                    for (int r = 0; r < model.getRowCount(); r++) {
-                        for (int c = 0; c < COLUMN_NAMES.length; c++) {
-                            fw.write(model.getValueAt(r, c).toString());
-                            if (c < COLUMN_NAMES.length - 1) fw.write(",");
+        salesFilterButton.addActionListener(e -> {
+            long[] range = parseSalesRange(frame, salesFromField, salesToField);
+            if (range == null) return;
+            salesTableModel.setFilter(range[0], range[1], salesSkuField.getText().trim());
+        });
+
+        // Aggregates over the date range typed in the sales filter (blank = all history)
+        analyticsButton.addActionListener(e -> {
+            long[] range = parseSalesRange(frame, salesFromField, salesToField);
+            if (range == null) return;
+            SalesAnalytics.Period period = SalesAnalytics.Period.values()[analyticsPeriodBox.getSelectedIndex()];
+            reportArea.setText("Computing sales analytics...");
+            reportsPanel.remove(salesPanel);
+            reportsPanel.add(reportScroll, BorderLayout.CENTER);
+            reportsPanel.revalidate();
+            reportsPanel.repaint();
+            new SwingWorker<String, Void>() {
+                @Override
+                protected String doInBackground() {
+                    // On-hand quantities come through the service: per SKU under its stripe, per
+                    // category from the running totals (not a catalog scan)
+                    int skuCount = sales.getSkuCount();
+                    int[] onHandBySku = new int[skuCount];
+                    for (int id = 0; id < skuCount; id++) onHandBySku[id] = Math.max(0, service.getQuantity(sales.getSku(id)));
+                    Map<String, Long> onHandByCategory = service.read(store -> {
+                        Map<String, Long> byCategory = new LinkedHashMap<>();
+                        InventoryStats stats = store.getStats();
+                        InventoryStore.Dictionary categories = store.getCategories();
+                        for (int code = 0; code < categories.size(); code++) {
+                            if (stats.getCategoryItemCount(code) > 0) byCategory.put(categories.decode(code), stats.getCategoryQuantity(code));
                         }
-                        fw.write("\n");
+                        return byCategory;
+                    });
+                    return analyticsReport(range[0], range[1], period, onHandBySku, onHandByCategory);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        reportArea.setText(get());
+                        reportArea.setCaretPosition(0);
+                    } catch (ExecutionException ex) {
+                        reportArea.setText("Error computing analytics: " + ex.getCause());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
                     }
-                    JOptionPane.showMessageDialog(frame, "Exported successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(frame, "Error exporting CSV: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
+            }.execute();
+        });
+
+        // Forecasts are already current, so this is a pass over the SKUs and a sort
+        coverButton.addActionListener(e -> {
+            reportsPanel.remove(salesPanel);
+            reportsPanel.add(reportScroll, BorderLayout.CENTER);
+            reportsPanel.revalidate();
+            reportsPanel.repaint();
+            long start = System.nanoTime();
+            String report = coverReport(forecast.coverReport(store, System.currentTimeMillis()));
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            reportArea.setText(report);
+            reportArea.setCaretPosition(0);
+        });
+
+        // Checkpoint lookups plus a short replay, so this answers for any past date at once
+        asOfButton.addActionListener(e -> {
+            String text = JOptionPane.showInputDialog(frame, "Stock as of (yyyy-MM-dd or yyyy-MM-ddTHH:mm):",
+                LocalDate.now(sales.getZone()).toString());
+            if (text == null) return;
+            long time;
+            try {
+                time = StockHistory.parseTime(text, sales.getZone());
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(frame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            reportsPanel.remove(salesPanel);
+            reportsPanel.add(reportScroll, BorderLayout.CENTER);
+            reportsPanel.revalidate();
+            reportsPanel.repaint();
+            long start = System.nanoTime();
+            String report = asOfReport(text.trim(), time);
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            reportArea.setText(report);
+            reportArea.setCaretPosition(0);
+        });
+
+        salesClearButton.addActionListener(e -> {
+            salesFromField.setText("");
+            salesToField.setText("");
+            salesSkuField.setText("");
+            salesTableModel.setFilter(Long.MIN_VALUE, Long.MAX_VALUE, null);
+        });
+
+        salesTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = salesTable.convertColumnIndexToModel(salesTable.columnAtPoint(e.getPoint()));
+                if (column == SalesTableModel.COL_TIME) salesTableModel.setDescending(!salesTableModel.isDescending());
+            }
+        });
+
+        // Exports capture on the worker: service.snapshot() is consistent because it holds every
+        // stripe, not because of the EDT. The sales log only needs the ledger's append-only view.
+        exportCSVButton.addActionListener(e -> {
+            Path file = chooseCsvFile(frame, "Save Inventory as CSV");
+            if (file == null) return;
+            long start = System.nanoTime();
+            runExport(frame, "Exporting inventory...", file, start,
+                progress -> CsvExporter.writeInventory(service.snapshot(), COLUMN_NAMES, file, progress));
+        });
+
+        exportSalesButton.addActionListener(e -> {
+            Path file = chooseCsvFile(frame, "Save Sales Log as CSV");
+            if (file == null) return;
+            long start = System.nanoTime();
+            runExport(frame, "Exporting sales log...", file, start,
+                progress -> CsvExporter.writeSales(sales, sales.view(), file, progress));
         });
 
         // Add Ctrl+T shortcut to cycle tabs
@@ -583,7 +986,8 @@ public class InventoryManagementApp {
         // Set focus traversal policy for Entry tab
         List<Component> entryOrder = Arrays.asList(
             itemNameField, quantityField, costField, sellField, categoryBox, locationBox, minStockField, addButton,
-            restockSKUBox, restockQtyField, restockButton
+            restockSKUBox, restockLocationBox, restockQtyField, restockButton,
+            transferSKUBox, transferFromBox, transferToBox, transferQtyField, transferButton
         );
         entryPanel.setFocusTraversalPolicyProvider(true);
         entryPanel.setFocusTraversalPolicy(new FocusTraversalPolicy() {
@@ -603,10 +1007,406 @@ public class InventoryManagementApp {
         frame.add(tabbedPane);
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+
+        // GUI plus server: terminals share the same service as the tabs
+        InetSocketAddress httpAddress = InventoryServer.addressFromProperties();
+        if (httpAddress != null) {
+            try {
+                new InventoryServer(service, validator).start(httpAddress);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(frame, "Could not start the HTTP API: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+
+
+
+    // "Item's location" followed by every location; see pickedLocation
+    private JComboBox<String> locationPicker() {
+        JComboBox<String> box = new JComboBox<>();
+        box.addItem(ITEM_LOCATION);
+        for (String location : store.getLocations().values()) box.addItem(location);
+        return box;
+    }
+
+    // The location picked, or null for the item's own
+    private static String pickedLocation(JComboBox<String> box) {
+        return box.getSelectedIndex() <= 0 ? null : (String) box.getSelectedItem();
+    }
+
+    // "Warehouse A 10, Shelf 1 4" for the locations holding stock
+    private String stockByLocation(int[] quantities) {
+        StringBuilder sb = new StringBuilder();
+        for (int l = 0; l < quantities.length; l++) {
+            if (quantities[l] == 0) continue;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(store.getLocations().decode(l)).append(' ').append(quantities[l]);
+        }
+        return sb.length() == 0 ? "none" : sb.toString();
+    }
+
+    // SKU of the single item with this name, or null after telling the user why not
+    private String skuOfName(JFrame frame, String name) {
+        int[] rows = store.findByName(name);
+        if (rows.length == 0) {
+            JOptionPane.showMessageDialog(frame, "Item not found: \"" + name + "\".", "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        if (rows.length > 1) {
+            JOptionPane.showMessageDialog(frame, rows.length + " items share the name \"" + name + "\". Rename or remove the duplicates before selling.", "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        return store.getSku(rows[0]);
+    }
+
+    // Restores the data directory through the service and schedules periodic snapshots
+    private void openJournal(JFrame frame) {
+        try {
+            service.open(warning -> JOptionPane.showMessageDialog(frame, warning, "Error", JOptionPane.ERROR_MESSAGE));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    service.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }));
+            service.scheduleSnapshots();
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(frame, "Could not open journal; changes will not be saved: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void defineValue(JFrame frame, String what, JComboBox<String> box) {
+        String name = JOptionPane.showInputDialog(frame, "New " + what.toLowerCase() + " name:", "New " + what, JOptionPane.PLAIN_MESSAGE);
+        if (name == null) return;
+        mutate(frame, () -> what.equals("Category") ? service.defineCategory(name) : service.defineLocation(name), created -> {
+            if (created) box.setSelectedItem(name.trim());
+            else JOptionPane.showMessageDialog(frame, what + " already exists: " + name.trim(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // Parses the inclusive yyyy-MM-dd range of the sales filter into [from, to) millis; null after showing an error
+    private long[] parseSalesRange(JFrame frame, JTextField fromField, JTextField toField) {
+        try {
+            String fromText = fromField.getText().trim();
+            String toText = toField.getText().trim();
+            long from = fromText.isEmpty() ? Long.MIN_VALUE
+                : LocalDate.parse(fromText).atStartOfDay(sales.getZone()).toInstant().toEpochMilli();
+            long to = toText.isEmpty() ? Long.MAX_VALUE
+                : LocalDate.parse(toText).plusDays(1).atStartOfDay(sales.getZone()).toInstant().toEpochMilli();
+            return new long[]{from, to};
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(frame, "Invalid date. Use yyyy-MM-dd.", "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    private String coverReport(List<DemandForecast.Entry> entries) {
+        int reorders = 0;
+        for (DemandForecast.Entry en : entries) if (en.suggestedOrder > 0) reorders++;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Days of Cover (lead time ").append(forecast.getLeadTimeDays()).append(" days, review period ")
+          .append(forecast.getReviewDays()).append(" days)\n");
+        sb.append(reorders).append(" of ").append(entries.size()).append(" SKUs with sales are at or below their reorder point.\n\n");
+        int shown = Math.min(entries.size(), 100);
+        for (int i = 0; i < shown; i++) {
+            DemandForecast.Entry en = entries.get(i);
+            sb.append(en.sku).append(" ").append(en.name).append(": ").append(en.onHand).append(" on hand, ")
+              .append(String.format("%.1f", en.dailyDemand)).append("/day");
+            if (en.stockoutDate != null) {
+                sb.append(", ").append(String.format("%.1f", en.daysOfCover)).append(" days of cover, out ").append(en.stockoutDate);
+            } else {
+                sb.append(", no recent demand");
+            }
+            sb.append("\n    reorder point ").append(en.reorderPoint).append(" (min stock ").append(en.minStock).append(")");
+            if (en.suggestedOrder > 0) sb.append(", order ").append(en.suggestedOrder);
+            sb.append("\n");
+        }
+        if (entries.size() > shown) sb.append("\n... ").append(entries.size() - shown).append(" more\n");
+        return sb.toString();
+    }
+
+    private String asOfReport(String label, long time) {
+        StockHistory history = store.getHistory();
+        StockHistory.Totals totals = history.totalsAt(time);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Stock as of ").append(label).append(" (").append(new TimestampFormatter(sales.getZone()).format(time)).append(")\n");
+        sb.append("Items stocked: ").append(totals.items).append("\n");
+        sb.append("Units on hand: ").append(totals.units).append("\n");
+        sb.append("Value at cost: ").append(String.format("%.2f", totals.valueCents / 100.0)).append("\n");
+        sb.append("Low stock items: ").append(totals.lowStockItems).append("\n");
+        if (totals.lowStockItems == 0) return sb.toString();
+        sb.append("\nLow stock then:\n");
+        int[] shown = new int[1];
+        history.scanAt(time, (skuId, quantity, costCents, minStock) -> {
+            if (quantity > minStock || shown[0]++ >= 100) return;
+            String sku = history.getSku(skuId);
+            int row = store.findBySku(sku);
+            sb.append(sku);
+            if (row != -1) sb.append(" ").append(store.getName(row));
+            sb.append(": ").append(quantity).append(" on hand (min ").append(minStock).append(")\n");
+        });
+        if (shown[0] > 100) sb.append("\n... ").append(shown[0] - 100).append(" more\n");
+        return sb.toString();
+    }
+
+    // Builds the analytics text; runs off the EDT, reading only the ledger and the on-hand copies
+    private String analyticsReport(long from, long to, SalesAnalytics.Period period, int[] onHandBySku, Map<String, Long> onHandByCategory) {
+        StringBuilder sb = new StringBuilder();
+        long start = System.nanoTime();
+        sb.append("Top 10 SKUs by Units:\n");
+        for (SalesAnalytics.SkuTotals t : analytics.topSkus(from, to, 10, false)) {
+            long onHand = t.skuId < onHandBySku.length ? onHandBySku[t.skuId] : 0;
+            sb.append("  ").append(sales.getSku(t.skuId)).append(" ").append(sales.getName(t.skuId))
+              .append(": ").append(t.units).append(" units, $").append(String.format("%.2f", t.revenueCents / 100.0))
+              .append(", sell-through ").append(String.format("%.1f%%", percent(t.units, t.units + onHand))).append("\n");
+        }
+        sb.append("\nTop 10 SKUs by Revenue:\n");
+        for (SalesAnalytics.SkuTotals t : analytics.topSkus(from, to, 10, true)) {
+            sb.append("  ").append(sales.getSku(t.skuId)).append(" ").append(sales.getName(t.skuId))
+              .append(": $").append(String.format("%.2f", t.revenueCents / 100.0))
+              .append(", margin $").append(String.format("%.2f", t.getMarginCents() / 100.0)).append("\n");
+        }
+        for (SalesAnalytics.Dimension dimension : SalesAnalytics.Dimension.values()) {
+            sb.append("\nRevenue and Margin by ").append(dimension == SalesAnalytics.Dimension.CATEGORY ? "Category" : "Location")
+              .append(" (").append(period.name().toLowerCase()).append("):\n");
+            for (SalesAnalytics.PeriodTotals t : analytics.breakdown(from, to, period, dimension)) {
+                sb.append("  ").append(t.periodStart).append("  ").append(t.group).append(": ").append(t.units)
+                  .append(" units, revenue $").append(String.format("%.2f", t.revenueCents / 100.0))
+                  .append(", margin $").append(String.format("%.2f", t.getMarginCents() / 100.0))
+                  .append(" (").append(String.format("%.1f%%", percent(t.getMarginCents(), t.revenueCents))).append(")\n");
+            }
+        }
+        sb.append("\nSell-Through by Category (sold / (sold + on hand)):\n");
+        long[] sold = analytics.unitsBySku(from, to);
+        Map<String, Long> soldByCategory = new LinkedHashMap<>();
+        long totalSold = 0;
+        for (int id = 0; id < sold.length; id++) {
+            if (sold[id] == 0) continue;
+            soldByCategory.merge(sales.getCategory(id), sold[id], Long::sum);
+            totalSold += sold[id];
+        }
+        long totalOnHand = 0;
+        for (long q : onHandByCategory.values()) totalOnHand += q;
+        Set<String> categories = new LinkedHashSet<>(onHandByCategory.keySet());
+        categories.addAll(soldByCategory.keySet());
+        for (String category : categories) {
+            long s = soldByCategory.getOrDefault(category, 0L);
+            long h = onHandByCategory.getOrDefault(category, 0L);
+            sb.append("  ").append(category).append(": ").append(String.format("%.1f%%", percent(s, s + h)))
+              .append(" (").append(s).append(" sold, ").append(h).append(" on hand)\n");
+        }
+        sb.append("  Overall: ").append(String.format("%.1f%%", percent(totalSold, totalSold + totalOnHand))).append("\n");
+        sb.append("\nComputed in ").append((System.nanoTime() - start) / 1_000_000).append(" ms\n");
+        return sb.toString();
+    }
+
+    // Totals from the running stats plus the low-stock list; the only per-row work is the low-stock rows
+    static String stockSummary(InventoryStore store) {
+        InventoryStats stats = store.getStats();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Total Items: ").append(store.size()).append("\n");
+        sb.append("Total Inventory Value: $").append(String.format("%.2f", stats.getTotalValue())).append("\n");
+        sb.append("Value by Category:\n");
+        InventoryStore.Dictionary categories = store.getCategories();
+        for (int c = 0; c < categories.size(); c++) {
+            sb.append("  ").append(categories.decode(c)).append(": ").append(stats.getCategoryItemCount(c))
+              .append(" items, $").append(String.format("%.2f", stats.getCategoryValueCents(c) / 100.0)).append("\n");
+        }
+        sb.append("Stock by Location:\n");
+        InventoryStore.Dictionary locations = store.getLocations();
+        for (LocationStock.Summary s : store.getStock().summaries()) {
+            sb.append("  ").append(locations.decode(s.locationCode)).append(": ").append(s.items)
+              .append(" items, ").append(s.onHand).append(" units, $").append(String.format("%.2f", s.valueCents / 100.0))
+              .append(", ").append(s.lowStock).append(" low\n");
+        }
+        sb.append("Low Stock Items:\n");
+        int before = sb.length();
+        appendLowStock(sb, store);
+        if (sb.length() == before) sb.append("None");
+        return sb.toString();
+    }
+
+    // One line per low-stock item, in row order
+    static StringBuilder appendLowStock(StringBuilder sb, InventoryStore store) {
+        for (int i : store.getStats().getLowStockRows()) {
+            sb.append("SKU: ").append(store.getSku(i)).append(", Name: ").append(store.getName(i))
+              .append(", Qty: ").append(store.getQuantity(i)).append(", Min: ").append(store.getMinStock(i)).append("\n");
+        }
+        return sb;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    private interface ExportTask {
+        boolean run(CsvExporter.Progress progress) throws IOException;
+    }
+
+    // Parses a CSV on worker threads behind a progress dialog, reports rejected lines, then applies
+    // every valid line as one upsert batch: known SKUs are updated, blank or new SKUs are added
+    private void importCsv(JFrame frame) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Items from CSV");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV (*.csv, *.csv.gz)", "csv", "gz"));
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        ProgressMonitor monitor = new ProgressMonitor(frame, "Reading items...", file.getFileName().toString(), 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        int threads = Runtime.getRuntime().availableProcessors();
+        SwingWorker<CsvImporter.Result, Void> worker = new SwingWorker<CsvImporter.Result, Void>() {
+            @Override
+            protected CsvImporter.Result doInBackground() throws Exception {
+                return CsvImporter.read(file, validator, threads, (done, total) -> {
+                    setProgress(total == 0 ? 100 : (int) (100L * done / total));
+                    return !cancelled.get();
+                });
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                CsvImporter.Result result;
+                try {
+                    result = get();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame, "Error importing CSV: " + ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (result == null) {
+                    JOptionPane.showMessageDialog(frame, "Import cancelled.", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                if (!result.errors.isEmpty()) {
+                    StringBuilder sb = new StringBuilder();
+                    int shown = Math.min(result.errors.size(), 200);
+                    for (int i = 0; i < shown; i++) sb.append(result.errors.get(i)).append("\n");
+                    if (shown < result.errors.size()) sb.append("... and ").append(result.errors.size() - shown).append(" more\n");
+                    JTextArea area = new JTextArea(sb.toString(), 15, 60);
+                    area.setEditable(false);
+                    int choice = JOptionPane.showConfirmDialog(frame,
+                        new Object[]{result.errors.size() + " line(s) were rejected:", new JScrollPane(area),
+                            "Import the " + result.count + " valid line(s)?"},
+                        "Import Errors", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                    if (choice != JOptionPane.YES_OPTION) return;
+                }
+                mutate(frame, () -> {
+                    service.importItems(result);
+                    return result.count;
+                }, count -> JOptionPane.showMessageDialog(frame, "Imported " + count + " item(s).", "Success", JOptionPane.INFORMATION_MESSAGE));
+            }
+        };
+        worker.addPropertyChangeListener(ev -> {
+            if ("progress".equals(ev.getPropertyName())) {
+                monitor.setProgress((Integer) ev.getNewValue());
+                if (monitor.isCanceled()) cancelled.set(true);
+            }
+        });
+        worker.execute();
+    }
+
+    // Asks for a target file; choosing the gzip filter adds ".gz" so the exporter compresses
+    private Path chooseCsvFile(JFrame frame, String title) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(title);
+        javax.swing.filechooser.FileNameExtensionFilter csv = new javax.swing.filechooser.FileNameExtensionFilter("CSV (*.csv)", "csv");
+        javax.swing.filechooser.FileNameExtensionFilter gzip = new javax.swing.filechooser.FileNameExtensionFilter("Gzipped CSV (*.csv.gz)", "gz");
+        chooser.addChoosableFileFilter(csv);
+        chooser.addChoosableFileFilter(gzip);
+        chooser.setFileFilter(csv);
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return null;
+        File file = chooser.getSelectedFile();
+        if (chooser.getFileFilter() == gzip && !file.getName().toLowerCase().endsWith(".gz")) {
+            file = new File(file.getPath() + (file.getName().toLowerCase().endsWith(".csv") ? ".gz" : ".csv.gz"));
+        }
+        return file.toPath();
+    }
+
+    // Runs a service mutation on a worker, so its wait for the journal fsync (SYNC durability)
+    // never blocks the EDT, then confirms it on the EDT once it is on disk. A rejected change
+    // (unknown SKU, not enough stock, ...) is shown as an error.
+    private <T> void mutate(JFrame frame, Supplier<T> change, Consumer<T> confirm) {
+        mutate(frame, change, confirm, ex -> JOptionPane.showMessageDialog(frame, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
     }
 
+    private <T> void mutate(JFrame frame, Supplier<T> change, Consumer<T> confirm, Consumer<RuntimeException> reject) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return change.get();
+            }
+
+            @Override
+            protected void done() {
+                T result;
+                try {
+                    result = get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) reject.accept((RuntimeException) ex.getCause());
+                    else JOptionPane.showMessageDialog(frame, "Error: " + ex.getCause(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                confirm.accept(result);
+            }
+        }.execute();
+    }
 
+    // Runs an export on a background thread behind a progress dialog whose Cancel stops it;
+    // its latency counts from startNanos, taken when the user picked the file
+    private void runExport(JFrame frame, String title, Path file, long startNanos, ExportTask task) {
+        ProgressMonitor monitor = new ProgressMonitor(frame, title, file.getFileName().toString(), 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                boolean failed = true;
+                try {
+                    boolean completed = task.run((done, total) -> {
+                        setProgress(total == 0 ? 100 : (int) (100L * done / total));
+                        return !cancelled.get();
+                    });
+                    failed = false;
+                    return completed;
+                } finally {
+                    service.getMetrics().record(OperationMetrics.Operation.EXPORT, startNanos, failed);
+                }
+            }
 
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    if (get()) {
+                        JOptionPane.showMessageDialog(frame, "Exported successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(frame, "Export cancelled.", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame, "Error exporting CSV: " + ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        worker.addPropertyChangeListener(ev -> {
+            if ("progress".equals(ev.getPropertyName())) {
+                monitor.setProgress((Integer) ev.getNewValue());
+                if (monitor.isCanceled()) cancelled.set(true);
+            }
+        });
+        worker.execute();
+    }
 
     // Helper method to create styled buttons with hover effect
     private JButton createStyledButton(String text) {
@@ -672,15 +1472,4 @@ public class InventoryManagementApp {
         ));
     }
 
-
-
-
-    // Unchanged helper method
-    private void updateNameComboBox(JComboBox<String> box) {
-        box.removeAllItems();
-        for (int i = 0; i < model.getRowCount(); i++) {
-            box.addItem(model.getValueAt(i, 1).toString());
-        }
-    }
-
 }
\ No newline at end of file
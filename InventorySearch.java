@@ -0,0 +1,138 @@
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.TableRowSorter;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Drives the inventory search field and facet pickers: keystrokes are debounced, the query
+// runs against InventorySearchIndex on a background thread, and only the resulting row set is
+// handed to the sorter on the EDT, intersected there with the rows of the selected facets
+// (FacetIndex bitmaps, cheap enough to compute on the EDT). Results for a query the user has
+// already typed past are dropped.
+public class InventorySearch implements InventoryStore.Listener {
+    private static final int DEBOUNCE_MS = 150;
+
+    private final InventorySearchIndex index;
+    private final FacetIndex facets;
+    private final TableRowSorter<?> sorter;
+    private final OperationMetrics metrics;
+    private final Timer debounce;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "inventory-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private String query = "";
+    private int categoryCode = FacetIndex.ANY;
+    private int locationCode = FacetIndex.ANY;
+    private boolean lowStockOnly;
+    private long generation;
+
+    public InventorySearch(InventoryStore store, TableRowSorter<?> sorter, OperationMetrics metrics) {
+        this.index = new InventorySearchIndex(store);
+        this.facets = store.getFacets();
+        this.sorter = sorter;
+        this.metrics = metrics;
+        this.debounce = new Timer(DEBOUNCE_MS, e -> runQuery());
+        debounce.setRepeats(false);
+        store.addListener(this);
+    }
+
+    // Called on the EDT for every edit of the search field
+    public void setQuery(String text) {
+        query = text.trim();
+        generation++;
+        if (query.isEmpty()) {
+            debounce.stop();
+            applyFacets();
+        } else {
+            index.prepare();
+            debounce.restart();
+        }
+    }
+
+    // Called on the EDT when a facet picker changes; ANY leaves a dimension unconstrained
+    public void setFacets(int categoryCode, int locationCode, boolean lowStockOnly) {
+        this.categoryCode = categoryCode;
+        this.locationCode = locationCode;
+        this.lowStockOnly = lowStockOnly;
+        generation++;
+        debounce.stop();
+        runQuery();
+    }
+
+    private boolean hasFacets() {
+        return categoryCode != FacetIndex.ANY || locationCode != FacetIndex.ANY || lowStockOnly;
+    }
+
+    private void applyFacets() {
+        if (!hasFacets()) {
+            sorter.setRowFilter(null);
+            return;
+        }
+        long start = System.nanoTime();
+        setRows(facets.rows(categoryCode, locationCode, lowStockOnly));
+        metrics.record(OperationMetrics.Operation.FILTER, start, false);
+    }
+
+    private void setRows(BitSet rows) {
+        sorter.setRowFilter(new RowFilter<Object, Object>() {
+            @Override
+            public boolean include(Entry<? extends Object, ? extends Object> entry) {
+                return rows.get((Integer) entry.getIdentifier());
+            }
+        });
+    }
+
+    // Timed from the end of the debounce until the table shows the result; superseded queries
+    // are not counted
+    private void runQuery() {
+        String q = query;
+        if (q.isEmpty()) {
+            applyFacets();
+            return;
+        }
+        long gen = generation;
+        long start = System.nanoTime();
+        worker.execute(() -> {
+            BitSet matches;
+            try {
+                matches = index.search(q);
+            } catch (RuntimeException e) {
+                metrics.record(OperationMetrics.Operation.FILTER, start, true);
+                throw e;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (gen != generation) return;
+                if (hasFacets()) matches.and(facets.rows(categoryCode, locationCode, lowStockOnly));
+                setRows(matches);
+                metrics.record(OperationMetrics.Operation.FILTER, start, false);
+            });
+        });
+    }
+
+    // Row ids shift or appear as the store changes, so an active filter is re-evaluated
+    private void refresh() {
+        if (!query.isEmpty() || hasFacets()) {
+            generation++;
+            debounce.restart();
+        }
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) { refresh(); }
+
+    @Override
+    public void rowUpdated(int row) {
+        // Quantity changes don't affect which rows match
+    }
+
+    @Override
+    public void rowsUpserted(int[] updatedRows, int updatedCount, int firstInserted, int lastInserted) { refresh(); }
+
+    @Override
+    public void rowRemoved(int row, int movedFromRow) { refresh(); }
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Case-insensitive substring index over SKU, item name and category. SKU and name are
+// covered by a trigram index; category only has a handful of values, so it is matched
+// against the dictionary and then by code. Query text is literal, never a regex.
+//
+// Store events arrive on the EDT while queries run on a search worker, so all state
+// is guarded by this object's monitor. Nothing is copied until prepare() is first called
+// (on the EDT, when the user starts typing), and the trigram postings wait for the first
+// query, so loading a large catalog doesn't pay for search up front.
+public class InventorySearchIndex implements InventoryStore.Listener {
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    private final InventoryStore store;
+
+    // Lower-cased "sku \u0001 name" and category code per row, copied so queries never read the store
+    private String[] texts = new String[64];
+    private int[] categoryCodes = new int[64];
+    private String[] categoryNames = new String[0];
+    private int size;
+    private boolean prepared;
+
+    // Trigram -> rows. Entries are only ever appended: removed or moved rows leave stale
+    // postings behind, which candidate verification filters out. Dropped and rebuilt
+    // once stale entries outnumber live ones.
+    private Map<Long, IntList> postings;
+    private long postingCount;
+    private long stalePostings;
+
+    public InventorySearchIndex(InventoryStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    // Copies the searchable text of every row; must run on the thread that mutates the store
+    public synchronized void prepare() {
+        if (prepared) return;
+        for (int i = 0; i < store.size(); i++) put(i);
+        size = store.size();
+        prepared = true;
+    }
+
+    // Rows whose SKU, name or category contains the query, ignoring case
+    public synchronized BitSet search(String query) {
+        String q = query.toLowerCase(Locale.ROOT);
+        BitSet matches = new BitSet(size);
+        if (q.isEmpty()) {
+            matches.set(0, size);
+            return matches;
+        }
+
+        boolean[] categoryMatches = new boolean[categoryNames.length];
+        boolean anyCategory = false;
+        for (int c = 0; c < categoryNames.length; c++) {
+            if (categoryNames[c] != null && categoryNames[c].contains(q)) {
+                categoryMatches[c] = anyCategory = true;
+            }
+        }
+        if (anyCategory) {
+            for (int row = 0; row < size; row++) {
+                int code = categoryCodes[row];
+                if (code < categoryMatches.length && categoryMatches[code]) matches.set(row);
+            }
+        }
+
+        if (q.length() < 3) {
+            for (int row = 0; row < size; row++) {
+                if (texts[row].contains(q)) matches.set(row);
+            }
+            return matches;
+        }
+
+        // Every match contains every trigram of the query, so the shortest posting list is a superset
+        ensurePostings();
+        IntList shortest = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList list = postings.get(trigram(q, i));
+            if (list == null) return matches;
+            if (shortest == null || list.size < shortest.size) shortest = list;
+        }
+        for (int i = 0; i < shortest.size; i++) {
+            int row = shortest.rows[i];
+            if (row < size && !matches.get(row) && texts[row].contains(q)) matches.set(row);
+        }
+        return matches;
+    }
+
+    @Override
+    public synchronized void rowsInserted(int firstRow, int lastRow) {
+        if (!prepared) return;
+        for (int row = firstRow; row <= lastRow; row++) {
+            put(row);
+            if (postings != null) addPostings(row);
+        }
+        size = store.size();
+    }
+
+    @Override
+    public void rowUpdated(int row) {
+        // Only quantities change in place; nothing searchable does
+    }
+
+    @Override
+    public synchronized void rowsUpserted(int[] updatedRows, int updatedCount, int firstInserted, int lastInserted) {
+        if (!prepared) return;
+        for (int i = 0; i < updatedCount; i++) {
+            int row = updatedRows[i];
+            if (postings != null) stalePostings += trigramCount(texts[row]);
+            put(row);
+            if (postings != null) addPostings(row);
+        }
+        if (firstInserted <= lastInserted) rowsInserted(firstInserted, lastInserted);
+        if (postings != null && stalePostings > postingCount - stalePostings) postings = null;
+    }
+
+    @Override
+    public synchronized void rowRemoved(int row, int movedFromRow) {
+        if (!prepared) return;
+        if (postings != null) stalePostings += trigramCount(texts[row]);
+        if (movedFromRow != -1) {
+            texts[row] = texts[movedFromRow];
+            categoryCodes[row] = categoryCodes[movedFromRow];
+            if (postings != null) {
+                stalePostings += trigramCount(texts[row]);
+                addPostings(row);
+            }
+        }
+        size = store.size();
+        texts[size] = null;
+        if (postings != null && stalePostings > postingCount - stalePostings) {
+            postings = null; // mostly stale; rebuilt on the next query
+        }
+    }
+
+    private void put(int row) {
+        if (row >= texts.length) {
+            int cap = Math.max(row + 1, texts.length * 2);
+            texts = Arrays.copyOf(texts, cap);
+            categoryCodes = Arrays.copyOf(categoryCodes, cap);
+        }
+        texts[row] = (store.getSku(row) + FIELD_SEPARATOR + store.getName(row)).toLowerCase(Locale.ROOT);
+        int code = store.getCategoryCode(row);
+        categoryCodes[row] = code;
+        if (code >= categoryNames.length) {
+            InventoryStore.Dictionary categories = store.getCategories();
+            categoryNames = new String[categories.size()];
+            for (int c = 0; c < categoryNames.length; c++) {
+                categoryNames[c] = categories.decode(c).toLowerCase(Locale.ROOT);
+            }
+        }
+    }
+
+    private void ensurePostings() {
+        if (postings != null) return;
+        postings = new HashMap<>();
+        postingCount = 0;
+        stalePostings = 0;
+        for (int row = 0; row < size; row++) addPostings(row);
+    }
+
+    private void addPostings(int row) {
+        String text = texts[row];
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), k -> new IntList()).add(row);
+            postingCount++;
+        }
+    }
+
+    private static int trigramCount(String text) {
+        return Math.max(0, text.length() - 2);
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static class IntList {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+// Embedded HTTP/JSON API over an InventoryService, for scanners and till software that can't
+// click Swing buttons. It offers the operations of the Entry, Exit and Reports tabs:
+//
+//   POST /items                {"name", "quantity", "costPrice", "sellingPrice", "category", "location", "minStock"}
+//                              -> 201 {"sku"}
+//   GET  /items/{sku}          -> the item
+//   POST /items/{sku}/restock  {"quantity", "location"} -> {"sku", "quantity"}
+//   POST /items/{sku}/sale     {"quantity", "location"} -> {"sku", "remaining"}; 409 with "available" if stock is short
+//                              (location is optional and defaults to the item's own; quantities returned are totals)
+//   GET  /items/{sku}/stock    -> {"sku", "quantity", "locations": [{"name", "quantity"}, ...]} (locations holding stock)
+//   POST /items/{sku}/transfer {"from", "to", "quantity"} -> {"sku", "from", "remaining"}; 409 if "from" is short
+//   POST /orders               {"lines": [{"sku", "quantity"}, ...]} -> {"lines": [{"sku", "remaining"}, ...]}
+//   POST /deliveries           {"lines": [{"sku", "quantity"}, ...]} -> {"lines": [{"sku", "quantity"}, ...]}
+//                              (all lines or none; a short order is 409 naming the SKU)
+//   GET  /low-stock            -> [items]
+//   GET  /summary              -> totals plus value by category and location
+//   GET  /locations            -> {"locations": [{"name", "items", "quantity", "value", "lowStock"}, ...], "total": {...}}
+//   GET  /facets?category=&location=&lowStock=true
+//                              -> {"count", "lowStock", "categories": [{"name", "items"}], "locations": [...]}
+//                              (each facet's counts are within the other facets' selection)
+//   POST /categories, /locations  {"name"} -> 201 {"name"}, or 200 if it already existed
+//   GET  /as-of?time=&sku=     -> {"time", "items", "units", "value", "lowStock"} as of the end of a
+//                              yyyy-MM-dd day, a local yyyy-MM-ddTHH:mm time or epoch millis; with sku,
+//                              {"sku", "stocked", "quantity", "cost", "value", "minStock", "low", "since"}
+//   GET  /changes              -> newline-delimited JSON, one InventoryChange per line, for as long as
+//                              the client reads; a client too slow to keep up gets a final
+//                              {"error", "lastSequence"} line and should re-read the state it follows
+//
+// Errors are {"error": message} with 400 (bad input), 404 (unknown SKU or path), 409 (short
+// stock), 500 (journal write failed) or 503 (journal closed).
+// Each exchange runs on its own virtual thread when the JDK has them, otherwise on a pool.
+//
+// Headless:  java -Dinventory.http.port=8080 -cp out InventoryServer
+// With GUI:  java -Dinventory.http.port=8080 -cp out InventoryManagementApp
+// -Dinventory.http.bind chooses the interface (loopback by default).
+public class InventoryServer {
+    private static final int MAX_BODY = 64 * 1024;
+    // A change stream sends an empty line when idle this long, which is how a gone client is noticed
+    private static final long KEEPALIVE_MILLIS = 15_000;
+
+    static {
+        // Headers and body go out as separate writes; without TCP_NODELAY every small response
+        // waits out the client's delayed ACK (~40 ms). Must be set before the server classes load.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final InventoryService service;
+    private final ItemValidator validator;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public InventoryServer(InventoryService service, ItemValidator validator) {
+        this.service = service;
+        this.validator = validator;
+    }
+
+    // Address from -Dinventory.http.port and -Dinventory.http.bind; null if no port is set
+    public static InetSocketAddress addressFromProperties() {
+        Integer port = Integer.getInteger("inventory.http.port");
+        if (port == null) return null;
+        String bind = System.getProperty("inventory.http.bind");
+        return bind == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : new InetSocketAddress(bind, port);
+    }
+
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) throw new IllegalStateException("Server already started");
+        server = HttpServer.create(address, 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    // One virtual thread per exchange on JDKs that have them (looked up reflectively, so the
+    // code still runs on 17); otherwise a fixed pool large enough to keep journal group commits full
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4), r -> {
+                Thread t = new Thread(r, "inventory-http");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().equals("/changes") && exchange.getRequestMethod().equals("GET")) {
+            streamChanges(exchange);
+            return;
+        }
+        StringBuilder body = new StringBuilder(256);
+        Json.Writer json = new Json.Writer(body);
+        int status;
+        try {
+            status = route(exchange, json);
+        } catch (InventoryService.UnknownSkuException ex) {
+            status = error(body, 404, ex.getMessage());
+        } catch (InventoryService.InsufficientStockException ex) {
+            status = 409;
+            body.setLength(0);
+            new Json.Writer(body).beginObject().field("error", ex.getMessage()).field("sku", ex.getSku())
+                .field("available", ex.getAvailable()).endObject();
+        } catch (IllegalArgumentException | ArithmeticException ex) {
+            status = error(body, 400, ex.getMessage());
+        } catch (IllegalStateException ex) {
+            status = error(body, 503, ex.getMessage());
+        } catch (UncheckedIOException ex) {
+            status = error(body, 500, ex.getMessage());
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Holds the exchange's thread until the client goes away or the subscription ends. Writes
+    // block while the client is slow, which is the backpressure: changes then queue in the
+    // subscription's buffer until it overflows and the stream ends with an error line.
+    private void streamChanges(HttpExchange exchange) throws IOException {
+        CountDownLatch done = new CountDownLatch(1);
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            service.getStore().getChanges().subscribe(new Flow.Subscriber<InventoryChange>() {
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription[0] = s;
+                    s.request(Long.MAX_VALUE);
+                }
+                public void onNext(InventoryChange change) {
+                    StringBuilder line = new StringBuilder(160);
+                    change.write(new Json.Writer(line));
+                    if (!writeLine(out, line)) {
+                        subscription[0].cancel();
+                        done.countDown();
+                    }
+                }
+                public void onError(Throwable t) {
+                    StringBuilder line = new StringBuilder(160);
+                    Json.Writer json = new Json.Writer(line).beginObject().field("error", t.getMessage());
+                    if (t instanceof ChangeFeed.OverflowException) {
+                        json.field("lastSequence", ((ChangeFeed.OverflowException) t).getLastSequence());
+                    }
+                    json.endObject();
+                    writeLine(out, line);
+                    done.countDown();
+                }
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            while (!done.await(KEEPALIVE_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!writeLine(out, new StringBuilder())) break;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (subscription[0] != null) subscription[0].cancel();
+            exchange.close();
+        }
+    }
+
+    // False once the client has gone
+    private static boolean writeLine(OutputStream out, StringBuilder line) {
+        byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            try {
+                out.write(bytes);
+                out.flush();
+                return true;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+    }
+
+    private int route(HttpExchange exchange, Json.Writer json) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] parts = exchange.getRequestURI().getPath().split("/");
+        // parts[0] is the empty string before the leading '/'
+        if (parts.length == 2 && parts[1].equals("items")) {
+            if (!method.equals("POST")) return notAllowed(exchange, json, "POST");
+            return addItem(readBody(exchange), json);
+        }
+        if (parts.length == 3 && parts[1].equals("items")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            ItemValidator.Item item = service.getItem(parts[2]);
+            if (item == null) throw new InventoryService.UnknownSkuException(parts[2]);
+            writeItem(json, parts[2], item);
+            return 200;
+        }
+        if (parts.length == 4 && parts[1].equals("items") && (parts[3].equals("restock") || parts[3].equals("sale"))) {
+            if (!method.equals("POST")) return notAllowed(exchange, json, "POST");
+            Map<String, String> fields = readBody(exchange);
+            int qty = quantity(fields);
+            String location = fields.get("location");
+            if (parts[3].equals("restock")) {
+                int newQty = service.restock(parts[2], location, qty);
+                json.beginObject().field("sku", parts[2]).field("quantity", newQty).endObject();
+            } else {
+                int remaining = service.sell(parts[2], location, qty);
+                json.beginObject().field("sku", parts[2]).field("remaining", remaining).endObject();
+            }
+            return 200;
+        }
+        if (parts.length == 4 && parts[1].equals("items") && parts[3].equals("stock")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            int[] quantities = service.getQuantities(parts[2]);
+            if (quantities == null) throw new InventoryService.UnknownSkuException(parts[2]);
+            long total = 0;
+            for (int q : quantities) total += q;
+            json.beginObject().field("sku", parts[2]).field("quantity", total).name("locations").beginArray();
+            InventoryStore.Dictionary locations = service.getStore().getLocations();
+            for (int l = 0; l < quantities.length; l++) {
+                if (quantities[l] != 0) json.beginObject().field("name", locations.decode(l)).field("quantity", quantities[l]).endObject();
+            }
+            json.endArray().endObject();
+            return 200;
+        }
+        if (parts.length == 4 && parts[1].equals("items") && parts[3].equals("transfer")) {
+            if (!method.equals("POST")) return notAllowed(exchange, json, "POST");
+            Map<String, String> fields = readBody(exchange);
+            int remaining = service.transfer(parts[2], fields.get("from"), fields.get("to"), quantity(fields));
+            json.beginObject().field("sku", parts[2]).field("from", fields.get("from")).field("remaining", remaining).endObject();
+            return 200;
+        }
+        if (parts.length == 2 && (parts[1].equals("orders") || parts[1].equals("deliveries"))) {
+            if (!method.equals("POST")) return notAllowed(exchange, json, "POST");
+            List<Map<String, String>> lines = Json.parseArray(readBody(exchange).get("lines"));
+            String[] skus = new String[lines.size()];
+            int[] qty = new int[lines.size()];
+            for (int i = 0; i < skus.length; i++) {
+                skus[i] = lines.get(i).get("sku");
+                qty[i] = quantity(lines.get(i));
+            }
+            boolean order = parts[1].equals("orders");
+            int[] result = order ? service.sellAll(skus, qty) : service.restockAll(skus, qty);
+            json.beginObject().name("lines").beginArray();
+            for (int i = 0; i < skus.length; i++) {
+                json.beginObject().field("sku", skus[i]).field(order ? "remaining" : "quantity", result[i]).endObject();
+            }
+            json.endArray().endObject();
+            return 200;
+        }
+        if (parts.length == 2 && parts[1].equals("low-stock")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            service.read(store -> {
+                json.beginArray();
+                for (int row : store.getStats().getLowStockRows()) writeItem(json, store, row);
+                return json.endArray();
+            });
+            return 200;
+        }
+        if (parts.length == 2 && parts[1].equals("summary")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            long start = System.nanoTime();
+            service.read(store -> writeSummary(json, store));
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            return 200;
+        }
+        if (parts.length == 2 && parts[1].equals("facets")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+            service.read(store -> writeFacets(json, store, query));
+            return 200;
+        }
+        if (parts.length == 2 && parts[1].equals("locations") && method.equals("GET")) {
+            long start = System.nanoTime();
+            writeLocations(json, service.getStore());
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            return 200;
+        }
+        if (parts.length == 2 && (parts[1].equals("categories") || parts[1].equals("locations"))) {
+            if (!method.equals("POST")) return notAllowed(exchange, json, parts[1].equals("locations") ? "GET, POST" : "POST");
+            String name = readBody(exchange).get("name");
+            boolean created = parts[1].equals("categories") ? service.defineCategory(name) : service.defineLocation(name);
+            json.beginObject().field("name", name.trim()).endObject();
+            return created ? 201 : 200;
+        }
+        if (parts.length == 2 && parts[1].equals("as-of")) {
+            if (!method.equals("GET")) return notAllowed(exchange, json, "GET");
+            Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+            long start = System.nanoTime();
+            writeAsOf(json, service.getStore().getHistory(), StockHistory.parseTime(query.get("time"), service.getSales().getZone()),
+                query.get("sku"));
+            service.getMetrics().record(OperationMetrics.Operation.SUMMARY, start, false);
+            return 200;
+        }
+        if (parts.length == 2 && parts[1].equals("changes")) return notAllowed(exchange, json, "GET");
+        json.beginObject().field("error", "Not found").endObject();
+        return 404;
+    }
+
+    private int addItem(Map<String, String> fields, Json.Writer json) {
+        ItemValidator.Item item = validator.parse(fields.get("name"), fields.get("quantity"), fields.get("costPrice"),
+            fields.get("sellingPrice"), fields.get("category"), fields.get("location"), fields.get("minStock"));
+        String sku = service.addItem(item);
+        json.beginObject().field("sku", sku).endObject();
+        return 201;
+    }
+
+    private static int quantity(Map<String, String> fields) {
+        String qty = fields.get("quantity");
+        try {
+            return Integer.parseInt(qty == null ? "" : qty.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid quantity.");
+        }
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) throw new IllegalArgumentException("Request body too large");
+        return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static void writeItem(Json.Writer json, String sku, ItemValidator.Item item) {
+        json.beginObject()
+            .field("sku", sku)
+            .field("name", item.name)
+            .field("quantity", item.quantity)
+            .centsField("costPrice", InventoryStats.toCents(item.costPrice))
+            .centsField("sellingPrice", InventoryStats.toCents(item.sellingPrice))
+            .field("category", item.category)
+            .field("location", item.location)
+            .field("minStock", item.minStock)
+            .field("lowStock", item.quantity <= item.minStock)
+            .endObject();
+    }
+
+    private static void writeItem(Json.Writer json, InventoryStore store, int row) {
+        json.beginObject()
+            .field("sku", store.getSku(row))
+            .field("name", store.getName(row))
+            .field("quantity", store.getQuantity(row))
+            .centsField("costPrice", InventoryStats.toCents(store.getCostPrice(row)))
+            .centsField("sellingPrice", InventoryStats.toCents(store.getSellingPrice(row)))
+            .field("category", store.getCategory(row))
+            .field("location", store.getLocation(row))
+            .field("minStock", store.getMinStock(row))
+            .field("lowStock", store.isLowStock(row))
+            .endObject();
+    }
+
+    private static Json.Writer writeSummary(Json.Writer json, InventoryStore store) {
+        InventoryStats stats = store.getStats();
+        json.beginObject()
+            .field("totalItems", store.size())
+            .field("totalQuantity", stats.getTotalQuantity())
+            .centsField("totalValue", stats.getTotalValueCents())
+            .field("lowStockCount", stats.getLowStockCount());
+        json.name("categories").beginArray();
+        InventoryStore.Dictionary categories = store.getCategories();
+        for (int c = 0; c < categories.size(); c++) {
+            json.beginObject().field("name", categories.decode(c)).field("items", stats.getCategoryItemCount(c))
+                .centsField("value", stats.getCategoryValueCents(c)).endObject();
+        }
+        json.endArray();
+        json.name("locations").beginArray();
+        InventoryStore.Dictionary locations = store.getLocations();
+        for (LocationStock.Summary s : store.getStock().summaries()) {
+            json.beginObject().field("name", locations.decode(s.locationCode)).field("items", s.items)
+                .centsField("value", s.valueCents).endObject();
+        }
+        return json.endArray().endObject();
+    }
+
+    // Per-location roll-ups, each read from its own partition without stopping the others
+    private static Json.Writer writeLocations(Json.Writer json, InventoryStore store) {
+        InventoryStore.Dictionary locations = store.getLocations();
+        LocationStock stock = store.getStock();
+        json.beginObject().name("locations").beginArray();
+        for (LocationStock.Summary s : stock.summaries()) writeLocation(json.beginObject().field("name", locations.decode(s.locationCode)), s);
+        json.endArray();
+        return writeLocation(json.name("total").beginObject(), stock.total()).endObject();
+    }
+
+    private static Json.Writer writeLocation(Json.Writer json, LocationStock.Summary s) {
+        return json.field("items", s.items).field("quantity", s.onHand).centsField("value", s.valueCents)
+            .field("lowStock", s.lowStock).endObject();
+    }
+
+    private static Json.Writer writeFacets(Json.Writer json, InventoryStore store, Map<String, String> query) {
+        int category = facetCode(store.getCategories(), query.get("category"), "category");
+        int location = facetCode(store.getLocations(), query.get("location"), "location");
+        boolean lowStock = Boolean.parseBoolean(query.get("lowStock"));
+        FacetIndex facets = store.getFacets();
+        json.beginObject()
+            .field("count", facets.count(category, location, lowStock))
+            .field("lowStock", facets.count(category, location, true));
+        writeFacetCounts(json.name("categories"), store.getCategories(), facets.categoryCounts(location, lowStock));
+        writeFacetCounts(json.name("locations"), store.getLocations(), facets.locationCounts(category, lowStock));
+        return json.endObject();
+    }
+
+    private static void writeFacetCounts(Json.Writer json, InventoryStore.Dictionary values, int[] counts) {
+        json.beginArray();
+        for (int i = 0; i < counts.length; i++) {
+            json.beginObject().field("name", values.decode(i)).field("items", counts[i]).endObject();
+        }
+        json.endArray();
+    }
+
+    // History queries read only published movements, so they need no service lock
+    private static Json.Writer writeAsOf(Json.Writer json, StockHistory history, long time, String sku) {
+        if (sku != null && !sku.isEmpty()) {
+            StockHistory.Position p = history.positionAt(sku, time);
+            json.beginObject().field("sku", sku).field("time", time).field("stocked", p != null);
+            if (p != null) {
+                json.field("quantity", p.quantity).centsField("cost", p.costCents).centsField("value", p.getValueCents())
+                    .field("minStock", p.minStock).field("low", p.isLow()).field("since", p.since);
+            }
+            return json.endObject();
+        }
+        StockHistory.Totals t = history.totalsAt(time);
+        return json.beginObject().field("time", time).field("items", t.items).field("units", t.units)
+            .centsField("value", t.valueCents).field("lowStock", t.lowStockItems).endObject();
+    }
+
+    private static int facetCode(InventoryStore.Dictionary values, String name, String what) {
+        if (name == null || name.isEmpty()) return FacetIndex.ANY;
+        int code = values.codeOf(name);
+        if (code == -1) throw new IllegalArgumentException("Unknown " + what + ": " + name);
+        return code;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq == -1 ? pair : pair.substring(0, eq);
+            String value = eq == -1 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int notAllowed(HttpExchange exchange, Json.Writer json, String allow) {
+        exchange.getResponseHeaders().set("Allow", allow);
+        json.beginObject().field("error", "Method not allowed").endObject();
+        return 405;
+    }
+
+    // Replaces anything written so far with an error object
+    private static int error(StringBuilder body, int status, String message) {
+        body.setLength(0);
+        new Json.Writer(body).beginObject().field("error", message).endObject();
+        return status;
+    }
+
+    // Headless mode: restores the data directory, serves the API and snapshots periodically
+    public static void main(String[] args) throws IOException {
+        InventoryStore store = new InventoryStore(InventoryManagementApp.CATEGORIES, InventoryManagementApp.LOCATIONS);
+        InventoryService service = new InventoryService(store, new SalesLedger(), false);
+        try {
+            service.open(System.err::println);
+        } catch (IOException ex) {
+            System.err.println("Could not open journal; changes will not be saved: " + ex.getMessage());
+        }
+        service.scheduleSnapshots();
+
+        String jmxProblem = service.getMetrics().registerMBean();
+        if (jmxProblem != null) System.err.println("Operation metrics not published over JMX: " + jmxProblem);
+
+        InventoryServer server = new InventoryServer(service, new ItemValidator(store.getCategories(), store.getLocations()));
+        InetSocketAddress address = addressFromProperties();
+        server.start(address != null ? address : new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                service.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }));
+        System.out.println("Inventory API listening on port " + server.getPort());
+    }
+}
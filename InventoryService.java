@@ -0,0 +1,736 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+// Business operations over the inventory, safe to call from any thread: the Swing UI is one
+// client, remote terminals can be others.
+//
+// Restock, sale and transfer are atomic per SKU. Each takes the lock of the SKU's stripe and
+// checks, journals and applies the change while holding it, so two terminals selling the last
+// unit can never both succeed. SKUs on different stripes proceed in parallel without sharing a
+// lock word. With a SYNC journal the caller then waits for its record to reach disk, after
+// releasing the stripe; the Swing UI calls in from workers so that wait stays off the EDT.
+// Stock is kept per location (see LocationStock); a restock or sale that names no location
+// uses the item's home location.
+// Structural changes (add, delete, import) move rows around, so they take every stripe in
+// order; with a Swing UI attached they also run on the EDT, where the table and pickers expect
+// row moves to be announced.
+public class InventoryService {
+
+    // Thrown for a SKU that is not (or no longer) in the store
+    public static class UnknownSkuException extends IllegalArgumentException {
+        UnknownSkuException(String sku) {
+            super("Unknown SKU: " + sku);
+        }
+    }
+
+    // Thrown when a sale asks for more than is on hand; nothing was changed
+    public static class InsufficientStockException extends IllegalStateException {
+        private final String sku;
+        private final int requested;
+        private final int available;
+
+        InsufficientStockException(String message, String sku, int requested, int available) {
+            super(message);
+            this.sku = sku;
+            this.requested = requested;
+            this.available = available;
+        }
+
+        public String getSku() { return sku; }
+        public int getRequested() { return requested; }
+        public int getAvailable() { return available; }
+    }
+
+    private static final int STRIPES = 64; // power of two
+
+    private final InventoryStore store;
+    private final SalesLedger sales;
+    private final boolean structuralOnEdt;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicInteger skuCounter = new AtomicInteger(1);
+    private final OperationMetrics metrics = new OperationMetrics();
+    private volatile InventoryJournal journal;
+
+    private Path snapshotFile;
+    private ExecutorService snapshotWriter;
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+
+    // structuralOnEdt: run adds, deletes and imports on the Swing EDT (for a store with Swing views)
+    public InventoryService(InventoryStore store, SalesLedger sales, boolean structuralOnEdt) {
+        this.store = store;
+        this.sales = sales;
+        this.structuralOnEdt = structuralOnEdt;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+        ChangeFeed changes = store.getChanges();
+        sales.addListener((dayStartMillis, timestamp, skuId, quantity, priceCents) -> {
+            if (changes.hasSubscribers()) changes.saleRecorded(sales.getSku(skuId), quantity, priceCents, timestamp);
+        });
+    }
+
+    public InventoryStore getStore() { return store; }
+    public SalesLedger getSales() { return sales; }
+    // Every operation below records its latency and outcome here
+    public OperationMetrics getMetrics() { return metrics; }
+
+    public InventoryJournal getJournal() { return journal; }
+    public void setJournal(InventoryJournal journal) { this.journal = journal; }
+
+    // How often the data directory wants a new snapshot (-Dinventory.snapshot.intervalSec)
+    public static long snapshotIntervalMillis() {
+        return Long.getLong("inventory.snapshot.intervalSec", 300) * 1000;
+    }
+
+    // Loads the latest snapshot, replays the journal written since, and keeps the journal open
+    // for appending new mutations. Location and fsync batching come from -Dinventory.dataDir,
+    // -Dinventory.journal.durability (SYNC or ASYNC) and -Dinventory.journal.syncIntervalMs.
+    // An unreadable snapshot is reported to 'warnings' and everything the journal still holds is
+    // replayed instead; a journal that cannot be opened throws, leaving the service running
+    // without one.
+    // Call before any other thread uses the service.
+    public void open(Consumer<String> warnings) throws IOException {
+        Path dir = Paths.get(System.getProperty("inventory.dataDir", "inventory-data"));
+        InventoryJournal.Durability durability = InventoryJournal.Durability.valueOf(
+            System.getProperty("inventory.journal.durability", "SYNC").toUpperCase());
+        long syncIntervalMs = Long.getLong("inventory.journal.syncIntervalMs", 50);
+        long journalOffset = 0;
+        snapshotFile = dir.resolve("inventory.snapshot");
+        try {
+            InventorySnapshot snapshot = InventorySnapshot.read(snapshotFile);
+            if (snapshot != null) {
+                snapshot.restoreInto(store);
+                snapshot.restoreSales(sales);
+                advanceSkuCounter(snapshot.skuCounter);
+                journalOffset = snapshot.journalOffset;
+            }
+        } catch (IOException ex) {
+            warnings.accept("Could not read snapshot; replaying the journal alone instead: " + ex.getMessage());
+        }
+        Files.createDirectories(dir);
+        StockHistory history = store.getHistory();
+        try {
+            journal = openJournal(dir, durability, syncIntervalMs, journalOffset, history);
+        } finally {
+            history.unpinClock();
+        }
+        snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "inventory-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Replayed stock movements are dated by the records they come from
+    private InventoryJournal openJournal(Path dir, InventoryJournal.Durability durability, long syncIntervalMs,
+                                         long journalOffset, StockHistory history) throws IOException {
+        return InventoryJournal.open(dir.resolve("inventory.journal"), durability, syncIntervalMs, journalOffset, new InventoryJournal.Replayer() {
+            public void clock(long timestamp) {
+                history.pinClock(timestamp);
+            }
+            public void add(String sku, String name, int qty, double cost, double sell, String category, String location, int min) {
+                store.addItem(sku, name, qty, cost, sell, category, location, min);
+                advanceSkuCounter(sku);
+            }
+            public void restock(String sku, int qty) {
+                int row = store.findBySku(sku);
+                if (row != -1) store.setQuantity(row, store.getQuantity(row) + qty);
+            }
+            public void sale(String sku, int qty, double sellingPrice, long timestamp) {
+                int row = store.findBySku(sku);
+                if (row == -1) return;
+                store.setQuantity(row, store.getQuantity(row) - qty);
+                sales.record(timestamp, sku, store.getName(row), store.getCategory(row), store.getLocation(row), qty,
+                    (int) InventoryStats.toCents(sellingPrice), (int) InventoryStats.toCents(store.getCostPrice(row)));
+            }
+            public void delete(String sku) {
+                int row = store.findBySku(sku);
+                if (row != -1) store.removeRow(row);
+            }
+            public void upsert(String sku, String name, int qty, double cost, double sell, String category, String location, int min) {
+                store.upsertItem(sku, name, qty, cost, sell, category, location, min);
+                advanceSkuCounter(sku);
+            }
+            public void category(String name) {
+                store.getCategories().encode(name);
+            }
+            public void location(String name) {
+                store.getLocations().encode(name);
+            }
+            public void transfer(String sku, String fromLocation, String toLocation, int qty) {
+                int row = store.findBySku(sku);
+                if (row == -1) return;
+                store.transfer(row, store.getLocations().encode(fromLocation), store.getLocations().encode(toLocation), qty);
+            }
+            public void restockAt(String sku, String location, int qty) {
+                int row = store.findBySku(sku);
+                if (row == -1) return;
+                int loc = store.getLocations().encode(location);
+                store.setQuantityAt(row, loc, store.getQuantityAt(row, loc) + qty);
+            }
+            public void saleAt(String sku, String location, int qty, double sellingPrice, long timestamp) {
+                int row = store.findBySku(sku);
+                if (row == -1) return;
+                int loc = store.getLocations().encode(location);
+                store.setQuantityAt(row, loc, store.getQuantityAt(row, loc) - qty);
+                sales.record(timestamp, sku, store.getName(row), store.getCategory(row), store.getLocation(row), qty,
+                    (int) InventoryStats.toCents(sellingPrice), (int) InventoryStats.toCents(store.getCostPrice(row)));
+            }
+        });
+    }
+
+    // Calls requestSnapshot every snapshotIntervalMillis on a daemon timer thread, never the EDT:
+    // the capture briefly holds every stripe. Used by both the Swing UI and headless mode.
+    public void scheduleSnapshots() {
+        ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-snapshot-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = snapshotIntervalMillis();
+        snapshots.scheduleAtFixedRate(this::requestSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Captures the state (column copies only, with mutations briefly held off) and writes it on the
+    // snapshot thread, so sales keep flowing while the file is written. Skipped without a journal
+    // or while the previous write is still running.
+    public void requestSnapshot() {
+        InventoryJournal j = journal;
+        if (j == null || snapshotWriter == null || !snapshotPending.compareAndSet(false, true)) return;
+        InventorySnapshot snapshot = snapshot();
+        snapshotWriter.execute(() -> {
+            try {
+                // The snapshot must never claim journal records that could still be lost
+                j.sync();
+                snapshot.write(snapshotFile);
+                // The journal no longer needs what the snapshot covers
+                j.truncateBefore(snapshot.journalOffset);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            } finally {
+                snapshotPending.set(false);
+            }
+        });
+    }
+
+    // Flushes and closes the journal; later mutations are no longer persisted
+    public void close() throws IOException {
+        InventoryJournal j = journal;
+        if (j != null) j.close();
+    }
+
+    public int getSkuCounter() { return skuCounter.get(); }
+
+    public void advanceSkuCounter(int next) {
+        skuCounter.accumulateAndGet(next, Math::max);
+    }
+
+    // Keeps generated SKUs (UQ001, UQ002, ...) from colliding with restored or imported ones
+    public void advanceSkuCounter(String sku) {
+        if (sku.startsWith("UQ")) {
+            try {
+                advanceSkuCounter(Integer.parseInt(sku.substring(2)) + 1);
+            } catch (NumberFormatException ignored) {
+                // Not a generated SKU
+            }
+        }
+    }
+
+    // Adds a new item under a generated SKU and returns the SKU
+    public String addItem(ItemValidator.Item item) {
+        return structural(OperationMetrics.Operation.ADD, () -> {
+            String sku = String.format("UQ%03d", skuCounter.getAndIncrement());
+            InventoryJournal j = journal;
+            if (j != null) j.appendAdd(sku, item.name, item.quantity, item.costPrice, item.sellingPrice, item.category, item.location, item.minStock);
+            store.addItem(sku, item.name, item.quantity, item.costPrice, item.sellingPrice, item.category, item.location, item.minStock);
+            return sku;
+        });
+    }
+
+    // Adds qty units at the item's home location and returns its new total
+    public int restock(String sku, int qty) {
+        return restock(sku, null, qty);
+    }
+
+    // Adds qty units at the given location (null for the item's home) and returns its new total
+    public int restock(String sku, String location, int qty) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if (qty <= 0) throw new IllegalArgumentException("Invalid quantity.");
+            int code = location == null ? -1 : locationCode(location);
+            InventoryJournal j = journal;
+            long seq = 0;
+            int newQty;
+            ReentrantLock lock = stripeOf(sku);
+            lock.lock();
+            try {
+                int row = rowOf(sku);
+                int loc = location == null ? store.getLocationCode(row) : code;
+                newQty = Math.addExact(store.getQuantity(row), qty);
+                if (j != null) seq = location == null ? j.appendRestock(sku, qty) : j.appendRestockAt(sku, location, qty);
+                store.setQuantityAt(row, loc, store.getQuantityAt(row, loc) + qty);
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(j, seq);
+            failed = false;
+            return newQty;
+        } finally {
+            metrics.record(OperationMetrics.Operation.RESTOCK, start, failed);
+        }
+    }
+
+    // Sells qty units from the item's home location at the current selling price and returns
+    // the item's remaining total; throws InsufficientStockException (changing nothing) if fewer
+    // are on hand there
+    public int sell(String sku, int qty) {
+        return sell(sku, null, qty);
+    }
+
+    // As above, from the given location (null for the item's home)
+    public int sell(String sku, String location, int qty) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if (qty <= 0) throw new IllegalArgumentException("Invalid quantity.");
+            int code = location == null ? -1 : locationCode(location);
+            InventoryJournal j = journal;
+            long seq = 0;
+            int remaining;
+            ReentrantLock lock = stripeOf(sku);
+            lock.lock();
+            try {
+                int row = rowOf(sku);
+                int loc = location == null ? store.getLocationCode(row) : code;
+                int available = store.getQuantityAt(row, loc);
+                if (qty > available) {
+                    throw new InsufficientStockException("Sale quantity exceeds stock at " + store.getLocations().decode(loc) + ".",
+                        sku, qty, available);
+                }
+                double sellPrice = store.getSellingPrice(row);
+                long now = System.currentTimeMillis();
+                if (j != null) {
+                    seq = location == null ? j.appendSale(sku, qty, sellPrice, now) : j.appendSaleAt(sku, location, qty, sellPrice, now);
+                }
+                store.setQuantityAt(row, loc, available - qty);
+                sales.record(now, sku, store.getName(row), store.getCategory(row), store.getLocation(row), qty,
+                    (int) InventoryStats.toCents(sellPrice), (int) InventoryStats.toCents(store.getCostPrice(row)));
+                remaining = store.getQuantity(row);
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(j, seq);
+            failed = false;
+            return remaining;
+        } finally {
+            metrics.record(OperationMetrics.Operation.SALE, start, failed);
+        }
+    }
+
+    // Sells every line of an order (a SKU may appear on several lines) or nothing: all lines are
+    // validated first, under the locks of every stripe involved, then journaled as one record,
+    // logged as one sale per line and published to listeners as one batch. Lines are sold from
+    // each item's home location. Returns each line's SKU total after the whole order.
+    public int[] sellAll(String[] skus, int[] quantities) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int n = checkLines(skus, quantities);
+            InventoryJournal j = journal;
+            long seq = 0;
+            int[] remaining = new int[n];
+            ReentrantLock[] locks = lockStripes(skus, n);
+            try {
+                int[] rows = new int[n];
+                for (int i = 0; i < n; i++) rows[i] = rowOf(skus[i]);
+                int[] order = byRow(rows);
+                // Total demand per distinct row against what is on hand
+                int distinct = 0;
+                int[] changedRows = new int[n];
+                int[] newQty = new int[n];
+                for (int k = 0; k < n; ) {
+                    int row = rows[order[k]];
+                    long demand = 0;
+                    int end = k;
+                    while (end < n && rows[order[end]] == row) demand += quantities[order[end++]];
+                    int available = store.getQuantityAt(row, store.getLocationCode(row));
+                    if (demand > available) {
+                        String sku = store.getSku(row);
+                        throw new InsufficientStockException("Sale quantity exceeds stock for " + sku + " at " + store.getLocation(row)
+                            + " (requested " + demand + ", available " + available + ").", sku, (int) Math.min(demand, Integer.MAX_VALUE), available);
+                    }
+                    changedRows[distinct] = row;
+                    newQty[distinct++] = store.getQuantity(row) - (int) demand;
+                    k = end;
+                }
+
+                double[] prices = new double[n];
+                for (int i = 0; i < n; i++) prices[i] = store.getSellingPrice(rows[i]);
+                long now = System.currentTimeMillis();
+                if (j != null) seq = j.appendOrder(skus, quantities, prices, now, n);
+                store.setQuantities(changedRows, newQty, distinct);
+                for (int i = 0; i < n; i++) {
+                    int row = rows[i];
+                    sales.record(now, skus[i], store.getName(row), store.getCategory(row), store.getLocation(row), quantities[i],
+                        (int) InventoryStats.toCents(prices[i]), (int) InventoryStats.toCents(store.getCostPrice(row)));
+                    remaining[i] = store.getQuantity(row);
+                }
+            } finally {
+                unlock(locks);
+            }
+            awaitDurable(j, seq);
+            failed = false;
+            return remaining;
+        } finally {
+            metrics.record(OperationMetrics.Operation.ORDER, start, failed);
+        }
+    }
+
+    // Restocks every line of a delivery (at each item's home location) or nothing, journaled as
+    // one record and published as one batch. Returns each line's SKU total after the whole delivery.
+    public int[] restockAll(String[] skus, int[] quantities) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int n = checkLines(skus, quantities);
+            InventoryJournal j = journal;
+            long seq = 0;
+            int[] result = new int[n];
+            ReentrantLock[] locks = lockStripes(skus, n);
+            try {
+                int[] rows = new int[n];
+                for (int i = 0; i < n; i++) rows[i] = rowOf(skus[i]);
+                int[] order = byRow(rows);
+                int distinct = 0;
+                int[] changedRows = new int[n];
+                int[] newQty = new int[n];
+                for (int k = 0; k < n; ) {
+                    int row = rows[order[k]];
+                    long qty = store.getQuantity(row);
+                    int end = k;
+                    while (end < n && rows[order[end]] == row) qty += quantities[order[end++]];
+                    if (qty > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid quantity.");
+                    changedRows[distinct] = row;
+                    newQty[distinct++] = (int) qty;
+                    k = end;
+                }
+
+                if (j != null) seq = j.appendRestocks(skus, quantities, n);
+                store.setQuantities(changedRows, newQty, distinct);
+                for (int i = 0; i < n; i++) result[i] = store.getQuantity(rows[i]);
+            } finally {
+                unlock(locks);
+            }
+            awaitDurable(j, seq);
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(OperationMetrics.Operation.RESTOCK, start, failed);
+        }
+    }
+
+    // Moves qty units of an item from one location to another. The debit and credit are one
+    // journal record applied under the SKU's lock, so nothing reading through the service sees
+    // one without the other. Returns the quantity left at the source; throws
+    // InsufficientStockException (changing nothing) if the source holds fewer.
+    public int transfer(String sku, String fromLocation, String toLocation, int qty) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            if (qty <= 0) throw new IllegalArgumentException("Invalid quantity.");
+            int from = locationCode(fromLocation);
+            int to = locationCode(toLocation);
+            if (from == to) throw new IllegalArgumentException("Choose two different locations.");
+            InventoryJournal j = journal;
+            long seq = 0;
+            int left;
+            ReentrantLock lock = stripeOf(sku);
+            lock.lock();
+            try {
+                int row = rowOf(sku);
+                int available = store.getQuantityAt(row, from);
+                if (qty > available) {
+                    throw new InsufficientStockException("Transfer quantity exceeds stock at " + fromLocation + ".", sku, qty, available);
+                }
+                if (j != null) seq = j.appendTransfer(sku, fromLocation, toLocation, qty);
+                store.transfer(row, from, to, qty);
+                left = available - qty;
+            } finally {
+                lock.unlock();
+            }
+            awaitDurable(j, seq);
+            failed = false;
+            return left;
+        } finally {
+            metrics.record(OperationMetrics.Operation.TRANSFER, start, failed);
+        }
+    }
+
+    // Total on hand across locations, or -1 for an unknown SKU
+    public int getQuantity(String sku) {
+        ReentrantLock lock = stripeOf(sku);
+        lock.lock();
+        try {
+            int row = store.findBySku(sku);
+            return row == -1 ? -1 : store.getQuantity(row);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The item's quantity at every location, indexed by location code; null for an unknown SKU
+    public int[] getQuantities(String sku) {
+        ReentrantLock lock = stripeOf(sku);
+        lock.lock();
+        try {
+            int row = store.findBySku(sku);
+            return row == -1 ? null : store.getStock().quantities(row);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A consistent copy of one item, or null for an unknown SKU
+    public ItemValidator.Item getItem(String sku) {
+        ReentrantLock lock = stripeOf(sku);
+        lock.lock();
+        try {
+            int row = store.findBySku(sku);
+            if (row == -1) return null;
+            return new ItemValidator.Item(store.getName(row), store.getQuantity(row), store.getCostPrice(row),
+                store.getSellingPrice(row), store.getCategory(row), store.getLocation(row), store.getMinStock(row));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs a multi-row read (reports, summaries) while no mutation is in flight; keep it short,
+    // every terminal waits for it
+    public <T> T read(Function<InventoryStore, T> reader) {
+        lockAll();
+        try {
+            return reader.apply(store);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Removes the item; false if the SKU is unknown
+    public boolean delete(String sku) {
+        return structural(OperationMetrics.Operation.DELETE, () -> {
+            int row = store.findBySku(sku);
+            if (row == -1) return false;
+            InventoryJournal j = journal;
+            if (j != null) j.appendDelete(sku);
+            store.removeRow(row);
+            return true;
+        });
+    }
+
+    // Adds a category that items can then be filed under; false if it already exists
+    public boolean defineCategory(String name) {
+        return define(store.getCategories(), name, true);
+    }
+
+    // Adds a location that items can then be stored at; false if it already exists
+    public boolean defineLocation(String name) {
+        return define(store.getLocations(), name, false);
+    }
+
+    // Structural so views see the new value on the EDT, like a new row
+    private boolean define(InventoryStore.Dictionary dictionary, String name, boolean category) {
+        String value = name == null ? "" : name.trim();
+        if (value.isEmpty()) throw new IllegalArgumentException("Please enter a name.");
+        return structural(() -> {
+            if (dictionary.codeOf(value) != -1) return false;
+            InventoryJournal j = journal;
+            if (j != null) {
+                if (category) j.appendCategory(value);
+                else j.appendLocation(value);
+            }
+            dictionary.encode(value);
+            return true;
+        });
+    }
+
+    // Inserts or replaces a validated import batch in one step; blank SKUs get generated ones
+    public void importItems(CsvImporter.Result result) {
+        structural(OperationMetrics.Operation.IMPORT, () -> {
+            int n = result.count;
+            int[] catCodes = new int[n];
+            int[] locCodes = new int[n];
+            for (int i = 0; i < n; i++) {
+                if (result.skus[i].isEmpty()) {
+                    result.skus[i] = String.format("UQ%03d", skuCounter.getAndIncrement());
+                } else {
+                    advanceSkuCounter(result.skus[i]);
+                }
+                catCodes[i] = store.getCategories().encode(result.categories[i]);
+                locCodes[i] = store.getLocations().encode(result.locations[i]);
+            }
+            InventoryJournal j = journal;
+            if (j != null) {
+                j.appendUpserts(result.skus, result.names, result.quantities, result.costPrices, result.sellingPrices,
+                    result.categories, result.locations, result.minStocks, n);
+            }
+            store.upsertRows(result.skus, result.names, result.quantities, result.costPrices, result.sellingPrices,
+                catCodes, locCodes, result.minStocks, n);
+            return null;
+        });
+    }
+
+    // Copies the store and sales at a point no mutation is in flight, so the snapshot matches
+    // the journal offset it records exactly
+    public InventorySnapshot snapshot() {
+        lockAll();
+        try {
+            InventoryJournal j = journal;
+            return InventorySnapshot.capture(store, sales, skuCounter.get(), j == null ? 0 : j.endOffset());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private int locationCode(String name) {
+        int code = name == null ? -1 : store.getLocations().codeOf(name);
+        if (code == -1) throw new IllegalArgumentException("Unknown location: " + name);
+        return code;
+    }
+
+    private ReentrantLock stripeOf(String sku) {
+        return stripes[stripeIndex(sku)];
+    }
+
+    private static int stripeIndex(String sku) {
+        int h = sku.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int checkLines(String[] skus, int[] quantities) {
+        if (skus.length != quantities.length) throw new IllegalArgumentException("Every line needs a SKU and a quantity.");
+        if (skus.length == 0) throw new IllegalArgumentException("No lines.");
+        for (int i = 0; i < skus.length; i++) {
+            if (skus[i] == null) throw new IllegalArgumentException("Every line needs a SKU and a quantity.");
+            if (quantities[i] <= 0) throw new IllegalArgumentException("Invalid quantity.");
+        }
+        return skus.length;
+    }
+
+    // Locks the distinct stripes of the given SKUs in index order, so concurrent batches can't deadlock
+    private ReentrantLock[] lockStripes(String[] skus, int n) {
+        boolean[] needed = new boolean[STRIPES];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int s = stripeIndex(skus[i]);
+            if (!needed[s]) {
+                needed[s] = true;
+                count++;
+            }
+        }
+        ReentrantLock[] locks = new ReentrantLock[count];
+        int k = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            if (needed[s]) locks[k++] = stripes[s];
+        }
+        for (ReentrantLock lock : locks) lock.lock();
+        return locks;
+    }
+
+    private static void unlock(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) locks[i].unlock();
+    }
+
+    // Line indexes ordered by row, so lines for the same item are adjacent
+    private static int[] byRow(int[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) keys[i] = (long) rows[i] << 32 | i;
+        Arrays.sort(keys);
+        int[] order = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) order[i] = (int) keys[i];
+        return order;
+    }
+
+    private int rowOf(String sku) {
+        int row = store.findBySku(sku);
+        if (row == -1) throw new UnknownSkuException(sku);
+        return row;
+    }
+
+    // Timed from the caller's side, so EDT queueing is part of the latency
+    private <T> T structural(OperationMetrics.Operation operation, Supplier<T> op) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = structural(op);
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(operation, start, failed);
+        }
+    }
+
+    // The op journals under every stripe; the wait for its records comes after they are released
+    // and back on the calling thread
+    private <T> T structural(Supplier<T> op) {
+        T result;
+        if (structuralOnEdt && !SwingUtilities.isEventDispatchThread()) {
+            FutureTask<T> task = new FutureTask<>(() -> underAllStripes(op));
+            SwingUtilities.invokeLater(task);
+            try {
+                result = task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the EDT", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        } else {
+            result = underAllStripes(op);
+        }
+        InventoryJournal j = journal;
+        if (j != null) awaitDurable(j, j.appendedSeq());
+        return result;
+    }
+
+    private <T> T underAllStripes(Supplier<T> op) {
+        lockAll();
+        try {
+            return op.get();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // In SYNC mode, waits for journal record 'seq' to reach disk. Callers have already released
+    // their stripes, so other terminals keep going during the fsync; they may act on the change
+    // before it is durable, but any record of theirs lands behind it in the journal.
+    private static void awaitDurable(InventoryJournal j, long seq) {
+        if (j != null && seq > 0) j.awaitDurable(seq);
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) lock.lock();
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) stripes[i].unlock();
+    }
+}
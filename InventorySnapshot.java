@@ -0,0 +1,436 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Point-in-time checkpoint of the inventory and sales log in a columnar binary file.
+// Captured cheaply on the EDT (column copies only), written on a background thread to a
+// temp file that is fsynced and atomically renamed into place, and read back through memory
+// mappings straight into column arrays for a single batch insert into the store.
+//
+// Layout (big-endian): magic, version, journal offset, SKU counter, category and location
+// dictionaries, row count, the numeric columns, the SKU and name string columns, the stock
+// held away from each item's home location (line count, then row, location code and quantity
+// columns), the sales ledger (its SKU, name, category and location dictionary, then timestamp,
+// SKU id, quantity, price and cost columns), the stock history (its SKU dictionary, then
+// timestamp, SKU id, kind, quantity, cost and min stock columns), and a trailing CRC32 of
+// everything before it. A string column is stored as an int length per value followed by all
+// UTF-8 bytes back to back. A file of any other version is rejected, and the caller falls back
+// to replaying the full journal.
+public class InventorySnapshot {
+    private static final long MAGIC = 0x494E56534E415031L; // "INVSNAP1"
+    private static final int VERSION = 1;
+    // Largest mapping read() makes; a bigger file is read through several
+    private static final long REGION_BYTES = 1L << 30;
+
+    final long journalOffset;
+    final int skuCounter;
+
+    private final String[] categories;
+    private final String[] locations;
+    private final int rows;
+    private final String[] skus;
+    private final String[] names;
+    private final int[] quantities;
+    private final double[] costPrices;
+    private final double[] sellingPrices;
+    private final int[] categoryCodes;
+    private final int[] locationCodes;
+    private final int[] minStocks;
+    // {rows, location codes, quantities} of every line away from its item's home
+    private final int[][] awayLines;
+    private final SalesLedger sales;
+    private final SalesLedger.View salesView;
+    private final int saleSkuCount;
+    private final StockHistory history;
+    private final int historySize;
+    private final int historySkuCount;
+
+    private InventorySnapshot(long journalOffset, int skuCounter, String[] categories, String[] locations, int rows,
+                              String[] skus, String[] names, int[] quantities, double[] costPrices, double[] sellingPrices,
+                              int[] categoryCodes, int[] locationCodes, int[] minStocks, int[][] awayLines, SalesLedger sales,
+                              StockHistory history) {
+        this.journalOffset = journalOffset;
+        this.skuCounter = skuCounter;
+        this.categories = categories;
+        this.locations = locations;
+        this.rows = rows;
+        this.skus = skus;
+        this.names = names;
+        this.quantities = quantities;
+        this.costPrices = costPrices;
+        this.sellingPrices = sellingPrices;
+        this.categoryCodes = categoryCodes;
+        this.locationCodes = locationCodes;
+        this.minStocks = minStocks;
+        this.awayLines = awayLines;
+        this.sales = sales;
+        // The ledger only grows, so a view plus the SKU count pins down its current contents
+        this.salesView = sales.view();
+        this.saleSkuCount = sales.getSkuCount();
+        // Append-only as well
+        this.history = history;
+        this.historySize = history.size();
+        this.historySkuCount = history.getSkuCount();
+    }
+
+    // Copies the current state; nothing may mutate the store meanwhile. With an InventoryService
+    // in front, use its snapshot(), which holds every stripe.
+    static InventorySnapshot capture(InventoryStore store, SalesLedger sales, int skuCounter, long journalOffset) {
+        int n = store.size();
+        String[] skus = new String[n];
+        String[] names = new String[n];
+        int[] quantities = new int[n];
+        double[] costs = new double[n];
+        double[] sells = new double[n];
+        int[] cats = new int[n];
+        int[] locs = new int[n];
+        int[] mins = new int[n];
+        for (int i = 0; i < n; i++) {
+            skus[i] = store.getSku(i);
+            names[i] = store.getName(i);
+            quantities[i] = store.getQuantity(i);
+            costs[i] = store.getCostPrice(i);
+            sells[i] = store.getSellingPrice(i);
+            cats[i] = store.getCategoryCode(i);
+            locs[i] = store.getLocationCode(i);
+            mins[i] = store.getMinStock(i);
+        }
+        return new InventorySnapshot(journalOffset, skuCounter, values(store.getCategories()), values(store.getLocations()),
+            n, skus, names, quantities, costs, sells, cats, locs, mins, store.getStock().awayLines(), sales, store.getHistory());
+    }
+
+    // Point-in-time view of a store no other thread is changing (CSV export benchmarks, tools)
+    static InventorySnapshot capture(InventoryStore store, SalesLedger sales) {
+        return capture(store, sales, 0, 0);
+    }
+
+    public int getRowCount() { return rows; }
+
+    public String getSku(int row) { return skus[row]; }
+    public String getName(int row) { return names[row]; }
+    public int getQuantity(int row) { return quantities[row]; }
+    public double getCostPrice(int row) { return costPrices[row]; }
+    public double getSellingPrice(int row) { return sellingPrices[row]; }
+    public String getCategory(int row) { return categories[categoryCodes[row]]; }
+    public String getLocation(int row) { return locations[locationCodes[row]]; }
+    public int getMinStock(int row) { return minStocks[row]; }
+
+
+    // Inserts every captured item into the (empty) store in one batch, all stock at home, then
+    // moves the lines held elsewhere. The captured history replaces the movements the inserts
+    // would make.
+    public void restoreInto(InventoryStore store) {
+        int first = store.size();
+        int[] catMap = new int[categories.length];
+        for (int c = 0; c < categories.length; c++) catMap[c] = store.getCategories().encode(categories[c]);
+        int[] locMap = new int[locations.length];
+        for (int l = 0; l < locations.length; l++) locMap[l] = store.getLocations().encode(locations[l]);
+        for (int i = 0; i < rows; i++) {
+            categoryCodes[i] = catMap[categoryCodes[i]];
+            locationCodes[i] = locMap[locationCodes[i]];
+        }
+        StockHistory restored = store.getHistory();
+        restored.restore(history, historySize, historySkuCount);
+        restored.setMuted(true);
+        try {
+            store.appendRows(skus, names, quantities, costPrices, sellingPrices, categoryCodes, locationCodes, minStocks, rows);
+            int[] lineRows = awayLines[0], lineLocations = awayLines[1], lineQuantities = awayLines[2];
+            for (int i = 0; i < lineRows.length; i++) {
+                int row = first + lineRows[i];
+                store.transfer(row, store.getLocationCode(row), locMap[lineLocations[i]], lineQuantities[i]);
+            }
+        } finally {
+            restored.setMuted(false);
+        }
+    }
+
+    // Appends every captured sale to the (empty) ledger
+    public void restoreSales(SalesLedger ledger) {
+        int[] idMap = new int[saleSkuCount];
+        for (int id = 0; id < saleSkuCount; id++) {
+            idMap[id] = ledger.skuId(sales.getSku(id), sales.getName(id), sales.getCategory(id), sales.getLocation(id));
+        }
+        for (int i = 0, n = salesView.size(); i < n; i++) {
+            ledger.append(salesView.getTimestamp(i), idMap[salesView.getSkuId(i)], salesView.getQuantity(i),
+                salesView.getPriceCents(i), salesView.getCostCents(i));
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream fileOut = Files.newOutputStream(tmp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalOffset);
+            out.writeInt(skuCounter);
+            writeDictionary(out, categories);
+            writeDictionary(out, locations);
+
+            out.writeInt(rows);
+            for (int i = 0; i < rows; i++) out.writeInt(quantities[i]);
+            for (int i = 0; i < rows; i++) out.writeDouble(costPrices[i]);
+            for (int i = 0; i < rows; i++) out.writeDouble(sellingPrices[i]);
+            for (int i = 0; i < rows; i++) out.writeInt(categoryCodes[i]);
+            for (int i = 0; i < rows; i++) out.writeInt(locationCodes[i]);
+            for (int i = 0; i < rows; i++) out.writeInt(minStocks[i]);
+            writeStrings(out, skus, rows);
+            writeStrings(out, names, rows);
+            out.writeInt(awayLines[0].length);
+            for (int[] column : awayLines) {
+                for (int v : column) out.writeInt(v);
+            }
+
+            int skuCount = saleSkuCount;
+            String[] column = new String[skuCount];
+            out.writeInt(skuCount);
+            for (int id = 0; id < skuCount; id++) column[id] = sales.getSku(id);
+            writeStrings(out, column, skuCount);
+            for (int id = 0; id < skuCount; id++) column[id] = sales.getName(id);
+            writeStrings(out, column, skuCount);
+            for (int id = 0; id < skuCount; id++) column[id] = sales.getCategory(id);
+            writeStrings(out, column, skuCount);
+            for (int id = 0; id < skuCount; id++) column[id] = sales.getLocation(id);
+            writeStrings(out, column, skuCount);
+            int n = salesView.size();
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) out.writeLong(salesView.getTimestamp(i));
+            for (int i = 0; i < n; i++) out.writeInt(salesView.getSkuId(i));
+            for (int i = 0; i < n; i++) out.writeInt(salesView.getQuantity(i));
+            for (int i = 0; i < n; i++) out.writeInt(salesView.getPriceCents(i));
+            for (int i = 0; i < n; i++) out.writeInt(salesView.getCostCents(i));
+
+            column = new String[historySkuCount];
+            out.writeInt(historySkuCount);
+            for (int id = 0; id < historySkuCount; id++) column[id] = history.getSku(id);
+            writeStrings(out, column, historySkuCount);
+            int moves = historySize;
+            out.writeInt(moves);
+            for (int i = 0; i < moves; i++) out.writeLong(history.getTimestamp(i));
+            for (int i = 0; i < moves; i++) out.writeInt(history.getSkuId(i));
+            for (int i = 0; i < moves; i++) out.writeByte(history.getKind(i).ordinal());
+            for (int i = 0; i < moves; i++) out.writeInt(history.getQuantity(i));
+            for (int i = 0; i < moves; i++) out.writeInt(history.getCostCents(i));
+            for (int i = 0; i < moves; i++) out.writeInt(history.getMinStock(i));
+
+            out.flush();
+            // The checksum itself is written past the checked stream
+            new DataOutputStream(fileOut).writeLong(crc.getValue());
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Memory-maps and decodes a snapshot; returns null if there is none
+    public static InventorySnapshot read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < 8 + 8) throw new IOException("Snapshot truncated: " + file);
+            long bodySize = size - 8;
+
+            CRC32 crc = new CRC32();
+            for (long pos = 0; pos < bodySize; pos += REGION_BYTES) {
+                crc.update(ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(REGION_BYTES, bodySize - pos)));
+            }
+            ByteBuffer stored = ByteBuffer.allocate(8);
+            while (stored.hasRemaining()) {
+                if (ch.read(stored, bodySize + stored.position()) < 0) throw new IOException("Snapshot truncated: " + file);
+            }
+            if (stored.getLong(0) != crc.getValue()) throw new IOException("Snapshot checksum mismatch: " + file);
+
+            MappedInput in = new MappedInput(ch, bodySize);
+            if (in.getLong() != MAGIC) throw new IOException("Not a snapshot file: " + file);
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            long journalOffset = in.getLong();
+            int skuCounter = in.getInt();
+            String[] categories = readDictionary(in);
+            String[] locations = readDictionary(in);
+
+            int rows = in.getInt();
+            int[] quantities = in.getInts(rows);
+            double[] costs = in.getDoubles(rows);
+            double[] sells = in.getDoubles(rows);
+            int[] cats = in.getInts(rows);
+            int[] locs = in.getInts(rows);
+            int[] mins = in.getInts(rows);
+            String[] skus = readStrings(in, rows);
+            String[] names = readStrings(in, rows);
+            int[][] awayLines = new int[3][];
+            int lines = in.getInt();
+            for (int c = 0; c < 3; c++) awayLines[c] = in.getInts(lines);
+
+            SalesLedger sales = readSales(in);
+            StockHistory history = readHistory(in);
+            return new InventorySnapshot(journalOffset, skuCounter, categories, locations, rows,
+                skus, names, quantities, costs, sells, cats, locs, mins, awayLines, sales, history);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static SalesLedger readSales(MappedInput in) throws IOException {
+        SalesLedger sales = new SalesLedger();
+        int skuCount = in.getInt();
+        String[] skus = readStrings(in, skuCount);
+        String[] names = readStrings(in, skuCount);
+        String[] categories = readStrings(in, skuCount);
+        String[] saleLocations = readStrings(in, skuCount);
+        for (int id = 0; id < skuCount; id++) sales.skuId(skus[id], names[id], categories[id], saleLocations[id]);
+        int n = in.getInt();
+        long[] timestamps = in.getLongs(n);
+        int[] skuIds = in.getInts(n);
+        int[] quantities = in.getInts(n);
+        int[] prices = in.getInts(n);
+        int[] costs = in.getInts(n);
+        for (int i = 0; i < n; i++) sales.append(timestamps[i], skuIds[i], quantities[i], prices[i], costs[i]);
+        return sales;
+    }
+
+    private static StockHistory readHistory(MappedInput in) throws IOException {
+        StockHistory history = new StockHistory();
+        String[] skus = readStrings(in, in.getInt());
+        int n = in.getInt();
+        long[] timestamps = in.getLongs(n);
+        int[] skuIds = in.getInts(n);
+        byte[] kinds = new byte[n];
+        in.get(kinds, 0, n);
+        int[] quantities = in.getInts(n);
+        int[] costs = in.getInts(n);
+        int[] mins = in.getInts(n);
+        StockHistory.Kind[] kindValues = StockHistory.Kind.values();
+        for (int i = 0; i < n; i++) {
+            history.append(timestamps[i], skus[skuIds[i]], kindValues[kinds[i]], quantities[i], costs[i], mins[i]);
+        }
+        return history;
+    }
+
+    private static String[] values(InventoryStore.Dictionary dict) {
+        String[] values = new String[dict.size()];
+        for (int i = 0; i < values.length; i++) values[i] = dict.decode(i);
+        return values;
+    }
+
+    private static void writeDictionary(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        writeStrings(out, values, values.length);
+    }
+
+    private static String[] readDictionary(MappedInput in) throws IOException {
+        return readStrings(in, in.getInt());
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values, int n) throws IOException {
+        byte[][] encoded = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded[i].length);
+        }
+        for (int i = 0; i < n; i++) out.write(encoded[i]);
+    }
+
+    private static String[] readStrings(MappedInput in, int n) throws IOException {
+        int[] lengths = in.getInts(n);
+        int longest = 0;
+        for (int len : lengths) longest = Math.max(longest, len);
+        byte[] bytes = new byte[longest];
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            in.get(bytes, 0, lengths[i]);
+            values[i] = new String(bytes, 0, lengths[i], StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    // Reads the snapshot body through read-only mappings of at most REGION_BYTES each, moving
+    // to the next one as a value or column crosses the end, so neither the file nor a single
+    // column has to fit in one int-indexed buffer
+    private static final class MappedInput {
+        private final FileChannel ch;
+        private final long end;
+        private long regionStart;
+        private MappedByteBuffer region;
+
+        MappedInput(FileChannel ch, long end) throws IOException {
+            this.ch = ch;
+            this.end = end;
+            map(0);
+        }
+
+        private void map(long pos) throws IOException {
+            regionStart = pos;
+            region = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(REGION_BYTES, end - pos));
+        }
+
+        // Current region, remapped at the read position if fewer than 'bytes' are left in it
+        private ByteBuffer need(int bytes) throws IOException {
+            if (region.remaining() < bytes) {
+                long pos = regionStart + region.position();
+                if (end - pos < bytes) throw new IOException("Snapshot truncated");
+                map(pos);
+            }
+            return region;
+        }
+
+        int getInt() throws IOException { return need(4).getInt(); }
+        long getLong() throws IOException { return need(8).getLong(); }
+
+        void get(byte[] dst, int off, int len) throws IOException {
+            while (len > 0) {
+                int k = Math.min(len, need(1).remaining());
+                region.get(dst, off, k);
+                off += k;
+                len -= k;
+            }
+        }
+
+        int[] getInts(int n) throws IOException {
+            int[] values = new int[n];
+            for (int i = 0; i < n; ) {
+                int k = Math.min(n - i, need(4).remaining() / 4);
+                region.asIntBuffer().get(values, i, k);
+                region.position(region.position() + k * 4);
+                i += k;
+            }
+            return values;
+        }
+
+        long[] getLongs(int n) throws IOException {
+            long[] values = new long[n];
+            for (int i = 0; i < n; ) {
+                int k = Math.min(n - i, need(8).remaining() / 8);
+                region.asLongBuffer().get(values, i, k);
+                region.position(region.position() + k * 8);
+                i += k;
+            }
+            return values;
+        }
+
+        double[] getDoubles(int n) throws IOException {
+            double[] values = new double[n];
+            for (int i = 0; i < n; ) {
+                int k = Math.min(n - i, need(8).remaining() / 8);
+                region.asDoubleBuffer().get(values, i, k);
+                region.position(region.position() + k * 8);
+                i += k;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running aggregates over an InventoryStore, maintained by the store on every mutation
+// so summaries cost O(changed rows) instead of a full catalog scan. Per-location totals
+// are LocationStock's, since an item's stock can be spread over several locations.
+// Values are tracked in cents so repeated add/subtract never drifts.
+//
+// Quantity changes may arrive from several threads at once (on different rows), so value
+// totals are LongAdders and the low-stock set is guarded by this object's monitor. Row adds
+// and removals are structural and run exclusively (see InventoryService).
+public class InventoryStats {
+    private final InventoryStore store;
+
+    private final LongAdder totalValueCents = new LongAdder();
+    private final LongAdder totalQuantity = new LongAdder();
+
+    private LongAdder[] categoryValueCents = adders(8);
+    private LongAdder[] categoryQuantities = adders(8);
+    private int[] categoryItemCounts = new int[8];
+
+    // Low-stock rows as a dense array; lowSlot[row] is the row's position in it, or -1
+    private int[] lowRows = new int[16];
+    private int lowCount;
+    private int[] lowSlot = new int[64];
+
+    InventoryStats(InventoryStore store) {
+        this.store = store;
+    }
+
+    public static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    public long getTotalValueCents() { return totalValueCents.sum(); }
+    public double getTotalValue() { return getTotalValueCents() / 100.0; }
+    public long getTotalQuantity() { return totalQuantity.sum(); }
+
+    public long getCategoryValueCents(int code) { return code < categoryValueCents.length ? categoryValueCents[code].sum() : 0; }
+    public long getCategoryQuantity(int code) { return code < categoryQuantities.length ? categoryQuantities[code].sum() : 0; }
+    public int getCategoryItemCount(int code) { return code < categoryItemCounts.length ? categoryItemCounts[code] : 0; }
+
+    public synchronized int getLowStockCount() { return lowCount; }
+
+    // Precomputed on mutation, so painting a row never has to re-derive it
+    public boolean isLowStock(int row) { return lowSlot[row] != -1; }
+
+    // Low-stock rows in ascending row order
+    public synchronized int[] getLowStockRows() {
+        int[] rows = Arrays.copyOf(lowRows, lowCount);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    synchronized void rowAdded(int row) {
+        int qty = store.getQuantity(row);
+        long value = qty * toCents(store.getCostPrice(row));
+        totalValueCents.add(value);
+        totalQuantity.add(qty);
+
+        int cat = store.getCategoryCode(row);
+        ensureCategory(cat);
+        categoryValueCents[cat].add(value);
+        categoryQuantities[cat].add(qty);
+        categoryItemCounts[cat]++;
+
+        if (row >= lowSlot.length) {
+            int oldLen = lowSlot.length;
+            lowSlot = Arrays.copyOf(lowSlot, Math.max(row + 1, oldLen * 2));
+            Arrays.fill(lowSlot, oldLen, lowSlot.length, -1);
+        }
+        lowSlot[row] = -1;
+        if (store.isLowStock(row)) addLow(row);
+    }
+
+    void quantityChanged(int row, int oldQty, int newQty) {
+        long delta = (long) (newQty - oldQty) * toCents(store.getCostPrice(row));
+        totalValueCents.add(delta);
+        totalQuantity.add(newQty - oldQty);
+        int cat = store.getCategoryCode(row);
+        categoryValueCents[cat].add(delta);
+        categoryQuantities[cat].add(newQty - oldQty);
+
+        boolean isLow = newQty <= store.getMinStock(row);
+        if (isLow == (lowSlot[row] != -1)) return;
+        synchronized (this) {
+            boolean wasLow = lowSlot[row] != -1;
+            if (isLow && !wasLow) addLow(row);
+            else if (!isLow && wasLow) removeLow(row);
+        }
+    }
+
+    // Called before the store overwrites 'row' with the contents of 'movedFromRow' (or -1)
+    synchronized void rowRemoving(int row, int movedFromRow) {
+        int qty = store.getQuantity(row);
+        long value = qty * toCents(store.getCostPrice(row));
+        totalValueCents.add(-value);
+        totalQuantity.add(-qty);
+        int cat = store.getCategoryCode(row);
+        categoryValueCents[cat].add(-value);
+        categoryQuantities[cat].add(-qty);
+        categoryItemCounts[cat]--;
+
+        if (lowSlot[row] != -1) removeLow(row);
+        if (movedFromRow != -1) {
+            int slot = lowSlot[movedFromRow];
+            lowSlot[row] = slot;
+            if (slot != -1) lowRows[slot] = row;
+            lowSlot[movedFromRow] = -1;
+        }
+    }
+
+    private void addLow(int row) {
+        if (lowCount == lowRows.length) lowRows = Arrays.copyOf(lowRows, lowCount * 2);
+        lowRows[lowCount] = row;
+        lowSlot[row] = lowCount++;
+    }
+
+    private void removeLow(int row) {
+        int slot = lowSlot[row];
+        int lastRow = lowRows[--lowCount];
+        lowRows[slot] = lastRow;
+        lowSlot[lastRow] = slot;
+        lowSlot[row] = -1;
+    }
+
+    private void ensureCategory(int code) {
+        if (code >= categoryValueCents.length) {
+            int cap = Math.max(code + 1, categoryValueCents.length * 2);
+            categoryValueCents = grow(categoryValueCents, cap);
+            categoryQuantities = grow(categoryQuantities, cap);
+            categoryItemCounts = Arrays.copyOf(categoryItemCounts, cap);
+        }
+    }
+
+    private static LongAdder[] adders(int n) {
+        return grow(new LongAdder[0], n);
+    }
+
+    private static LongAdder[] grow(LongAdder[] adders, int cap) {
+        LongAdder[] grown = Arrays.copyOf(adders, cap);
+        for (int i = adders.length; i < cap; i++) grown[i] = new LongAdder();
+        return grown;
+    }
+}
@@ -0,0 +1,323 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Headless system of record for the inventory. Rows live in an ItemStorage, as primitive
+// columns on the heap or fixed-width records off it; category and location are dictionary-encoded
+// so a row costs a handful of ints/doubles instead of an Object[] of boxed values,
+// and FacetIndex keeps a bitmap of rows per category, per location and for low stock.
+// A row's quantity is its total on hand; LocationStock splits it across locations, with
+// the row's location as the item's home. ChangeFeed publishes every change as a typed event,
+// and StockHistory keeps every stock movement for point-in-time queries.
+//
+// Not locked itself: InventoryService serializes structural changes (add, remove, upsert)
+// against everything else and lets setQuantity run concurrently on different rows, so
+// listeners must tolerate rowUpdated arriving on any thread.
+public class InventoryStore {
+
+    // Notified after each mutation so views (table model, combo boxes, ...) can follow along
+    public interface Listener {
+        void rowsInserted(int firstRow, int lastRow);
+        void rowUpdated(int row);
+        // The quantities of the first 'count' entries of rows (distinct) changed together;
+        // by default replayed as single-row events
+        default void rowsUpdated(int[] rows, int count) {
+            for (int i = 0; i < count; i++) rowUpdated(rows[i]);
+        }
+        // Called while the row's values are still readable, just before it is removed
+        default void rowRemoving(int row) {}
+        // The row was removed; if movedFromRow != -1 the former last row now lives at 'row'
+        void rowRemoved(int row, int movedFromRow);
+        // A batch rewrote the first 'updatedCount' entries of updatedRows in place (same SKU, any
+        // other field may differ) and appended firstInserted..lastInserted (none if first > last).
+        // By default it is replayed as single-row events; views override it to refresh once.
+        default void rowsUpserted(int[] updatedRows, int updatedCount, int firstInserted, int lastInserted) {
+            for (int i = 0; i < updatedCount; i++) rowUpdated(updatedRows[i]);
+            if (firstInserted <= lastInserted) rowsInserted(firstInserted, lastInserted);
+        }
+        // A category or location was added to the given dictionary; existing codes never change
+        default void dictionaryChanged(Dictionary dictionary) {}
+    }
+
+    // Maps a small set of string values to dense int codes and back. Values can be added at
+    // runtime; both tables are replaced on each addition (rare) so lookups never lock.
+    public static class Dictionary {
+        private volatile String[] values = new String[0];
+        private volatile Map<String, Integer> codes = new HashMap<>();
+        private Runnable onAdded;
+
+        public Dictionary(String... initial) {
+            for (String v : initial) encode(v);
+        }
+
+        public int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            synchronized (this) {
+                code = codes.get(value);
+                if (code != null) return code;
+                String[] grown = Arrays.copyOf(values, values.length + 1);
+                grown[values.length] = value;
+                Map<String, Integer> newCodes = new HashMap<>(codes);
+                newCodes.put(value, values.length);
+                codes = newCodes;
+                values = grown;
+                code = grown.length - 1;
+            }
+            if (onAdded != null) onAdded.run();
+            return code;
+        }
+
+        public int codeOf(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        public String decode(int code) { return values[code]; }
+        public int size() { return values.length; }
+        public List<String> values() { return List.of(values); }
+    }
+
+    // Where the rows live; -Dinventory.storage picks the default
+    public enum Storage {
+        HEAP, OFFHEAP;
+
+        public static Storage configured() {
+            return valueOf(System.getProperty("inventory.storage", "HEAP").toUpperCase());
+        }
+    }
+
+    private final Dictionary categories;
+    private final Dictionary locations;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final InventoryStats stats = new InventoryStats(this);
+    private final FacetIndex facets = new FacetIndex(this);
+    private final LocationStock stock = new LocationStock(this);
+    private final ChangeFeed changes = new ChangeFeed(this);
+    private final StockHistory history = new StockHistory();
+    private final Storage storageKind;
+    private final ItemStorage rows;
+
+    public InventoryStore(String[] categories, String[] locations) {
+        this(categories, locations, Storage.configured());
+    }
+
+    public InventoryStore(String[] categories, String[] locations, Storage storage) {
+        this.storageKind = storage;
+        this.rows = storage == Storage.OFFHEAP ? new OffHeapItemStorage() : new HeapItemStorage();
+        this.categories = new Dictionary(categories);
+        this.locations = new Dictionary(locations);
+        this.categories.onAdded = () -> { for (Listener l : listeners) l.dictionaryChanged(this.categories); };
+        this.locations.onAdded = () -> { for (Listener l : listeners) l.dictionaryChanged(this.locations); };
+    }
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    public Dictionary getCategories() { return categories; }
+    public Dictionary getLocations() { return locations; }
+    public InventoryStats getStats() { return stats; }
+    public FacetIndex getFacets() { return facets; }
+    public LocationStock getStock() { return stock; }
+    public ChangeFeed getChanges() { return changes; }
+    public StockHistory getHistory() { return history; }
+
+    public Storage getStorage() { return storageKind; }
+    // Direct memory held by off-heap storage, 0 on the heap
+    public long getOffHeapBytes() { return rows.getOffHeapBytes(); }
+
+    public int size() { return rows.size(); }
+
+    public String getSku(int row) { return rows.getSku(row); }
+    public String getName(int row) { return rows.getName(row); }
+    public int getQuantity(int row) { return rows.getQuantity(row); }
+    public double getCostPrice(int row) { return rows.getCostPrice(row); }
+    public double getSellingPrice(int row) { return rows.getSellingPrice(row); }
+    public int getCategoryCode(int row) { return rows.getCategoryCode(row); }
+    public int getLocationCode(int row) { return rows.getLocationCode(row); }
+    public String getCategory(int row) { return categories.decode(rows.getCategoryCode(row)); }
+    public String getLocation(int row) { return locations.decode(rows.getLocationCode(row)); }
+    public int getMinStock(int row) { return rows.getMinStock(row); }
+    public int getQuantityAt(int row, int locationCode) { return stock.get(row, locationCode); }
+
+    public boolean isLowStock(int row) { return rows.getQuantity(row) <= rows.getMinStock(row); }
+
+    // Row holding the given SKU, or -1
+    public int findBySku(String sku) {
+        return rows.findBySku(sku);
+    }
+
+    // All rows carrying the given item name; callers decide how to treat duplicates
+    public int[] findByName(String name) {
+        return rows.findByName(name);
+    }
+
+    public boolean containsSku(String sku) { return rows.findBySku(sku) != -1; }
+
+    public int addItem(String sku, String name, int qty, double cost, double sell,
+                       String category, String location, int min) {
+        if (containsSku(sku)) {
+            throw new IllegalArgumentException("Duplicate SKU: " + sku);
+        }
+        int row = rows.append(sku, name, qty, cost, sell, categories.encode(category), locations.encode(location), min);
+        stats.rowAdded(row);
+        facets.rowAdded(row);
+        stock.rowAdded(row);
+        history.rowAdded(row, sku, qty, (int) InventoryStats.toCents(cost), min);
+        changes.itemAdded(row);
+        for (Listener l : listeners) l.rowsInserted(row, row);
+        return row;
+    }
+
+    // Appends 'count' rows from parallel column arrays (codes are in this store's dictionaries)
+    // and notifies listeners once for the whole range. Rejects the batch if any SKU already exists.
+    public void appendRows(String[] newSkus, String[] newNames, int[] newQuantities, double[] newCosts, double[] newSells,
+                           int[] newCategoryCodes, int[] newLocationCodes, int[] newMinStocks, int count) {
+        if (count == 0) return;
+        int first = rows.size();
+        rows.appendAll(newSkus, newNames, newQuantities, newCosts, newSells, newCategoryCodes, newLocationCodes, newMinStocks, count);
+        int size = rows.size();
+        for (int row = first; row < size; row++) {
+            stats.rowAdded(row);
+            facets.rowAdded(row);
+            stock.rowAdded(row);
+            history.rowAdded(row, newSkus[row - first], newQuantities[row - first],
+                (int) InventoryStats.toCents(newCosts[row - first]), newMinStocks[row - first]);
+            changes.itemAdded(row);
+        }
+        for (Listener l : listeners) l.rowsInserted(first, size - 1);
+    }
+
+    // Inserts rows whose SKU is new and overwrites the rows whose SKU already exists (a later
+    // entry for the same SKU wins), then notifies listeners once for the whole batch
+    public void upsertRows(String[] newSkus, String[] newNames, int[] newQuantities, double[] newCosts, double[] newSells,
+                           int[] newCategoryCodes, int[] newLocationCodes, int[] newMinStocks, int count) {
+        if (count == 0) return;
+        int first = rows.size();
+        int[] updated = new int[count];
+        int updatedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows.findBySku(newSkus[i]);
+            boolean added = row == -1;
+            int oldQty = 0;
+            boolean wasLow = false;
+            if (added) {
+                row = rows.append(newSkus[i], newNames[i], newQuantities[i], newCosts[i], newSells[i],
+                    newCategoryCodes[i], newLocationCodes[i], newMinStocks[i]);
+            } else {
+                stats.rowRemoving(row, -1);
+                facets.rowRemoving(row, -1);
+                stock.rowRemoving(row, -1);
+                oldQty = rows.getQuantity(row);
+                wasLow = isLowStock(row);
+                rows.update(row, newNames[i], newQuantities[i], newCosts[i], newSells[i],
+                    newCategoryCodes[i], newLocationCodes[i], newMinStocks[i]);
+                if (row < first) updated[updatedCount++] = row;
+            }
+            stats.rowAdded(row);
+            facets.rowAdded(row);
+            stock.rowAdded(row);
+            int costCents = (int) InventoryStats.toCents(newCosts[i]);
+            if (added) history.rowAdded(row, newSkus[i], newQuantities[i], costCents, newMinStocks[i]);
+            else history.rowUpdated(row, newQuantities[i], costCents, newMinStocks[i]);
+            if (added) changes.itemAdded(row);
+            else changes.itemUpdated(row, oldQty, wasLow);
+        }
+        if (updatedCount > 1) {
+            // A SKU repeated within the batch must still be reported once
+            Arrays.sort(updated, 0, updatedCount);
+            int distinct = 1;
+            for (int i = 1; i < updatedCount; i++) {
+                if (updated[i] != updated[distinct - 1]) updated[distinct++] = updated[i];
+            }
+            updatedCount = distinct;
+        }
+        for (Listener l : listeners) l.rowsUpserted(updated, updatedCount, first, rows.size() - 1);
+    }
+
+    public void upsertItem(String sku, String name, int qty, double cost, double sell,
+                           String category, String location, int min) {
+        upsertRows(new String[]{sku}, new String[]{name}, new int[]{qty}, new double[]{cost}, new double[]{sell},
+            new int[]{categories.encode(category)}, new int[]{locations.encode(location)}, new int[]{min}, 1);
+    }
+
+    // Sets the row's total; the difference is made up at its home location
+    public void setQuantity(int row, int qty) {
+        checkRow(row);
+        int oldQty = rows.getQuantity(row);
+        rows.setQuantity(row, qty);
+        stats.quantityChanged(row, oldQty, qty);
+        facets.quantityChanged(row, oldQty, qty);
+        stock.homeChanged(row, qty - oldQty);
+        historyChanged(row, oldQty, qty);
+        changes.quantityChanged(row, oldQty, qty, -1);
+        for (Listener l : listeners) l.rowUpdated(row);
+    }
+
+    // Sets the quantities of 'count' distinct rows (at home, like setQuantity) and notifies
+    // listeners once for all of them
+    public void setQuantities(int[] changedRows, int[] qty, int count) {
+        for (int i = 0; i < count; i++) checkRow(changedRows[i]);
+        for (int i = 0; i < count; i++) {
+            int row = changedRows[i];
+            int oldQty = rows.getQuantity(row);
+            rows.setQuantity(row, qty[i]);
+            stats.quantityChanged(row, oldQty, qty[i]);
+            facets.quantityChanged(row, oldQty, qty[i]);
+            stock.homeChanged(row, qty[i] - oldQty);
+            historyChanged(row, oldQty, qty[i]);
+            changes.quantityChanged(row, oldQty, qty[i], -1);
+        }
+        for (Listener l : listeners) l.rowsUpdated(changedRows, count);
+    }
+
+    // Sets the row's quantity at one location; its total moves by the same amount
+    public void setQuantityAt(int row, int locationCode, int qty) {
+        checkRow(row);
+        int oldQty = rows.getQuantity(row);
+        int newQty = Math.addExact(oldQty, qty - stock.get(row, locationCode));
+        rows.setQuantity(row, newQty);
+        stats.quantityChanged(row, oldQty, newQty);
+        facets.quantityChanged(row, oldQty, newQty);
+        stock.set(row, locationCode, qty);
+        historyChanged(row, oldQty, newQty);
+        changes.quantityChanged(row, oldQty, newQty, locationCode);
+        for (Listener l : listeners) l.rowUpdated(row);
+    }
+
+    // Moves qty units of the row between locations; its total is unchanged
+    public void transfer(int row, int fromLocation, int toLocation, int qty) {
+        checkRow(row);
+        stock.transfer(row, fromLocation, toLocation, qty);
+        changes.transferred(row, fromLocation, toLocation, qty);
+        for (Listener l : listeners) l.rowUpdated(row);
+    }
+
+    // O(1) removal: the last row is moved into the freed slot, so row order is not preserved
+    public void removeRow(int row) {
+        checkRow(row);
+        for (Listener l : listeners) l.rowRemoving(row);
+        changes.itemDeleted(row);
+        int last = rows.size() - 1;
+        stats.rowRemoving(row, row != last ? last : -1);
+        facets.rowRemoving(row, row != last ? last : -1);
+        stock.rowRemoving(row, row != last ? last : -1);
+        history.rowRemoving(row, row != last ? last : -1);
+        rows.remove(row);
+        for (Listener l : listeners) l.rowRemoved(row, row != last ? last : -1);
+    }
+
+    // The history records the row's unit cost and minimum with each movement
+    private void historyChanged(int row, int oldQty, int qty) {
+        history.quantityChanged(row, oldQty, qty, (int) InventoryStats.toCents(rows.getCostPrice(row)), rows.getMinStock(row));
+    }
+
+    private void checkRow(int row) {
+        int size = rows.size();
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + size + ")");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+// Read-only Swing view over an InventoryStore; no row data is copied or boxed until a cell is painted
+public class InventoryTableModel extends AbstractTableModel implements InventoryStore.Listener {
+    public static final int COL_SKU = 0;
+    public static final int COL_NAME = 1;
+    public static final int COL_QUANTITY = 2;
+    public static final int COL_COST = 3;
+    public static final int COL_SELL = 4;
+    public static final int COL_CATEGORY = 5;
+    public static final int COL_LOCATION = 6;
+    public static final int COL_MIN_STOCK = 7;
+
+    private static final int FRAMES_PER_SECOND = 60;
+
+    private final InventoryStore store;
+    private final String[] columnNames;
+    // Quantity changes from service threads are merged here and applied once per frame
+    private final CoalescingTableUpdater updates = new CoalescingTableUpdater(this, FRAMES_PER_SECOND);
+    // EDT only: the quantities as last announced. Service threads change the store at any time,
+    // and a sort that saw a row's value change halfway through would fail, so the table reads
+    // this copy, which only moves when an update event is fired.
+    private int[] shownQuantities = new int[0];
+
+    public InventoryTableModel(InventoryStore store, String[] columnNames) {
+        this.store = store;
+        this.columnNames = columnNames;
+        store.addListener(this);
+        refreshQuantities(0, store.size() - 1);
+    }
+
+    public InventoryStore getStore() { return store; }
+    public CoalescingTableUpdater getUpdates() { return updates; }
+
+    @Override
+    public int getRowCount() { return store.size(); }
+
+    @Override
+    public int getColumnCount() { return columnNames.length; }
+
+    @Override
+    public String getColumnName(int column) { return columnNames[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case COL_QUANTITY:
+            case COL_MIN_STOCK:
+                return Integer.class;
+            case COL_COST:
+            case COL_SELL:
+                return Double.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case COL_SKU: return store.getSku(row);
+            case COL_NAME: return store.getName(row);
+            case COL_QUANTITY: return shownQuantities[row];
+            case COL_COST: return store.getCostPrice(row);
+            case COL_SELL: return store.getSellingPrice(row);
+            case COL_CATEGORY: return store.getCategory(row);
+            case COL_LOCATION: return store.getLocation(row);
+            case COL_MIN_STOCK: return store.getMinStock(row);
+            default: throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    // Every update event, coalesced or not, goes through here, so the copy is refreshed first
+    @Override
+    public void fireTableRowsUpdated(int firstRow, int lastRow) {
+        refreshQuantities(firstRow, lastRow);
+        super.fireTableRowsUpdated(firstRow, lastRow);
+    }
+
+    @Override
+    public void fireTableDataChanged() {
+        refreshQuantities(0, store.size() - 1);
+        super.fireTableDataChanged();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        refreshQuantities(firstRow, lastRow);
+        fireTableRowsInserted(firstRow, lastRow);
+    }
+
+    // Quantity updates may come from service threads and are coalesced per frame; a click on the
+    // EDT is shown at once. Structural events always arrive on the EDT.
+    @Override
+    public void rowUpdated(int row) {
+        if (SwingUtilities.isEventDispatchThread()) fireTableRowsUpdated(row, row);
+        else updates.rowUpdated(row);
+    }
+
+    @Override
+    public void rowsUpdated(int[] rows, int count) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            for (int i = 0; i < count; i++) fireTableRowsUpdated(rows[i], rows[i]);
+        } else {
+            updates.rowsUpdated(rows, count);
+        }
+    }
+
+    // Queued row numbers are only valid until rows move, so apply them first
+    @Override
+    public void rowRemoving(int row) {
+        updates.flush();
+    }
+
+    @Override
+    public void rowsUpserted(int[] updatedRows, int updatedCount, int firstInserted, int lastInserted) {
+        if (updatedCount == 0) {
+            fireTableRowsInserted(firstInserted, lastInserted);
+        } else {
+            // One event for the whole batch instead of one per touched row
+            fireTableDataChanged();
+        }
+    }
+
+    @Override
+    public void rowRemoved(int row, int movedFromRow) {
+        if (movedFromRow == -1) {
+            fireTableRowsDeleted(row, row);
+        } else {
+            fireTableRowsDeleted(movedFromRow, movedFromRow);
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    private void refreshQuantities(int firstRow, int lastRow) {
+        if (lastRow >= shownQuantities.length) {
+            shownQuantities = Arrays.copyOf(shownQuantities, Math.max(lastRow + 1, shownQuantities.length * 2));
+        }
+        for (int row = firstRow; row <= lastRow; row++) shownQuantities[row] = store.getQuantity(row);
+    }
+}
@@ -0,0 +1,147 @@
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.plaf.basic.ComboPopup;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// Combo-box model that reads one column of an InventoryStore directly, so nothing is
+// copied up front and each store mutation becomes a single row-level list event.
+// Quantity changes don't touch SKU or name, so sales and restocks fire nothing here.
+public class ItemComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String>, InventoryStore.Listener {
+    private static final long TYPEAHEAD_WINDOW_MS = 1000;
+    private static final String PROTOTYPE = "XXXXXXXXXXXXXXXXXXXXXXXX";
+
+    private final InventoryStore store;
+    private final IntFunction<String> column;
+    private final ToIntFunction<String> rowOf;
+    private Object selectedItem;
+
+    // Built on first typeahead, then maintained incrementally
+    private PrefixIndex prefixIndex;
+
+    public ItemComboBoxModel(InventoryStore store, IntFunction<String> column, ToIntFunction<String> rowOf) {
+        this.store = store;
+        this.column = column;
+        this.rowOf = rowOf;
+        store.addListener(this);
+    }
+
+    public static ItemComboBoxModel bySku(InventoryStore store) {
+        return new ItemComboBoxModel(store, store::getSku, store::findBySku);
+    }
+
+    public static ItemComboBoxModel byName(InventoryStore store) {
+        return new ItemComboBoxModel(store, store::getName, name -> {
+            int[] rows = store.findByName(name);
+            return rows.length == 0 ? -1 : rows[0];
+        });
+    }
+
+    // Installs the model plus prefix typeahead on a combo box
+    public void install(JComboBox<String> box) {
+        box.setModel(this);
+        // Without a prototype the combo and its popup list measure every item to size themselves
+        box.setPrototypeDisplayValue(PROTOTYPE);
+        applyPopupPrototype(box);
+        box.addPropertyChangeListener("UI", e -> applyPopupPrototype(box));
+        box.setKeySelectionManager(new JComboBox.KeySelectionManager() {
+            private final StringBuilder typed = new StringBuilder();
+            private long lastKeyTime;
+
+            @Override
+            public int selectionForKey(char key, ComboBoxModel<?> model) {
+                long now = System.currentTimeMillis();
+                if (now - lastKeyTime > TYPEAHEAD_WINDOW_MS) typed.setLength(0);
+                lastKeyTime = now;
+                typed.append(key);
+                return rowForPrefix(typed.toString());
+            }
+        });
+    }
+
+    private static void applyPopupPrototype(JComboBox<String> box) {
+        Object popup = box.getUI().getAccessibleChild(box, 0);
+        if (popup instanceof ComboPopup) {
+            ((ComboPopup) popup).getList().setPrototypeCellValue(PROTOTYPE);
+        }
+    }
+
+    // Row of the first item starting with the prefix (case-insensitive), or -1
+    public int rowForPrefix(String prefix) {
+        if (prefixIndex == null) {
+            prefixIndex = new PrefixIndex();
+            for (int i = 0; i < store.size(); i++) prefixIndex.add(column.apply(i));
+        }
+        String match = prefixIndex.firstWithPrefix(prefix);
+        return match == null ? -1 : rowOf.applyAsInt(match);
+    }
+
+    @Override
+    public int getSize() { return store.size(); }
+
+    @Override
+    public String getElementAt(int index) { return column.apply(index); }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if ((selectedItem != null && !selectedItem.equals(item)) || (selectedItem == null && item != null)) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() { return selectedItem; }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        if (prefixIndex != null) {
+            for (int i = firstRow; i <= lastRow; i++) prefixIndex.add(column.apply(i));
+        }
+        // Match DefaultComboBoxModel: the first item added to an empty list becomes the selection
+        if (selectedItem == null && firstRow == 0) {
+            selectedItem = column.apply(0);
+        }
+        fireIntervalAdded(this, firstRow, lastRow);
+    }
+
+    @Override
+    public void rowUpdated(int row) {
+        // SKU and name are immutable per row, so quantity updates don't affect the list
+    }
+
+    @Override
+    public void rowsUpserted(int[] updatedRows, int updatedCount, int firstInserted, int lastInserted) {
+        if (updatedCount > 0) {
+            // Names may have changed in place; the prefix index is rebuilt on the next typeahead
+            prefixIndex = null;
+            fireContentsChanged(this, updatedRows[0], updatedRows[updatedCount - 1]);
+            if (selectedItem != null && rowOf.applyAsInt((String) selectedItem) == -1) {
+                selectedItem = column.apply(updatedRows[0]);
+                fireContentsChanged(this, -1, -1);
+            }
+        }
+        if (firstInserted <= lastInserted) rowsInserted(firstInserted, lastInserted);
+    }
+
+    @Override
+    public void rowRemoving(int row) {
+        if (prefixIndex != null) prefixIndex.remove(column.apply(row));
+    }
+
+    @Override
+    public void rowRemoved(int row, int movedFromRow) {
+        if (movedFromRow == -1) {
+            fireIntervalRemoved(this, row, row);
+        } else {
+            fireIntervalRemoved(this, movedFromRow, movedFromRow);
+            fireContentsChanged(this, row, row);
+        }
+        // Keep the selection unless its item is gone
+        if (selectedItem != null && rowOf.applyAsInt((String) selectedItem) == -1) {
+            selectedItem = store.size() > 0 ? column.apply(0) : null;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+// Where InventoryStore keeps its rows: one column per field plus the SKU and name indexes over
+// them. Rows are dense, 0..size()-1; removing one moves the last row into its place. Category and
+// location are already dictionary codes here.
+//
+// HeapItemStorage is the default. OffHeapItemStorage keeps records and strings in direct memory,
+// for catalogs large enough that a few million SKU and name Strings make every GC expensive.
+//
+// Same threading contract as InventoryStore: quantities may be set concurrently on different
+// rows; everything else runs exclusively.
+interface ItemStorage {
+    int size();
+
+    String getSku(int row);
+    String getName(int row);
+    int getQuantity(int row);
+    double getCostPrice(int row);
+    double getSellingPrice(int row);
+    int getCategoryCode(int row);
+    int getLocationCode(int row);
+    int getMinStock(int row);
+
+    // Row holding the given SKU, or -1
+    int findBySku(String sku);
+
+    // Every row carrying the given name, as a fresh array
+    int[] findByName(String name);
+
+    // Appends a row whose SKU the caller has checked is new; returns the row
+    int append(String sku, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min);
+
+    // Appends 'count' rows from parallel columns. If any SKU already exists or repeats within the
+    // batch, throws IllegalArgumentException and leaves the storage as it was.
+    void appendAll(String[] skus, String[] names, int[] quantities, double[] costs, double[] sells,
+                   int[] categoryCodes, int[] locationCodes, int[] minStocks, int count);
+
+    // Rewrites every field but the SKU
+    void update(int row, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min);
+
+    void setQuantity(int row, int qty);
+
+    // Removes the row; the last row, if another, moves into its place
+    void remove(int row);
+
+    // Direct memory held, for diagnostics (0 for heap storage)
+    long getOffHeapBytes();
+}
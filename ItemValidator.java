@@ -0,0 +1,71 @@
+// Field validation shared by the Entry tab and bulk import, so both accept exactly the same items.
+// Categories and locations are checked against the store's dictionaries, so values defined at
+// runtime are accepted at once; dictionary lookups never lock, so import workers can share one instance.
+public class ItemValidator {
+
+    // A validated item, ready for the store
+    public static class Item {
+        public final String name;
+        public final int quantity;
+        public final double costPrice;
+        public final double sellingPrice;
+        public final String category;
+        public final String location;
+        public final int minStock;
+
+        Item(String name, int quantity, double costPrice, double sellingPrice, String category, String location, int minStock) {
+            this.name = name;
+            this.quantity = quantity;
+            this.costPrice = costPrice;
+            this.sellingPrice = sellingPrice;
+            this.category = category;
+            this.location = location;
+            this.minStock = minStock;
+        }
+    }
+
+    private final InventoryStore.Dictionary categories;
+    private final InventoryStore.Dictionary locations;
+
+    public ItemValidator(String[] categories, String[] locations) {
+        this(new InventoryStore.Dictionary(categories), new InventoryStore.Dictionary(locations));
+    }
+
+    public ItemValidator(InventoryStore.Dictionary categories, InventoryStore.Dictionary locations) {
+        this.categories = categories;
+        this.locations = locations;
+    }
+
+    // Parses the raw field text; throws IllegalArgumentException with a message fit for the user
+    public Item parse(String name, String qtyStr, String costStr, String sellStr,
+                      String category, String location, String minStr) {
+        name = name == null ? "" : name.trim();
+        qtyStr = qtyStr == null ? "" : qtyStr.trim();
+        costStr = costStr == null ? "" : costStr.trim();
+        sellStr = sellStr == null ? "" : sellStr.trim();
+        minStr = minStr == null ? "" : minStr.trim();
+        if (name.isEmpty() || qtyStr.isEmpty() || costStr.isEmpty() || sellStr.isEmpty() || minStr.isEmpty()) {
+            throw new IllegalArgumentException("Please fill all fields!");
+        }
+        int qty, min;
+        double cost, sell;
+        try {
+            qty = Integer.parseInt(qtyStr);
+            min = Integer.parseInt(minStr);
+            cost = Double.parseDouble(costStr);
+            sell = Double.parseDouble(sellStr);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid numeric values. All must be positive.");
+        }
+        if (qty < 0 || min < 0 || !(cost >= 0) || !(sell >= 0) || Double.isInfinite(cost) || Double.isInfinite(sell)) {
+            throw new IllegalArgumentException("Invalid numeric values. All must be positive.");
+        }
+        if (category == null || categories.codeOf(category) == -1) {
+            throw new IllegalArgumentException("Unknown category: " + category);
+        }
+        if (location == null || locations.codeOf(location) == -1) {
+            throw new IllegalArgumentException("Unknown location: " + location);
+        }
+        return new Item(name, qty, cost, sell, category, location, min);
+    }
+}
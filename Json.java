@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough JSON for the HTTP API: a streaming writer that appends straight into a
+// StringBuilder, and a parser for request objects. No reflection and no object tree, so a
+// request costs the bytes it reads and writes plus a small map per object.
+public final class Json {
+
+    private Json() {}
+
+    // Appends values in document order; commas are inserted automatically
+    public static final class Writer {
+        private final StringBuilder out;
+        private boolean needComma;
+
+        public Writer(StringBuilder out) {
+            this.out = out;
+        }
+
+        public Writer beginObject() { separate(); out.append('{'); needComma = false; return this; }
+        public Writer endObject() { out.append('}'); needComma = true; return this; }
+        public Writer beginArray() { separate(); out.append('['); needComma = false; return this; }
+        public Writer endArray() { out.append(']'); needComma = true; return this; }
+
+        public Writer name(String name) {
+            separate();
+            quote(name);
+            out.append(':');
+            needComma = false;
+            return this;
+        }
+
+        public Writer value(String value) {
+            separate();
+            if (value == null) out.append("null");
+            else quote(value);
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(long value) {
+            separate();
+            out.append(value);
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(boolean value) {
+            separate();
+            out.append(value);
+            needComma = true;
+            return this;
+        }
+
+        // A money amount as a plain decimal number with two places
+        public Writer cents(long cents) {
+            separate();
+            CsvExporter.appendCents(out, cents);
+            needComma = true;
+            return this;
+        }
+
+        public Writer field(String name, String value) { return name(name).value(value); }
+        public Writer field(String name, long value) { return name(name).value(value); }
+        public Writer field(String name, boolean value) { return name(name).value(value); }
+        public Writer centsField(String name, long cents) { return name(name).cents(cents); }
+
+        private void separate() {
+            if (needComma) out.append(',');
+        }
+
+        private void quote(String s) {
+            out.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.append("\\u00");
+                            out.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    // Parses an object ({"name": "Pen", "quantity": 5, ...}) into its members' text: strings
+    // unescaped, numbers and booleans as written, null as null, and nested arrays or objects as
+    // their raw JSON (see parseArray). Throws IllegalArgumentException on malformed input.
+    public static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        p.skipSpace();
+        Map<String, String> members = p.object();
+        p.end();
+        return members;
+    }
+
+    // Parses an array of objects ([{"sku": "UQ001", "quantity": 2}, ...]) as parseObject does
+    public static List<Map<String, String>> parseArray(String text) {
+        if (text == null) throw new IllegalArgumentException("Expected an array");
+        Parser p = new Parser(text);
+        List<Map<String, String>> elements = new ArrayList<>();
+        p.skipSpace();
+        p.expect('[');
+        p.skipSpace();
+        if (p.peek() == ']') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipSpace();
+                elements.add(p.object());
+                p.skipSpace();
+                char c = p.next();
+                if (c == ']') break;
+                if (c != ',') throw p.error("Expected ',' or ']'");
+            }
+        }
+        p.end();
+        return elements;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> members = new HashMap<>();
+            expect('{');
+            skipSpace();
+            if (peek() == '}') {
+                pos++;
+                return members;
+            }
+            while (true) {
+                skipSpace();
+                String name = string();
+                skipSpace();
+                expect(':');
+                skipSpace();
+                members.put(name, value());
+                skipSpace();
+                char c = next();
+                if (c == '}') return members;
+                if (c != ',') throw error("Expected ',' or '}'");
+            }
+        }
+
+        void end() {
+            skipSpace();
+            if (pos != text.length()) throw error("Unexpected trailing content");
+        }
+
+        char peek() {
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char c) {
+            if (next() != c) throw error("Expected '" + c + "'");
+        }
+
+        void skipSpace() {
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+                pos++;
+            }
+        }
+
+        String value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '{' || c == '[') return raw();
+            int start = pos;
+            while (pos < text.length()) {
+                c = text.charAt(pos);
+                if (c == ',' || c == '}' || c == ' ' || c == '\t' || c == '\n' || c == '\r') break;
+                pos++;
+            }
+            if (start == pos) throw error("Expected a value");
+            String literal = text.substring(start, pos);
+            return literal.equals("null") ? null : literal;
+        }
+
+        // The text of a nested array or object, brackets balanced outside strings
+        String raw() {
+            int start = pos;
+            int depth = 0;
+            do {
+                char c = next();
+                if (c == '"') {
+                    pos--;
+                    string();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+            return text.substring(start, pos);
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = null;
+            int start = pos;
+            while (true) {
+                char c = next();
+                if (c == '"') break;
+                if (c != '\\') {
+                    if (sb != null) sb.append(c);
+                    continue;
+                }
+                if (sb == null) sb = new StringBuilder(text.substring(start, pos - 1));
+                char e = next();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("Bad \\u escape");
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("Bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: throw error("Bad escape");
+                }
+            }
+            return sb == null ? text.substring(start, pos - 1) : sb.toString();
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Quantity of every item per location. A row's quantity in InventoryStore is its total on hand
+// across locations; this splits it up. The row's own location is the item's home: new items and
+// imports are stocked there, and restocks and sales that name no location go there.
+//
+// Storage is partitioned by location code. Each partition is a row -> quantity hash table with
+// its own lock and running totals (on hand, value, lines, low-stock lines), so warehouses are
+// updated and summarized independently: a sale at Warehouse A never waits on a restock at
+// Warehouse B, and a location's roll-up is a read of its counters, not a scan. A line is an item
+// stocked at a location; the home line is kept at zero, other lines go away when emptied. A line
+// is low when its quantity is at or below the item's minimum.
+//
+// Changes to one row are serialized by the caller (the SKU's stripe) and structural changes run
+// exclusively (see InventoryService). A transfer holds both partitions' locks and the all-location
+// roll-up holds every one, always taken in code order, so no roll-up sees a transfer half done.
+public class LocationStock {
+
+    // One location's roll-up; locationCode is FacetIndex.ANY for all locations together
+    public static final class Summary {
+        public final int locationCode;
+        public final int items;
+        public final long onHand;
+        public final long valueCents;
+        public final int lowStock;
+
+        Summary(int locationCode, int items, long onHand, long valueCents, int lowStock) {
+            this.locationCode = locationCode;
+            this.items = items;
+            this.onHand = onHand;
+            this.valueCents = valueCents;
+            this.lowStock = lowStock;
+        }
+    }
+
+    private static final class Partition {
+        final ReentrantLock lock = new ReentrantLock();
+        // Open addressing with linear probing; an empty slot holds row -1
+        int[] rows = emptyTable(16);
+        int[] quantities = new int[16];
+        int lines;
+        long onHand;
+        long valueCents;
+        int lowLines;
+
+        int slot(int row) {
+            int mask = rows.length - 1;
+            for (int i = hash(row) & mask; ; i = (i + 1) & mask) {
+                if (rows[i] == row) return i;
+                if (rows[i] == -1) return -1;
+            }
+        }
+
+        void insert(int row, int qty) {
+            if ((lines + 1) * 4 > rows.length * 3) rehash(rows.length * 2);
+            int mask = rows.length - 1;
+            int i = hash(row) & mask;
+            while (rows[i] != -1) i = (i + 1) & mask;
+            rows[i] = row;
+            quantities[i] = qty;
+        }
+
+        // Backward-shift deletion, so lookups never need tombstones
+        void delete(int slot) {
+            int mask = rows.length - 1;
+            int hole = slot;
+            for (int i = (slot + 1) & mask; rows[i] != -1; i = (i + 1) & mask) {
+                int home = hash(rows[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    rows[hole] = rows[i];
+                    quantities[hole] = quantities[i];
+                    hole = i;
+                }
+            }
+            rows[hole] = -1;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldRows = rows;
+            int[] oldQuantities = quantities;
+            rows = emptyTable(capacity);
+            quantities = new int[capacity];
+            int mask = capacity - 1;
+            for (int s = 0; s < oldRows.length; s++) {
+                if (oldRows[s] == -1) continue;
+                int i = hash(oldRows[s]) & mask;
+                while (rows[i] != -1) i = (i + 1) & mask;
+                rows[i] = oldRows[s];
+                quantities[i] = oldQuantities[s];
+            }
+        }
+
+        private static int hash(int row) {
+            int h = row * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static int[] emptyTable(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, -1);
+            return table;
+        }
+    }
+
+    private final InventoryStore store;
+    // Indexed by location code; grows when a location is first stocked
+    private volatile Partition[] partitions = new Partition[0];
+
+    LocationStock(InventoryStore store) {
+        this.store = store;
+    }
+
+    // Quantity of the row at the location (0 if not stocked there)
+    public int get(int row, int locationCode) {
+        Partition p = existing(locationCode);
+        if (p == null) return 0;
+        p.lock.lock();
+        try {
+            int slot = p.slot(row);
+            return slot == -1 ? 0 : p.quantities[slot];
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // The row's quantity at every location, indexed by location code
+    public int[] quantities(int row) {
+        int[] result = new int[store.getLocations().size()];
+        for (int code = 0; code < result.length; code++) result[code] = get(row, code);
+        return result;
+    }
+
+    // Roll-up of one location
+    public Summary summary(int locationCode) {
+        Partition p = existing(locationCode);
+        if (p == null) return new Summary(locationCode, 0, 0, 0, 0);
+        p.lock.lock();
+        try {
+            return new Summary(locationCode, p.lines, p.onHand, p.valueCents, p.lowLines);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // Roll-up of every location, indexed by location code
+    public Summary[] summaries() {
+        Summary[] result = new Summary[store.getLocations().size()];
+        for (int code = 0; code < result.length; code++) result[code] = summary(code);
+        return result;
+    }
+
+    // All locations together: items and low stock count each item once, by its total on hand
+    public Summary total() {
+        Partition[] all = partitions;
+        for (Partition p : all) p.lock.lock();
+        try {
+            long onHand = 0;
+            long valueCents = 0;
+            for (Partition p : all) {
+                onHand += p.onHand;
+                valueCents += p.valueCents;
+            }
+            return new Summary(FacetIndex.ANY, store.size(), onHand, valueCents, store.getStats().getLowStockCount());
+        } finally {
+            for (int i = all.length - 1; i >= 0; i--) all[i].lock.unlock();
+        }
+    }
+
+    // Every line away from its item's home, as {rows, location codes, quantities}
+    int[][] awayLines() {
+        int[] rows = new int[16];
+        int[] codes = new int[16];
+        int[] quantities = new int[16];
+        int n = 0;
+        Partition[] all = partitions;
+        for (int code = 0; code < all.length; code++) {
+            Partition p = all[code];
+            p.lock.lock();
+            try {
+                for (int s = 0; s < p.rows.length; s++) {
+                    int row = p.rows[s];
+                    if (row == -1 || store.getLocationCode(row) == code) continue;
+                    if (n == rows.length) {
+                        rows = Arrays.copyOf(rows, n * 2);
+                        codes = Arrays.copyOf(codes, n * 2);
+                        quantities = Arrays.copyOf(quantities, n * 2);
+                    }
+                    rows[n] = row;
+                    codes[n] = code;
+                    quantities[n++] = p.quantities[s];
+                }
+            } finally {
+                p.lock.unlock();
+            }
+        }
+        return new int[][]{Arrays.copyOf(rows, n), Arrays.copyOf(codes, n), Arrays.copyOf(quantities, n)};
+    }
+
+    // The row was added (or rewritten by an upsert) with all of its stock at home
+    void rowAdded(int row) {
+        Partition p = partition(store.getLocationCode(row));
+        p.lock.lock();
+        try {
+            set(p, row, store.getQuantity(row), true);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // The row's total changed by 'delta', all of it at home
+    void homeChanged(int row, int delta) {
+        if (delta == 0) return;
+        Partition p = partition(store.getLocationCode(row));
+        p.lock.lock();
+        try {
+            int slot = p.slot(row);
+            set(p, row, (slot == -1 ? 0 : p.quantities[slot]) + delta, true);
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    void set(int row, int locationCode, int qty) {
+        Partition p = partition(locationCode);
+        p.lock.lock();
+        try {
+            set(p, row, qty, locationCode == store.getLocationCode(row));
+        } finally {
+            p.lock.unlock();
+        }
+    }
+
+    // Moves qty units of the row; the caller has checked 'from' holds them
+    void transfer(int row, int from, int to, int qty) {
+        Partition source = partition(from);
+        Partition target = partition(to);
+        int home = store.getLocationCode(row);
+        ReentrantLock first = from < to ? source.lock : target.lock;
+        ReentrantLock second = from < to ? target.lock : source.lock;
+        first.lock();
+        second.lock();
+        try {
+            int slot = source.slot(row);
+            int available = slot == -1 ? 0 : source.quantities[slot];
+            if (qty > available) throw new IllegalStateException("Transfer exceeds stock at the source location.");
+            set(source, row, available - qty, from == home);
+            slot = target.slot(row);
+            set(target, row, Math.addExact(slot == -1 ? 0 : target.quantities[slot], qty), to == home);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    // Called before the store overwrites 'row' with the contents of 'movedFromRow' (or -1)
+    void rowRemoving(int row, int movedFromRow) {
+        for (Partition p : partitions) {
+            p.lock.lock();
+            try {
+                set(p, row, 0, false);
+                if (movedFromRow != -1) {
+                    int slot = p.slot(movedFromRow);
+                    if (slot != -1) {
+                        int qty = p.quantities[slot];
+                        p.delete(slot);
+                        p.insert(row, qty);
+                    }
+                }
+            } finally {
+                p.lock.unlock();
+            }
+        }
+    }
+
+    // Sets the row's line in p and keeps p's totals; the caller holds p's lock
+    private void set(Partition p, int row, int qty, boolean home) {
+        int slot = p.slot(row);
+        int old = 0;
+        int min = store.getMinStock(row);
+        if (slot != -1) {
+            old = p.quantities[slot];
+            p.lines--;
+            if (old <= min) p.lowLines--;
+        }
+        p.onHand += qty - old;
+        p.valueCents += (long) (qty - old) * InventoryStats.toCents(store.getCostPrice(row));
+        if (qty == 0 && !home) {
+            if (slot != -1) p.delete(slot);
+            return;
+        }
+        if (slot == -1) p.insert(row, qty);
+        else p.quantities[slot] = qty;
+        p.lines++;
+        if (qty <= min) p.lowLines++;
+    }
+
+    private Partition existing(int locationCode) {
+        Partition[] all = partitions;
+        return locationCode >= 0 && locationCode < all.length ? all[locationCode] : null;
+    }
+
+    // Partitions are created on first use, possibly by sales on different stripes at once
+    private Partition partition(int locationCode) {
+        Partition p = existing(locationCode);
+        if (p != null) return p;
+        synchronized (this) {
+            Partition[] all = partitions;
+            if (locationCode < all.length) return all[locationCode];
+            Partition[] grown = Arrays.copyOf(all, locationCode + 1);
+            for (int code = all.length; code < grown.length; code++) grown[code] = new Partition();
+            partitions = grown;
+            return grown[locationCode];
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// ItemStorage in direct memory: a fixed 48-byte record per row in pages of 16384 rows, with SKU
+// and name in a StringArena. The record is
+//
+//   0 SKU ref (long)   8 name ref (long)   16 quantity   20 category code   24 location code
+//   28 min stock       32 cost price (double)   40 selling price (double)
+//
+// The indexes hold only row numbers and hashes, so a catalog of any size leaves a handful of
+// arrays on the heap instead of two Strings per row. Reading a SKU or name decodes a new String;
+// the indexes and equality checks compare bytes in place.
+class OffHeapItemStorage implements ItemStorage {
+    private static final int RECORD = 48;
+    private static final int SKU = 0;
+    private static final int NAME = 8;
+    private static final int QUANTITY = 16;
+    private static final int CATEGORY = 20;
+    private static final int LOCATION = 24;
+    private static final int MIN_STOCK = 28;
+    private static final int COST = 32;
+    private static final int SELL = 40;
+    private static final int PAGE_BITS = 14;
+    private static final int PAGE_ROWS = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_ROWS - 1;
+
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    private StringArena strings = new StringArena();
+    private RowHashIndex skuIndex = new RowHashIndex(64, this::skuEquals);
+    // Built on first name lookup, as in HeapItemStorage
+    private volatile RowHashIndex nameIndex;
+    private int size;
+
+    @Override public int size() { return size; }
+
+    @Override public String getSku(int row) { return strings.get(page(row).getLong(at(row, SKU))); }
+    @Override public String getName(int row) { return strings.get(page(row).getLong(at(row, NAME))); }
+    @Override public int getQuantity(int row) { return page(row).getInt(at(row, QUANTITY)); }
+    @Override public double getCostPrice(int row) { return page(row).getDouble(at(row, COST)); }
+    @Override public double getSellingPrice(int row) { return page(row).getDouble(at(row, SELL)); }
+    @Override public int getCategoryCode(int row) { return page(row).getInt(at(row, CATEGORY)); }
+    @Override public int getLocationCode(int row) { return page(row).getInt(at(row, LOCATION)); }
+    @Override public int getMinStock(int row) { return page(row).getInt(at(row, MIN_STOCK)); }
+
+    @Override
+    public int findBySku(String sku) {
+        return skuIndex.get(sku);
+    }
+
+    @Override
+    public int[] findByName(String name) {
+        RowHashIndex index = nameIndex;
+        if (index == null) index = buildNameIndex();
+        int[] rows = index.getAll(name);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    @Override
+    public int append(String sku, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        ensureCapacity(size + 1);
+        int row = size;
+        page(row).putLong(at(row, SKU), strings.add(sku));
+        page(row).putLong(at(row, NAME), strings.add(name));
+        write(row, qty, cost, sell, categoryCode, locationCode, min);
+        size++;
+        skuIndex.add(sku, row);
+        if (nameIndex != null) nameIndex.add(name, row);
+        return row;
+    }
+
+    @Override
+    public void appendAll(String[] newSkus, String[] newNames, int[] newQuantities, double[] newCosts, double[] newSells,
+                          int[] newCategoryCodes, int[] newLocationCodes, int[] newMinStocks, int count) {
+        int first = size;
+        if (first == 0) {
+            skuIndex = new RowHashIndex(count, this::skuEquals);
+            nameIndex = null;
+        }
+        ensureCapacity(size + count);
+        // The index compares against stored SKUs, so the records go in first, past the end
+        for (int i = 0; i < count; i++) {
+            int row = first + i;
+            page(row).putLong(at(row, SKU), strings.add(newSkus[i]));
+            page(row).putLong(at(row, NAME), strings.add(newNames[i]));
+            write(row, newQuantities[i], newCosts[i], newSells[i], newCategoryCodes[i], newLocationCodes[i], newMinStocks[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            if (skuIndex.get(newSkus[i]) != -1) {
+                for (int j = 0; j < i; j++) skuIndex.remove(newSkus[j], first + j);
+                for (int row = first; row < first + count; row++) freeStrings(row);
+                throw new IllegalArgumentException("Duplicate SKU: " + newSkus[i]);
+            }
+            skuIndex.add(newSkus[i], first + i);
+        }
+        size += count;
+        RowHashIndex names = nameIndex;
+        if (names != null) {
+            for (int i = 0; i < count; i++) names.add(newNames[i], first + i);
+        }
+    }
+
+    @Override
+    public void update(int row, String name, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        // Re-imports mostly leave names alone; keep the stored copy then
+        if (!nameEquals(row, name)) {
+            if (nameIndex != null) nameIndex.remove(getName(row), row);
+            strings.free(page(row).getLong(at(row, NAME)));
+            page(row).putLong(at(row, NAME), strings.add(name));
+            if (nameIndex != null) nameIndex.add(name, row);
+            compactIfSparse();
+        }
+        write(row, qty, cost, sell, categoryCode, locationCode, min);
+    }
+
+    @Override
+    public void setQuantity(int row, int qty) {
+        page(row).putInt(at(row, QUANTITY), qty);
+    }
+
+    @Override
+    public void remove(int row) {
+        int last = size - 1;
+        skuIndex.remove(getSku(row), row);
+        if (nameIndex != null) nameIndex.remove(getName(row), row);
+        freeStrings(row);
+        if (row != last) {
+            page(row).put(at(row, 0), page(last), at(last, 0), RECORD);
+            skuIndex.move(getSku(row), last, row);
+            if (nameIndex != null) nameIndex.move(getName(row), last, row);
+        }
+        size = last;
+        compactIfSparse();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        return (long) pages.length * PAGE_ROWS * RECORD + strings.getAllocatedBytes();
+    }
+
+    private boolean skuEquals(int row, String sku) {
+        return strings.equals(page(row).getLong(at(row, SKU)), sku);
+    }
+
+    private boolean nameEquals(int row, String name) {
+        return strings.equals(page(row).getLong(at(row, NAME)), name);
+    }
+
+    private void write(int row, int qty, double cost, double sell, int categoryCode, int locationCode, int min) {
+        ByteBuffer page = page(row);
+        page.putInt(at(row, QUANTITY), qty);
+        page.putInt(at(row, CATEGORY), categoryCode);
+        page.putInt(at(row, LOCATION), locationCode);
+        page.putInt(at(row, MIN_STOCK), min);
+        page.putDouble(at(row, COST), cost);
+        page.putDouble(at(row, SELL), sell);
+    }
+
+    private void freeStrings(int row) {
+        strings.free(page(row).getLong(at(row, SKU)));
+        strings.free(page(row).getLong(at(row, NAME)));
+    }
+
+    // Once removed and renamed rows leave more garbage than live strings, copy the live ones
+    // into a fresh arena; the old chunks go when their buffers are collected
+    private void compactIfSparse() {
+        if (strings.getFreedBytes() <= strings.getLiveBytes() || strings.getFreedBytes() < 1 << 20) return;
+        StringArena fresh = new StringArena();
+        for (int row = 0; row < size; row++) {
+            ByteBuffer page = page(row);
+            page.putLong(at(row, SKU), fresh.copy(strings, page.getLong(at(row, SKU))));
+            page.putLong(at(row, NAME), fresh.copy(strings, page.getLong(at(row, NAME))));
+        }
+        strings = fresh;
+    }
+
+    // Concurrent lookups may race to build it; the index is published only once complete
+    private synchronized RowHashIndex buildNameIndex() {
+        if (nameIndex != null) return nameIndex;
+        RowHashIndex index = new RowHashIndex(size, this::nameEquals);
+        for (int row = 0; row < size; row++) index.add(getName(row), row);
+        nameIndex = index;
+        return index;
+    }
+
+    private ByteBuffer page(int row) {
+        return pages[row >>> PAGE_BITS];
+    }
+
+    private static int at(int row, int field) {
+        return (row & PAGE_MASK) * RECORD + field;
+    }
+
+    private void ensureCapacity(int needed) {
+        int pageCount = (needed + PAGE_ROWS - 1) >>> PAGE_BITS;
+        if (pageCount <= pages.length) return;
+        ByteBuffer[] grown = Arrays.copyOf(pages, pageCount);
+        for (int p = pages.length; p < pageCount; p++) {
+            grown[p] = ByteBuffer.allocateDirect(PAGE_ROWS * RECORD).order(ByteOrder.nativeOrder());
+        }
+        pages = grown;
+    }
+}
@@ -0,0 +1,179 @@
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Latency and outcome of every inventory operation, plus how responsive the EDT is. Callers
+// take System.nanoTime() before the operation and call record() after it; that path allocates
+// nothing and takes no lock, so it is cheap enough for every sale. Readers (the Diagnostics
+// tab, JMX) get Stats copies.
+public class OperationMetrics implements OperationMetricsMXBean {
+    public static final String OBJECT_NAME = "inventory:type=OperationMetrics";
+    private static final int RECENT_STALLS = 16;
+
+    public enum Operation {
+        ADD(true), RESTOCK(true), SALE(true), ORDER(true), TRANSFER(true), DELETE(true), IMPORT(true),
+        FILTER(false), SUMMARY(false), EXPORT(false);
+
+        final boolean mutation;
+
+        Operation(boolean mutation) {
+            this.mutation = mutation;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    // One operation's numbers at the time of the call; times in milliseconds
+    public static final class Stats {
+        private final String operation;
+        private final long count;
+        private final long errors;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double maxMillis;
+
+        @ConstructorProperties({"operation", "count", "errors", "meanMillis", "p50Millis", "p99Millis", "p999Millis", "maxMillis"})
+        public Stats(String operation, long count, long errors, double meanMillis, double p50Millis, double p99Millis,
+                     double p999Millis, double maxMillis) {
+            this.operation = operation;
+            this.count = count;
+            this.errors = errors;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.p999Millis = p999Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public String getOperation() { return operation; }
+        public long getCount() { return count; }
+        public long getErrors() { return errors; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getP999Millis() { return p999Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final AtomicLongArray errors = new AtomicLongArray(OPERATIONS.length);
+    private final LatencyHistogram edtLatency = new LatencyHistogram();
+    private final AtomicLong edtStalls = new AtomicLong();
+    // Newest last; guarded by itself
+    private final String[] recentStalls = new String[RECENT_STALLS];
+    private int stallCount;
+
+    public OperationMetrics() {
+        for (int i = 0; i < latencies.length; i++) latencies[i] = new LatencyHistogram();
+    }
+
+    // startNanos is System.nanoTime() from just before the operation; failed if it threw
+    public void record(Operation op, long startNanos, boolean failed) {
+        latencies[op.ordinal()].record(System.nanoTime() - startNanos);
+        if (failed) errors.incrementAndGet(op.ordinal());
+    }
+
+    public LatencyHistogram getLatency(Operation op) { return latencies[op.ordinal()]; }
+    public long getErrors(Operation op) { return errors.get(op.ordinal()); }
+
+    // How long a task posted to the EDT waited to run
+    public void recordEdtLatency(long nanos) {
+        edtLatency.record(nanos);
+    }
+
+    // stack is the EDT's stack sampled while it was blocked
+    public void recordEdtStall(long startMillis, long durationNanos, StackTraceElement[] stack) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Instant.ofEpochMilli(startMillis)).append("  EDT blocked ")
+          .append(durationNanos / 1_000_000).append(" ms\n");
+        for (StackTraceElement frame : stack) sb.append("    at ").append(frame).append('\n');
+        edtStalls.incrementAndGet();
+        synchronized (recentStalls) {
+            if (stallCount == RECENT_STALLS) {
+                System.arraycopy(recentStalls, 1, recentStalls, 0, RECENT_STALLS - 1);
+                stallCount--;
+            }
+            recentStalls[stallCount++] = sb.toString();
+        }
+    }
+
+    public Stats getStats(Operation op) {
+        LatencyHistogram h = latencies[op.ordinal()];
+        return new Stats(op.name().toLowerCase(), h.getCount(), errors.get(op.ordinal()), h.getMeanNanos() / 1e6,
+            h.getPercentileNanos(0.50) / 1e6, h.getPercentileNanos(0.99) / 1e6, h.getPercentileNanos(0.999) / 1e6,
+            h.getMaxNanos() / 1e6);
+    }
+
+    @Override
+    public Stats[] getOperations() {
+        Stats[] stats = new Stats[OPERATIONS.length];
+        for (int i = 0; i < stats.length; i++) stats[i] = getStats(OPERATIONS[i]);
+        return stats;
+    }
+
+    // Mutations that went through
+    @Override
+    public long getMutationCount() {
+        long n = 0;
+        for (Operation op : OPERATIONS) {
+            if (op.mutation) n += latencies[op.ordinal()].getCount() - errors.get(op.ordinal());
+        }
+        return n;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long n = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) n += errors.get(i);
+        return n;
+    }
+
+    @Override
+    public long getEdtStallCount() { return edtStalls.get(); }
+
+    @Override
+    public double getEdtLatencyP99Millis() { return edtLatency.getPercentileNanos(0.99) / 1e6; }
+
+    @Override
+    public double getEdtLatencyMaxMillis() { return edtLatency.getMaxNanos() / 1e6; }
+
+    // Newest first
+    @Override
+    public String[] getRecentEdtStalls() {
+        synchronized (recentStalls) {
+            String[] stalls = new String[stallCount];
+            for (int i = 0; i < stallCount; i++) stalls[i] = recentStalls[stallCount - 1 - i];
+            return stalls;
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i].reset();
+            errors.set(i, 0);
+        }
+        edtLatency.reset();
+        edtStalls.set(0);
+        synchronized (recentStalls) {
+            stallCount = 0;
+        }
+    }
+
+    // Publishes these metrics on the platform MBean server. Returns null, or why that was not
+    // possible (e.g. another instance is already registered).
+    public String registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            return null;
+        } catch (JMException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+// JMX view of OperationMetrics, registered as inventory:type=OperationMetrics
+public interface OperationMetricsMXBean {
+    OperationMetrics.Stats[] getOperations();
+    long getMutationCount();
+    long getErrorCount();
+    long getEdtStallCount();
+    double getEdtLatencyP99Millis();
+    double getEdtLatencyMaxMillis();
+    String[] getRecentEdtStalls();
+    void reset();
+}
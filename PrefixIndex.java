@@ -0,0 +1,32 @@
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.TreeMap;
+
+// Case-insensitive sorted multiset of strings supporting O(log n) prefix lookup
+public class PrefixIndex {
+    // Case-insensitive first so all case variants of a prefix are adjacent; natural order breaks ties
+    private static final Comparator<String> ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final TreeMap<String, Integer> counts = new TreeMap<>(ORDER);
+
+    public void add(String value) {
+        counts.merge(value, 1, Integer::sum);
+    }
+
+    public void remove(String value) {
+        counts.computeIfPresent(value, (k, n) -> n == 1 ? null : n - 1);
+    }
+
+    public void clear() { counts.clear(); }
+
+    // First value (in case-insensitive order) starting with the prefix, or null
+    public String firstWithPrefix(String prefix) {
+        // Upper case sorts first among case variants, so the probe lands before every match
+        String candidate = counts.ceilingKey(prefix.toUpperCase(Locale.ROOT));
+        if (candidate != null && candidate.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return candidate;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,258 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Compressed set of row numbers, laid out like a Roaring bitmap: rows are split into chunks of
+// 65536 and each chunk is either a sorted array of the low 16 bits (up to 4096 rows, 2 bytes a
+// row) or a 1024-word bitset (8 KB however full). A value holding a quarter of a 1M-row catalog
+// costs about 128 KB, a rare one 2 bytes per row, and intersections work chunk by chunk on
+// whichever form each side has. Not thread-safe; FacetIndex guards it.
+public class RowBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int WORDS = 1 << (CHUNK_BITS - 6);
+    private static final int ARRAY_MAX = 4096;
+    // A bitset chunk turns back into an array below this, so a chunk at the limit doesn't flip-flop
+    private static final int ARRAY_MIN = ARRAY_MAX / 2;
+
+    // Per chunk: counts[c] rows, in bits[c] when that is set, otherwise sorted in arrays[c]
+    private char[][] arrays = new char[0][];
+    private long[][] bits = new long[0][];
+    private int[] counts = new int[0];
+    private int cardinality;
+
+    public int getCardinality() { return cardinality; }
+
+    public boolean contains(int row) {
+        int c = row >>> CHUNK_BITS;
+        return c < counts.length && chunkContains(c, (char) row);
+    }
+
+    public void add(int row) {
+        int c = row >>> CHUNK_BITS;
+        if (c >= counts.length) grow(c + 1);
+        char low = (char) row;
+        long[] words = bits[c];
+        if (words != null) {
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) != 0) return;
+            words[low >>> 6] |= mask;
+        } else {
+            int n = counts[c];
+            char[] array = arrays[c];
+            // Rows are mostly appended, so check the end before searching
+            int pos = n == 0 || array[n - 1] < low ? -(n + 1) : Arrays.binarySearch(array, 0, n, low);
+            if (pos >= 0) return;
+            pos = -(pos + 1);
+            if (n == ARRAY_MAX) {
+                toBits(c);
+                bits[c][low >>> 6] |= 1L << low;
+            } else {
+                if (array == null || n == array.length) {
+                    array = arrays[c] = Arrays.copyOf(array == null ? new char[0] : array, Math.min(ARRAY_MAX, Math.max(4, n * 2)));
+                }
+                System.arraycopy(array, pos, array, pos + 1, n - pos);
+                array[pos] = low;
+            }
+        }
+        counts[c]++;
+        cardinality++;
+    }
+
+    public void remove(int row) {
+        int c = row >>> CHUNK_BITS;
+        if (c >= counts.length || counts[c] == 0) return;
+        char low = (char) row;
+        long[] words = bits[c];
+        if (words != null) {
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) return;
+            words[low >>> 6] &= ~mask;
+            counts[c]--;
+            if (counts[c] < ARRAY_MIN) toArray(c);
+        } else {
+            int n = counts[c];
+            char[] array = arrays[c];
+            int pos = Arrays.binarySearch(array, 0, n, low);
+            if (pos < 0) return;
+            System.arraycopy(array, pos + 1, array, pos, n - pos - 1);
+            counts[c]--;
+        }
+        cardinality--;
+    }
+
+    // Number of rows in every one of the given bitmaps (at least one)
+    public static int andCardinality(RowBitmap... maps) {
+        if (maps.length == 1) return maps[0].cardinality;
+        int total = 0;
+        int chunks = minChunks(maps);
+        long[] scratch = null;
+        for (int c = 0; c < chunks; c++) {
+            RowBitmap driver = driver(maps, c);
+            if (driver == null) continue;
+            if (driver.bits[c] != null) {
+                // Facet filters intersect two or three bitmaps; count those in one pass
+                long[] a = maps[0].bits[c], b = maps[1].bits[c];
+                if (maps.length == 2) {
+                    for (int w = 0; w < WORDS; w++) total += Long.bitCount(a[w] & b[w]);
+                } else if (maps.length == 3) {
+                    long[] d = maps[2].bits[c];
+                    for (int w = 0; w < WORDS; w++) total += Long.bitCount(a[w] & b[w] & d[w]);
+                } else {
+                    if (scratch == null) scratch = new long[WORDS];
+                    andWords(maps, c, scratch, 0);
+                    for (int w = 0; w < WORDS; w++) total += Long.bitCount(scratch[w]);
+                }
+            } else {
+                char[] array = driver.arrays[c];
+                for (int i = 0; i < driver.counts[c]; i++) {
+                    if (allContain(maps, driver, c, array[i])) total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    // For each group (null counts as empty), how many of its rows are in every filter bitmap (at
+    // least one). The filter is intersected once per chunk and each group read once after that,
+    // which is what facet counts need: one count per category under the same location pick.
+    public static int[] andCardinalities(RowBitmap[] groups, RowBitmap... filter) {
+        int[] totals = new int[groups.length];
+        int chunks = minChunks(filter);
+        long[] scratch = new long[WORDS];
+        for (int c = 0; c < chunks; c++) {
+            RowBitmap driver = driver(filter, c);
+            if (driver == null) continue;
+            if (driver.bits[c] != null) {
+                andWords(filter, c, scratch, 0);
+            } else {
+                Arrays.fill(scratch, 0);
+                char[] array = driver.arrays[c];
+                for (int i = 0; i < driver.counts[c]; i++) {
+                    char low = array[i];
+                    if (allContain(filter, driver, c, low)) scratch[low >>> 6] |= 1L << low;
+                }
+            }
+            for (int g = 0; g < groups.length; g++) {
+                RowBitmap m = groups[g];
+                if (m == null || c >= m.counts.length || m.counts[c] == 0) continue;
+                int n = 0;
+                if (m.bits[c] != null) {
+                    long[] words = m.bits[c];
+                    for (int w = 0; w < WORDS; w++) n += Long.bitCount(words[w] & scratch[w]);
+                } else {
+                    char[] array = m.arrays[c];
+                    for (int i = 0; i < m.counts[c]; i++) {
+                        if ((scratch[array[i] >>> 6] & (1L << array[i])) != 0) n++;
+                    }
+                }
+                totals[g] += n;
+            }
+        }
+        return totals;
+    }
+
+    // Rows in every one of the given bitmaps (at least one)
+    public static BitSet and(RowBitmap... maps) {
+        int chunks = minChunks(maps);
+        long[] result = new long[chunks * WORDS];
+        for (int c = 0; c < chunks; c++) {
+            RowBitmap driver = driver(maps, c);
+            if (driver == null) continue;
+            int base = c * WORDS;
+            if (driver.bits[c] != null) {
+                andWords(maps, c, result, base);
+            } else {
+                char[] array = driver.arrays[c];
+                for (int i = 0; i < driver.counts[c]; i++) {
+                    char low = array[i];
+                    if (allContain(maps, driver, c, low)) result[base + (low >>> 6)] |= 1L << low;
+                }
+            }
+        }
+        return BitSet.valueOf(result);
+    }
+
+    // Approximate heap footprint of the containers, for diagnostics
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (bits[c] != null) bytes += WORDS * 8L;
+            else if (arrays[c] != null) bytes += arrays[c].length * 2L;
+        }
+        return bytes;
+    }
+
+    private boolean chunkContains(int c, char low) {
+        if (counts[c] == 0) return false;
+        long[] words = bits[c];
+        if (words != null) return (words[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch(arrays[c], 0, counts[c], low) >= 0;
+    }
+
+    private static int minChunks(RowBitmap[] maps) {
+        int chunks = Integer.MAX_VALUE;
+        for (RowBitmap m : maps) chunks = Math.min(chunks, m.counts.length);
+        return chunks;
+    }
+
+    // The map to walk for chunk c: null if any map has the chunk empty, otherwise the smallest
+    // array chunk, or a bitset chunk only when every map has a bitset there
+    private static RowBitmap driver(RowBitmap[] maps, int c) {
+        RowBitmap best = null;
+        for (RowBitmap m : maps) {
+            int n = m.counts[c];
+            if (n == 0) return null;
+            if (m.bits[c] != null) {
+                if (best == null) best = m;
+            } else if (best == null || best.bits[c] != null || n < best.counts[c]) {
+                best = m;
+            }
+        }
+        return best;
+    }
+
+    // ANDs chunk c of every map into dst[offset..offset + WORDS); every map holds it as a bitset.
+    // One map at a time, so each pass is a straight loop over two arrays.
+    private static void andWords(RowBitmap[] maps, int c, long[] dst, int offset) {
+        System.arraycopy(maps[0].bits[c], 0, dst, offset, WORDS);
+        for (int k = 1; k < maps.length; k++) {
+            long[] words = maps[k].bits[c];
+            for (int w = 0; w < WORDS; w++) dst[offset + w] &= words[w];
+        }
+    }
+
+    private static boolean allContain(RowBitmap[] maps, RowBitmap driver, int c, char low) {
+        for (RowBitmap m : maps) {
+            if (m != driver && !m.chunkContains(c, low)) return false;
+        }
+        return true;
+    }
+
+    private void toBits(int c) {
+        long[] words = new long[WORDS];
+        char[] array = arrays[c];
+        for (int i = 0; i < counts[c]; i++) words[array[i] >>> 6] |= 1L << array[i];
+        bits[c] = words;
+        arrays[c] = null;
+    }
+
+    private void toArray(int c) {
+        char[] array = new char[Math.max(4, counts[c] * 2)];
+        int n = 0;
+        long[] words = bits[c];
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                array[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        arrays[c] = array;
+        bits[c] = null;
+    }
+
+    private void grow(int chunks) {
+        arrays = Arrays.copyOf(arrays, chunks);
+        bits = Arrays.copyOf(bits, chunks);
+        counts = Arrays.copyOf(counts, chunks);
+    }
+}
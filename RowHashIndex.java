@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Open-addressing index from a string key to rows, for storage that keeps the keys itself: a
+// slot holds just the row and the key's hash (8 bytes, no object), and candidate rows are checked
+// against the stored key through Keys. A key may map to several rows. Linear probing with
+// backward-shift deletion, like StringIntMap.
+final class RowHashIndex {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    interface Keys {
+        boolean keyEquals(int row, String key);
+    }
+
+    private final Keys keys;
+    private int[] rows;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    RowHashIndex(int expectedSize, Keys keys) {
+        this.keys = keys;
+        int cap = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(cap);
+    }
+
+    // First row found with the key, or -1
+    int get(String key) {
+        int h = key.hashCode();
+        for (int i = slot(h); rows[i] != -1; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys.keyEquals(rows[i], key)) return rows[i];
+        }
+        return -1;
+    }
+
+    // Every row with the key, in no particular order
+    int[] getAll(String key) {
+        int h = key.hashCode();
+        int[] found = new int[1];
+        int n = 0;
+        for (int i = slot(h); rows[i] != -1; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys.keyEquals(rows[i], key)) {
+                if (n == found.length) found = Arrays.copyOf(found, n * 2);
+                found[n++] = rows[i];
+            }
+        }
+        return n == found.length ? found : Arrays.copyOf(found, n);
+    }
+
+    void add(String key, int row) {
+        int h = key.hashCode();
+        int i = slot(h);
+        while (rows[i] != -1) i = (i + 1) & mask;
+        rows[i] = row;
+        hashes[i] = h;
+        if (++size > resizeAt) rehash(rows.length << 1);
+    }
+
+    void remove(String key, int row) {
+        int i = find(key, row);
+        if (i == -1) return;
+        int hole = i;
+        for (int j = (hole + 1) & mask; rows[j] != -1; j = (j + 1) & mask) {
+            int ideal = slot(hashes[j]);
+            boolean between = hole <= j ? (hole < ideal && ideal <= j) : (hole < ideal || ideal <= j);
+            if (!between) {
+                rows[hole] = rows[j];
+                hashes[hole] = hashes[j];
+                hole = j;
+            }
+        }
+        rows[hole] = -1;
+        size--;
+    }
+
+    // The entry for the key at oldRow now lives at newRow
+    void move(String key, int oldRow, int newRow) {
+        int i = find(key, oldRow);
+        if (i != -1) rows[i] = newRow;
+    }
+
+    private int find(String key, int row) {
+        int h = key.hashCode();
+        for (int i = slot(h); rows[i] != -1; i = (i + 1) & mask) {
+            if (rows[i] == row && hashes[i] == h) return i;
+        }
+        return -1;
+    }
+
+    private int slot(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int cap) {
+        rows = new int[cap];
+        Arrays.fill(rows, -1);
+        hashes = new int[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private void rehash(int cap) {
+        int[] oldRows = rows;
+        int[] oldHashes = hashes;
+        allocate(cap);
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] == -1) continue;
+            int j = slot(oldHashes[i]);
+            while (rows[j] != -1) j = (j + 1) & mask;
+            rows[j] = oldRows[i];
+            hashes[j] = oldHashes[i];
+        }
+    }
+}
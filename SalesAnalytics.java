@@ -0,0 +1,346 @@
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+// Aggregates over a SalesLedger: top SKUs, revenue and gross margin by category or location per
+// day, week or month, and sell-through. Each day segment is first reduced to per-SKU totals on the
+// common fork/join pool; those summaries are cached and reused until the segment gains rows, so a
+// closed day is scanned once. Whole months are cached the same way on top of the days, so a year
+// of history folds together from about a dozen summaries.
+// Category and location are the SKU's as of its latest sale. Safe to call from any thread.
+public class SalesAnalytics {
+    public enum Period { DAY, WEEK, MONTH }
+    public enum Dimension { CATEGORY, LOCATION }
+
+    // Units, revenue and cost (both in cents) for one SKU or group
+    public static class Totals {
+        public long units;
+        public long revenueCents;
+        public long costCents;
+
+        public long getMarginCents() { return revenueCents - costCents; }
+
+        void add(long units, long revenueCents, long costCents) {
+            this.units += units;
+            this.revenueCents += revenueCents;
+            this.costCents += costCents;
+        }
+    }
+
+    public static class SkuTotals extends Totals {
+        public final int skuId;
+
+        SkuTotals(int skuId) { this.skuId = skuId; }
+    }
+
+    // One row of a per-period breakdown
+    public static class PeriodTotals extends Totals {
+        public final LocalDate periodStart;
+        public final String group;
+
+        PeriodTotals(LocalDate periodStart, String group) {
+            this.periodStart = periodStart;
+            this.group = group;
+        }
+    }
+
+    // Per-SKU totals of a run of sales; skuIds is sorted, the other columns are parallel to it
+    private static final class Summary {
+        final int rows;
+        final int[] skuIds;
+        final long[] units;
+        final long[] revenue;
+        final long[] cost;
+
+        Summary(int rows, int[] skuIds, long[] units, long[] revenue, long[] cost) {
+            this.rows = rows;
+            this.skuIds = skuIds;
+            this.units = units;
+            this.revenue = revenue;
+            this.cost = cost;
+        }
+    }
+
+    private final SalesLedger ledger;
+    private final Map<SalesLedger.Segment, Summary> cache = new ConcurrentHashMap<>();
+    private final Map<LocalDate, MonthSummary> monthCache = new ConcurrentHashMap<>();
+
+    // A month's merged day summaries, valid while the month has the same days and row count
+    private static final class MonthSummary {
+        final int days;
+        final Summary summary;
+
+        MonthSummary(int days, Summary summary) {
+            this.days = days;
+            this.summary = summary;
+        }
+    }
+
+    public SalesAnalytics(SalesLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    // The n best-selling SKUs in [from, to), by units or by revenue
+    public List<SkuTotals> topSkus(long from, long to, int n, boolean byRevenue) {
+        List<Summary> parts = byMonth(segmentsIn(from, to), from, to, null);
+        int skuCount = ledger.getSkuCount();
+        long[][] merged = parts.parallelStream().collect(
+            () -> new long[3][skuCount],
+            (acc, s) -> {
+                for (int i = 0; i < s.skuIds.length; i++) {
+                    int id = s.skuIds[i];
+                    if (id >= skuCount) continue;
+                    acc[0][id] += s.units[i];
+                    acc[1][id] += s.revenue[i];
+                    acc[2][id] += s.cost[i];
+                }
+            },
+            (a, b) -> {
+                for (int k = 0; k < 3; k++) {
+                    for (int id = 0; id < skuCount; id++) a[k][id] += b[k][id];
+                }
+            });
+        long[] key = byRevenue ? merged[1] : merged[0];
+        // Bounded min-heap keeps the n largest without sorting every SKU
+        PriorityQueue<Integer> heap = new PriorityQueue<>(n + 1, (x, y) -> Long.compare(key[x], key[y]));
+        for (int id = 0; id < skuCount; id++) {
+            if (merged[0][id] == 0) continue;
+            if (heap.size() < n) {
+                heap.add(id);
+            } else if (n > 0 && key[id] > key[heap.peek()]) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+        List<SkuTotals> top = new ArrayList<>(heap.size());
+        for (int id : heap) {
+            SkuTotals t = new SkuTotals(id);
+            t.add(merged[0][id], merged[1][id], merged[2][id]);
+            top.add(t);
+        }
+        top.sort((x, y) -> Long.compare(byRevenue ? y.revenueCents : y.units, byRevenue ? x.revenueCents : x.units));
+        return top;
+    }
+
+    // Revenue, cost and margin per period and category (or location) in [from, to), oldest period first
+    public List<PeriodTotals> breakdown(long from, long to, Period period, Dimension dimension) {
+        SalesLedger.Segment[] segs = segmentsIn(from, to);
+        List<LocalDate> starts = new ArrayList<>();
+        List<Summary> parts;
+        if (period == Period.MONTH) {
+            parts = byMonth(segs, from, to, starts);
+        } else {
+            parts = summaries(segs, from, to);
+            for (SalesLedger.Segment seg : segs) starts.add(periodStart(seg.getStartMillis(), period));
+        }
+        int skuCount = ledger.getSkuCount();
+
+        // Resolve each SKU's group once instead of per sale
+        Map<String, Integer> groupIds = new HashMap<>();
+        List<String> groupNames = new ArrayList<>();
+        int[] groupOf = new int[skuCount];
+        for (int id = 0; id < skuCount; id++) {
+            String g = dimension == Dimension.CATEGORY ? ledger.getCategory(id) : ledger.getLocation(id);
+            Integer gid = groupIds.get(g);
+            if (gid == null) {
+                gid = groupNames.size();
+                groupIds.put(g, gid);
+                groupNames.add(g);
+            }
+            groupOf[id] = gid;
+        }
+
+        Map<LocalDate, Totals[]> byPeriod = new LinkedHashMap<>();
+        for (int i = 0; i < parts.size(); i++) {
+            Totals[] groups = byPeriod.computeIfAbsent(starts.get(i), k -> new Totals[groupNames.size()]);
+            Summary s = parts.get(i);
+            for (int j = 0; j < s.skuIds.length; j++) {
+                int id = s.skuIds[j];
+                if (id >= skuCount) continue;
+                Totals t = groups[groupOf[id]];
+                if (t == null) t = groups[groupOf[id]] = new Totals();
+                t.add(s.units[j], s.revenue[j], s.cost[j]);
+            }
+        }
+        List<PeriodTotals> rows = new ArrayList<>();
+        for (Map.Entry<LocalDate, Totals[]> e : byPeriod.entrySet()) {
+            Totals[] groups = e.getValue();
+            for (int g = 0; g < groups.length; g++) {
+                if (groups[g] == null) continue;
+                PeriodTotals row = new PeriodTotals(e.getKey(), groupNames.get(g));
+                row.add(groups[g].units, groups[g].revenueCents, groups[g].costCents);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // Units sold in [from, to) per SKU id, for sell-through = sold / (sold + on hand)
+    public long[] unitsBySku(long from, long to) {
+        List<Summary> parts = byMonth(segmentsIn(from, to), from, to, null);
+        int skuCount = ledger.getSkuCount();
+        return parts.parallelStream().collect(
+            () -> new long[skuCount],
+            (acc, s) -> {
+                for (int i = 0; i < s.skuIds.length; i++) {
+                    if (s.skuIds[i] < skuCount) acc[s.skuIds[i]] += s.units[i];
+                }
+            },
+            (a, b) -> {
+                for (int id = 0; id < skuCount; id++) a[id] += b[id];
+            });
+    }
+
+    // Start of the day, ISO week (Monday) or month holding the given instant, in the ledger's zone
+    public LocalDate periodStart(long millis, Period period) {
+        LocalDate day = Instant.ofEpochMilli(millis).atZone(ledger.getZone()).toLocalDate();
+        switch (period) {
+            case WEEK: return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH: return day.withDayOfMonth(1);
+            default: return day;
+        }
+    }
+
+    private SalesLedger.Segment[] segmentsIn(long from, long to) {
+        SalesLedger.Segment[] all = ledger.getSegments();
+        int first = 0;
+        while (first < all.length && all[first].getEndMillis() <= from) first++;
+        int last = first;
+        while (last < all.length && all[last].getStartMillis() < to) last++;
+        return Arrays.copyOfRange(all, first, last);
+    }
+
+    // Like summaries(), but every month the range covers entirely becomes one (cached) summary.
+    // If starts is non-null it receives each returned summary's period (month) start.
+    private List<Summary> byMonth(SalesLedger.Segment[] segs, long from, long to, List<LocalDate> starts) {
+        List<Summary> days = summaries(segs, from, to);
+        List<Summary> out = new ArrayList<>();
+        int i = 0;
+        while (i < segs.length) {
+            LocalDate month = periodStart(segs[i].getStartMillis(), Period.MONTH);
+            int j = i;
+            while (j < segs.length && periodStart(segs[j].getStartMillis(), Period.MONTH).equals(month)) j++;
+            long monthStart = month.atStartOfDay(ledger.getZone()).toInstant().toEpochMilli();
+            long monthEnd = month.plusMonths(1).atStartOfDay(ledger.getZone()).toInstant().toEpochMilli();
+            if (monthStart >= from && monthEnd <= to) {
+                out.add(monthSummary(month, days.subList(i, j)));
+                if (starts != null) starts.add(month);
+            } else {
+                for (int k = i; k < j; k++) {
+                    out.add(days.get(k));
+                    if (starts != null) starts.add(month);
+                }
+            }
+            i = j;
+        }
+        return out;
+    }
+
+    private Summary monthSummary(LocalDate month, List<Summary> days) {
+        int rows = 0;
+        for (Summary d : days) rows += d.rows;
+        MonthSummary cached = monthCache.get(month);
+        if (cached != null && cached.days == days.size() && cached.summary.rows == rows) return cached.summary;
+        Summary merged = merge(days, rows);
+        monthCache.put(month, new MonthSummary(days.size(), merged));
+        return merged;
+    }
+
+    // Merges summaries through dense per-SKU arrays, then compacts back to sorted SKU ids
+    private static Summary merge(List<Summary> parts, int rows) {
+        int maxId = -1;
+        for (Summary s : parts) {
+            if (s.skuIds.length > 0) maxId = Math.max(maxId, s.skuIds[s.skuIds.length - 1]);
+        }
+        long[] units = new long[maxId + 1];
+        long[] revenue = new long[maxId + 1];
+        long[] cost = new long[maxId + 1];
+        boolean[] seen = new boolean[maxId + 1];
+        int distinct = 0;
+        for (Summary s : parts) {
+            for (int i = 0; i < s.skuIds.length; i++) {
+                int id = s.skuIds[i];
+                if (!seen[id]) {
+                    seen[id] = true;
+                    distinct++;
+                }
+                units[id] += s.units[i];
+                revenue[id] += s.revenue[i];
+                cost[id] += s.cost[i];
+            }
+        }
+        int[] ids = new int[distinct];
+        long[] u = new long[distinct], r = new long[distinct], c = new long[distinct];
+        int k = 0;
+        for (int id = 0; id <= maxId; id++) {
+            if (!seen[id]) continue;
+            ids[k] = id;
+            u[k] = units[id];
+            r[k] = revenue[id];
+            c[k] = cost[id];
+            k++;
+        }
+        return new Summary(rows, ids, u, r, c);
+    }
+
+    // One summary per segment, computed in parallel. Whole days come from the cache;
+    // days cut by the range are summarised for that range only and not cached.
+    private List<Summary> summaries(SalesLedger.Segment[] segs, long from, long to) {
+        Summary[] out = new Summary[segs.length];
+        IntStream.range(0, segs.length).parallel().forEach(i -> {
+            SalesLedger.Segment seg = segs[i];
+            if (seg.getStartMillis() >= from && seg.getEndMillis() <= to) {
+                int n = seg.size();
+                Summary cached = cache.get(seg);
+                if (cached == null || cached.rows != n) {
+                    cached = summarize(seg, n, Long.MIN_VALUE, Long.MAX_VALUE);
+                    cache.put(seg, cached);
+                }
+                out[i] = cached;
+            } else {
+                out[i] = summarize(seg, seg.size(), from, to);
+            }
+        });
+        return Arrays.asList(out);
+    }
+
+    private static Summary summarize(SalesLedger.Segment seg, int n, long from, long to) {
+        // Sort row SKU ids once, then fold equal runs; cheaper than a hash map per day
+        long[] keyed = new long[n];
+        int count = 0;
+        for (int row = 0; row < n; row++) {
+            long t = seg.getTimestamp(row);
+            if (t >= from && t < to) keyed[count++] = ((long) seg.getSkuId(row) << 32) | row;
+        }
+        Arrays.sort(keyed, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || (keyed[i] >>> 32) != (keyed[i - 1] >>> 32)) distinct++;
+        }
+        int[] skuIds = new int[distinct];
+        long[] units = new long[distinct];
+        long[] revenue = new long[distinct];
+        long[] cost = new long[distinct];
+        int k = -1;
+        for (int i = 0; i < count; i++) {
+            int id = (int) (keyed[i] >>> 32);
+            int row = (int) keyed[i];
+            if (k == -1 || skuIds[k] != id) skuIds[++k] = id;
+            int qty = seg.getQuantity(row);
+            units[k] += qty;
+            revenue[k] += (long) qty * seg.getPriceCents(row);
+            cost[k] += (long) qty * seg.getCostCents(row);
+        }
+        return new Summary(n, skuIds, units, revenue, cost);
+    }
+}
@@ -0,0 +1,479 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Append-only sales history in primitive columns, split into one segment per local calendar day.
+// A sale costs a long timestamp and four ints (SKU id, quantity, unit price and unit cost in
+// cents); the SKU string, item name, category and location are kept once per SKU id. Nothing is
+// formatted until display. With off-heap storage the sales and the SKU strings live in direct
+// memory (see Segment and StringArena), leaving only primitive arrays on the heap.
+//
+// Appends may come from any thread and are serialized on the ledger's monitor; any thread may
+// read without locking. Rows are written before the segment's volatile size is bumped and
+// segments are never moved or trimmed, so a reader always sees a consistent prefix. Per-SKU
+// lookups within a segment take its monitor.
+public class SalesLedger {
+    private static final int SEGMENT_CAPACITY = 256;
+
+    // Told about every appended sale, on the appending thread while it holds the ledger's
+    // monitor, so calls are serialized and must be short. dayStartMillis is the start of the
+    // sale's local day.
+    public interface Listener {
+        void saleAppended(long dayStartMillis, long timestamp, int skuId, int quantity, int priceCents);
+    }
+
+    // Receives sales in segment (day) order, and in append order within a day
+    public interface Visitor {
+        void sale(long timestamp, int skuId, int quantity, int priceCents, int costCents);
+    }
+
+    // The sales of one local day, [startMillis, endMillis). Rows are primitive columns, or with
+    // off-heap storage 32-byte records in a direct buffer: timestamp (long), SKU id, quantity,
+    // price, cost, previous row of the same SKU, padding.
+    public static final class Segment {
+        private static final int RECORD = 32;
+        private static final int SKU_ID = 8;
+        private static final int QUANTITY = 12;
+        private static final int PRICE = 16;
+        private static final int COST = 20;
+        private static final int PREV = 24;
+
+        private final long startMillis;
+        private final long endMillis;
+        private final boolean offHeap;
+        private long[] timestamps;
+        private int[] skuIds;
+        private int[] quantities;
+        private int[] priceCents;
+        private int[] costCents;
+        // Previous row of the same SKU in this segment, or -1; lastRowBySku holds each chain's head
+        private int[] prevSameSku;
+        private ByteBuffer records;
+        private final IntIntMap lastRowBySku = new IntIntMap();
+        private volatile boolean ordered = true;
+        private volatile int size;
+
+        Segment(long startMillis, long endMillis, boolean offHeap) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.offHeap = offHeap;
+            if (offHeap) {
+                records = ByteBuffer.allocateDirect(SEGMENT_CAPACITY * RECORD).order(ByteOrder.nativeOrder());
+            } else {
+                timestamps = new long[SEGMENT_CAPACITY];
+                skuIds = new int[SEGMENT_CAPACITY];
+                quantities = new int[SEGMENT_CAPACITY];
+                priceCents = new int[SEGMENT_CAPACITY];
+                costCents = new int[SEGMENT_CAPACITY];
+                prevSameSku = new int[SEGMENT_CAPACITY];
+            }
+        }
+
+        public long getStartMillis() { return startMillis; }
+        public long getEndMillis() { return endMillis; }
+        public int size() { return size; }
+
+        public long getTimestamp(int row) { return offHeap ? records.getLong(row * RECORD) : timestamps[row]; }
+        public int getSkuId(int row) { return offHeap ? records.getInt(row * RECORD + SKU_ID) : skuIds[row]; }
+        public int getQuantity(int row) { return offHeap ? records.getInt(row * RECORD + QUANTITY) : quantities[row]; }
+        public int getPriceCents(int row) { return offHeap ? records.getInt(row * RECORD + PRICE) : priceCents[row]; }
+        public int getCostCents(int row) { return offHeap ? records.getInt(row * RECORD + COST) : costCents[row]; }
+
+        // Direct memory held by this segment
+        long getOffHeapBytes() { return offHeap ? records.capacity() : 0; }
+
+        // True while rows were appended in timestamp order, which lets range scans binary search
+        public boolean isOrdered() { return ordered; }
+
+        void append(long timestamp, int skuId, int quantity, int cents, int cost) {
+            int row = size;
+            if (offHeap) {
+                appendRecord(row, timestamp, skuId, quantity, cents, cost);
+            } else {
+                if (row == timestamps.length) {
+                    int cap = row * 2;
+                    timestamps = Arrays.copyOf(timestamps, cap);
+                    skuIds = Arrays.copyOf(skuIds, cap);
+                    quantities = Arrays.copyOf(quantities, cap);
+                    priceCents = Arrays.copyOf(priceCents, cap);
+                    costCents = Arrays.copyOf(costCents, cap);
+                    prevSameSku = Arrays.copyOf(prevSameSku, cap);
+                }
+                timestamps[row] = timestamp;
+                skuIds[row] = skuId;
+                quantities[row] = quantity;
+                priceCents[row] = cents;
+                costCents[row] = cost;
+                synchronized (this) {
+                    prevSameSku[row] = lastRowBySku.put(skuId, row);
+                }
+            }
+            if (row > 0 && timestamp < getTimestamp(row - 1)) ordered = false;
+            size = row + 1;
+        }
+
+        private void appendRecord(int row, long timestamp, int skuId, int quantity, int cents, int cost) {
+            ByteBuffer buf = records;
+            if ((row + 1) * RECORD > buf.capacity()) {
+                // Readers holding the old buffer still see every row below the published size
+                ByteBuffer grown = ByteBuffer.allocateDirect(buf.capacity() * 2).order(ByteOrder.nativeOrder());
+                grown.put(0, buf, 0, row * RECORD);
+                buf = grown;
+            }
+            int at = row * RECORD;
+            buf.putLong(at, timestamp);
+            buf.putInt(at + SKU_ID, skuId);
+            buf.putInt(at + QUANTITY, quantity);
+            buf.putInt(at + PRICE, cents);
+            buf.putInt(at + COST, cost);
+            synchronized (this) {
+                buf.putInt(at + PREV, lastRowBySku.put(skuId, row));
+                records = buf;
+            }
+        }
+
+        // First row at or after 'from' when ordered; 0 otherwise
+        int lowerBound(long from, int n) {
+            if (!ordered || from <= startMillis) return 0;
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (getTimestamp(mid) < from) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        void scan(long from, long to, int n, Visitor v) {
+            boolean sorted = ordered;
+            for (int row = lowerBound(from, n); row < n; row++) {
+                long t = getTimestamp(row);
+                if (t >= to) {
+                    if (sorted) return;
+                    continue;
+                }
+                if (t >= from) v.sale(t, getSkuId(row), getQuantity(row), getPriceCents(row), getCostCents(row));
+            }
+        }
+
+        // This SKU's rows below n, ascending
+        int[] rowsOfSku(int skuId, int n) {
+            int head;
+            int[] chain;
+            ByteBuffer chainRecords;
+            synchronized (this) {
+                head = lastRowBySku.get(skuId);
+                chain = prevSameSku;
+                chainRecords = records;
+            }
+            int[] rows = new int[8];
+            int count = 0;
+            // The chain runs newest to oldest; reversed below so callers see append order
+            for (int row = head; row != -1; row = offHeap ? chainRecords.getInt(row * RECORD + PREV) : chain[row]) {
+                if (row >= n) continue;
+                if (count == rows.length) rows = Arrays.copyOf(rows, count * 2);
+                rows[count++] = row;
+            }
+            rows = Arrays.copyOf(rows, count);
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int tmp = rows[i];
+                rows[i] = rows[j];
+                rows[j] = tmp;
+            }
+            return rows;
+        }
+
+        void scanSku(int skuId, long from, long to, Visitor v) {
+            for (int row : rowsOfSku(skuId, size)) {
+                long t = getTimestamp(row);
+                if (t >= from && t < to) v.sale(t, skuId, getQuantity(row), getPriceCents(row), getCostCents(row));
+            }
+        }
+    }
+
+    // Frozen row range of the ledger, indexable 0..size()-1 in segment order; unaffected by later sales
+    public static final class View {
+        private final Segment[] segments;
+        private final int[] offsets; // offsets[i] = rows in segments[0..i)
+
+        View(Segment[] segments) {
+            this.segments = segments;
+            this.offsets = new int[segments.length + 1];
+            for (int i = 0; i < segments.length; i++) offsets[i + 1] = offsets[i] + segments[i].size();
+        }
+
+        public int size() { return offsets[segments.length]; }
+
+        public int getSegmentCount() { return segments.length; }
+        public Segment getSegment(int i) { return segments[i]; }
+        // View index of the segment's first row, and how many of its rows the view covers
+        public int getSegmentOffset(int i) { return offsets[i]; }
+        public int getSegmentSize(int i) { return offsets[i + 1] - offsets[i]; }
+
+        public long getTimestamp(int index) { int s = segmentOf(index); return segments[s].getTimestamp(index - offsets[s]); }
+        public int getSkuId(int index) { int s = segmentOf(index); return segments[s].getSkuId(index - offsets[s]); }
+        public int getQuantity(int index) { int s = segmentOf(index); return segments[s].getQuantity(index - offsets[s]); }
+        public int getPriceCents(int index) { int s = segmentOf(index); return segments[s].getPriceCents(index - offsets[s]); }
+        public int getCostCents(int index) { int s = segmentOf(index); return segments[s].getCostCents(index - offsets[s]); }
+
+        private int segmentOf(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Sale " + index + " out of range [0, " + size() + ")");
+            int lo = 0, hi = segments.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= index) lo = mid; else hi = mid - 1;
+            }
+            return lo;
+        }
+    }
+
+    private final ZoneId zone;
+    private final boolean offHeap;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Segment[] segments = new Segment[0];
+    private volatile int size;
+
+    // SKU dictionary: id -> SKU, plus the item name, category and location as of its latest sale.
+    // Off-heap, SKU and name are refs into a StringArena and the index holds only ids; category
+    // and location are the store's dictionary values, shared by every id, either way.
+    private final StringIntMap skuIdIndex;
+    private final RowHashIndex skuIdRefs;
+    private final StringArena skuStrings;
+    private String[] skus;
+    private String[] names;
+    private long[] skuRefs;
+    private long[] nameRefs;
+    private String[] categories = new String[64];
+    private String[] locations = new String[64];
+    private volatile int skuCount;
+
+    public SalesLedger() {
+        this(ZoneId.systemDefault());
+    }
+
+    public SalesLedger(ZoneId zone) {
+        this(zone, InventoryStore.Storage.configured());
+    }
+
+    // Sales follow the item storage: off-heap storage keeps their segments in direct memory too
+    public SalesLedger(ZoneId zone, InventoryStore.Storage storage) {
+        this.zone = zone;
+        this.offHeap = storage == InventoryStore.Storage.OFFHEAP;
+        if (offHeap) {
+            skuIdIndex = null;
+            skuStrings = new StringArena();
+            skuIdRefs = new RowHashIndex(64, (id, sku) -> skuStrings.equals(skuRefs[id], sku));
+            skuRefs = new long[64];
+            nameRefs = new long[64];
+        } else {
+            skuIdIndex = new StringIntMap(64);
+            skuIdRefs = null;
+            skuStrings = null;
+            skus = new String[64];
+            names = new String[64];
+        }
+    }
+
+    public ZoneId getZone() { return zone; }
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    // Total number of sales
+    public int size() { return size; }
+
+    public int getSkuCount() { return skuCount; }
+    public String getSku(int skuId) { return offHeap ? skuStrings.get(skuRefs[skuId]) : skus[skuId]; }
+    public String getName(int skuId) { return offHeap ? skuStrings.get(nameRefs[skuId]) : names[skuId]; }
+    public String getCategory(int skuId) { return categories[skuId]; }
+    public String getLocation(int skuId) { return locations[skuId]; }
+
+    // Id of a SKU that has sales, or -1
+    public synchronized int skuIdOf(String sku) { return offHeap ? skuIdRefs.get(sku) : skuIdIndex.get(sku); }
+
+    // Day segments in time order
+    public Segment[] getSegments() { return segments; }
+
+    // Direct memory held by off-heap segments, 0 on the heap
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Segment seg : segments) bytes += seg.getOffHeapBytes();
+        return offHeap ? bytes + skuStrings.getAllocatedBytes() : bytes;
+    }
+
+    public View view() {
+        return new View(segments);
+    }
+
+    // Callers stamp a sale before they get this monitor, so two tills can arrive a few milliseconds
+    // out of order. A sale earlier than the last one of its day is recorded at that instant, which
+    // keeps the day's segment sorted for range scans.
+    public synchronized void record(long timestamp, String sku, String name, String category, String location,
+                       int quantity, int priceCents, int costCents) {
+        Segment seg = segmentFor(timestamp);
+        int n = seg.size();
+        if (n > 0) timestamp = Math.max(timestamp, seg.getTimestamp(n - 1));
+        append(timestamp, skuId(sku, name, category, location), quantity, priceCents, costCents);
+    }
+
+    // Registers (or refreshes) a SKU and returns its id
+    public synchronized int skuId(String sku, String name, String category, String location) {
+        int id = skuIdOf(sku);
+        if (id == -1) {
+            id = skuCount;
+            if (id == categories.length) {
+                int cap = id * 2;
+                if (offHeap) {
+                    skuRefs = Arrays.copyOf(skuRefs, cap);
+                    nameRefs = Arrays.copyOf(nameRefs, cap);
+                } else {
+                    skus = Arrays.copyOf(skus, cap);
+                    names = Arrays.copyOf(names, cap);
+                }
+                categories = Arrays.copyOf(categories, cap);
+                locations = Arrays.copyOf(locations, cap);
+            }
+            if (offHeap) {
+                skuRefs[id] = skuStrings.add(sku);
+                nameRefs[id] = skuStrings.add(name);
+                skuIdRefs.add(sku, id);
+            } else {
+                skus[id] = sku;
+                names[id] = name;
+                skuIdIndex.put(sku, id);
+            }
+            categories[id] = category;
+            locations[id] = location;
+            skuCount = id + 1;
+        } else {
+            if (!offHeap) {
+                names[id] = name;
+            } else if (!skuStrings.equals(nameRefs[id], name)) {
+                skuStrings.free(nameRefs[id]);
+                nameRefs[id] = skuStrings.add(name);
+            }
+            categories[id] = category;
+            locations[id] = location;
+        }
+        return id;
+    }
+
+    public synchronized void append(long timestamp, int skuId, int quantity, int priceCents, int costCents) {
+        Segment seg = segmentFor(timestamp);
+        seg.append(timestamp, skuId, quantity, priceCents, costCents);
+        size++;
+        for (Listener l : listeners) l.saleAppended(seg.getStartMillis(), timestamp, skuId, quantity, priceCents);
+    }
+
+    // Visits every sale with from <= timestamp < to
+    public void scan(long from, long to, Visitor v) {
+        Segment[] segs = segments;
+        for (int i = firstSegment(segs, from); i < segs.length && segs[i].getStartMillis() < to; i++) {
+            Segment seg = segs[i];
+            seg.scan(from, to, seg.size(), v);
+        }
+    }
+
+    // Visits the sales of one SKU with from <= timestamp < to
+    public void scanSku(String sku, long from, long to, Visitor v) {
+        int id = skuIdOf(sku);
+        if (id != -1) scanSku(id, from, to, v);
+    }
+
+    public void scanSku(int id, long from, long to, Visitor v) {
+        Segment[] segs = segments;
+        for (int i = firstSegment(segs, from); i < segs.length && segs[i].getStartMillis() < to; i++) {
+            segs[i].scanSku(id, from, to, v);
+        }
+    }
+
+    private static int firstSegment(Segment[] segs, long from) {
+        int lo = 0, hi = segs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segs[mid].getEndMillis() <= from) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private Segment segmentFor(long timestamp) {
+        Segment[] segs = segments;
+        int n = segs.length;
+        if (n > 0 && timestamp >= segs[n - 1].getStartMillis() && timestamp < segs[n - 1].getEndMillis()) {
+            return segs[n - 1];
+        }
+        int i = firstSegment(segs, timestamp);
+        if (i < n && timestamp >= segs[i].getStartMillis()) return segs[i];
+
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        Segment seg = new Segment(day.atStartOfDay(zone).toInstant().toEpochMilli(),
+            day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), offHeap);
+        // Copy-on-write: readers holding the old array keep a valid, if older, list
+        Segment[] grown = new Segment[n + 1];
+        System.arraycopy(segs, 0, grown, 0, i);
+        grown[i] = seg;
+        System.arraycopy(segs, i, grown, i + 1, n - i);
+        segments = grown;
+        return seg;
+    }
+
+    // Open-addressing int -> int map (keys and values >= 0, -1 means absent) for per-segment SKU chains
+    private static final class IntIntMap {
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size;
+
+        IntIntMap() {
+            Arrays.fill(keys, -1);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+                if (keys[i] == -1) return -1;
+            }
+        }
+
+        // Returns the previous value, or -1
+        int put(int key, int value) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    int old = values[i];
+                    values[i] = value;
+                    return old;
+                }
+                if (keys[i] == -1) {
+                    keys[i] = key;
+                    values[i] = value;
+                    if (++size * 10 > keys.length * 6) rehash();
+                    return -1;
+                }
+            }
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == -1) continue;
+                int i = mix(oldKeys[j]) & mask;
+                while (keys[i] != -1) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+// Read-only Swing view over a SalesLedger. refresh() pins a ledger View, which costs O(days),
+// and cells are read from the ledger columns and formatted only when painted. The visible rows
+// are kept as runs of view indexes, so reversing the order and filtering by date range or SKU
+// never copy the sales themselves.
+public class SalesTableModel extends AbstractTableModel {
+    public static final int COL_TIME = 0;
+    public static final int COL_SKU = 1;
+    public static final int COL_NAME = 2;
+    public static final int COL_CATEGORY = 3;
+    public static final int COL_QUANTITY = 4;
+    public static final int COL_PRICE = 5;
+
+    private final SalesLedger ledger;
+    private final String[] columnNames;
+    private final TimestampFormatter timestamps;
+    private final StringBuilder priceText = new StringBuilder(16);
+
+    private SalesLedger.View view;
+    private long from = Long.MIN_VALUE;
+    private long to = Long.MAX_VALUE;
+    private String sku;
+    private boolean descending;
+
+    // Visible rows: run r covers view indexes runStarts[r] .. runStarts[r] + (rowOffsets[r + 1] - rowOffsets[r]) - 1
+    private int[] runStarts = new int[16];
+    private int[] rowOffsets = new int[17];
+    private int runCount;
+
+    public SalesTableModel(SalesLedger ledger, String[] columnNames) {
+        this.ledger = ledger;
+        this.columnNames = columnNames;
+        this.timestamps = new TimestampFormatter(ledger.getZone());
+        refresh();
+    }
+
+    public SalesLedger getLedger() { return ledger; }
+    public boolean isDescending() { return descending; }
+
+    // Restricts the rows to from <= timestamp < to (Long.MIN_VALUE / MAX_VALUE for open ends)
+    // and, if sku is non-null, to that SKU; then picks up any sales recorded since the last refresh
+    public void setFilter(long from, long to, String sku) {
+        this.from = from;
+        this.to = to;
+        this.sku = sku == null || sku.isEmpty() ? null : sku;
+        refresh();
+    }
+
+    // Newest first when descending; only flips the index mapping
+    public void setDescending(boolean descending) {
+        if (this.descending == descending) return;
+        this.descending = descending;
+        fireTableDataChanged();
+    }
+
+    public void refresh() {
+        view = ledger.view();
+        runCount = 0;
+        rowOffsets[0] = 0;
+        int skuId = -1;
+        if (sku != null) {
+            skuId = ledger.skuIdOf(sku);
+            if (skuId == -1) {
+                fireTableDataChanged();
+                return;
+            }
+        }
+        for (int s = 0; s < view.getSegmentCount(); s++) {
+            SalesLedger.Segment seg = view.getSegment(s);
+            if (seg.getEndMillis() <= from) continue;
+            if (seg.getStartMillis() >= to) break;
+            int offset = view.getSegmentOffset(s);
+            int n = view.getSegmentSize(s);
+            if (skuId != -1) {
+                for (int row : seg.rowsOfSku(skuId, n)) {
+                    long t = seg.getTimestamp(row);
+                    if (t >= from && t < to) addRun(offset + row, 1);
+                }
+            } else if (seg.getStartMillis() >= from && seg.getEndMillis() <= to) {
+                addRun(offset, n);
+            } else if (seg.isOrdered()) {
+                int first = seg.lowerBound(from, n);
+                int last = seg.lowerBound(to, n);
+                if (last > first) addRun(offset + first, last - first);
+            } else {
+                for (int row = 0; row < n; row++) {
+                    long t = seg.getTimestamp(row);
+                    if (t >= from && t < to) addRun(offset + row, 1);
+                }
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    private void addRun(int start, int length) {
+        if (length == 0) return;
+        if (runCount > 0 && runStarts[runCount - 1] + (rowOffsets[runCount] - rowOffsets[runCount - 1]) == start) {
+            rowOffsets[runCount] += length;
+            return;
+        }
+        if (runCount == runStarts.length) {
+            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            rowOffsets = Arrays.copyOf(rowOffsets, runCount * 2 + 1);
+        }
+        runStarts[runCount] = start;
+        rowOffsets[runCount + 1] = rowOffsets[runCount] + length;
+        runCount++;
+    }
+
+    // View index of a table row
+    private int viewIndex(int row) {
+        if (descending) row = getRowCount() - 1 - row;
+        int lo = 0, hi = runCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (rowOffsets[mid] <= row) lo = mid; else hi = mid - 1;
+        }
+        return runStarts[lo] + (row - rowOffsets[lo]);
+    }
+
+    @Override
+    public int getRowCount() { return rowOffsets[runCount]; }
+
+    @Override
+    public int getColumnCount() { return columnNames.length; }
+
+    @Override
+    public String getColumnName(int column) { return columnNames[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COL_QUANTITY ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) { return false; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int index = viewIndex(row);
+        switch (column) {
+            case COL_TIME: return timestamps.format(view.getTimestamp(index));
+            case COL_SKU: return ledger.getSku(view.getSkuId(index));
+            case COL_NAME: return ledger.getName(view.getSkuId(index));
+            case COL_CATEGORY: return ledger.getCategory(view.getSkuId(index));
+            case COL_QUANTITY: return view.getQuantity(index);
+            case COL_PRICE:
+                priceText.setLength(0);
+                return CsvExporter.appendCents(priceText, view.getPriceCents(index)).toString();
+            default: throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+}
@@ -0,0 +1,533 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Complete stock-movement history of an InventoryStore, for "what was on hand, and what was it
+// worth, at time X". Every add, quantity change, import rewrite and delete appends a movement in
+// primitive columns (chunks of 65536, never moved): timestamp, SKU id, and the SKU's state after
+// the movement (quantity, unit cost in cents, min stock). Transfers leave the total alone and are
+// not recorded. Timestamps never go backwards, so movements are sorted by time.
+//
+// Two kinds of checkpoint keep as-of queries short:
+//   - per SKU, the index of every 8th movement of that SKU. A movement already holds the SKU's
+//     whole state, so a SKU's position at X is a binary search of its checkpoints plus a walk of
+//     at most 8 links back along its movement chain;
+//   - for the catalog, the running totals (items, units, value, items at or below minimum) after
+//     every 4096 movements. Totals at X start from the checkpoint below X and replay only the
+//     movements between it and X.
+// Replaying all history instead reads every movement since the first.
+//
+// Quantity changes arrive from several threads at once (each under its SKU's stripe, see
+// InventoryService) and must not queue behind one another here. An appender takes the next
+// slot from an atomic counter, fills it and marks it filled; whoever holds the lock links filled
+// slots in slot order (time clamp, SKU chain, checkpoints, totals) and publishes them by
+// advancing size. An appender that finds the lock taken leaves its slot to the holder and
+// returns. Structural hooks (add, import, delete, restore) run under the lock. Queries read the
+// published prefix, and per-SKU heads and checkpoints under the lock.
+public class StockHistory {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int SKU_CHECKPOINT_EVERY = 8;
+    private static final int TOTALS_CHECKPOINT_EVERY = 4096;
+    // Per SKU id, one record of skuState: latest movement, movement count, current state
+    private static final int LATEST = 0;
+    private static final int MOVES = 1;
+    private static final int STOCKED = 2;
+    private static final int QUANTITY = 3;
+    private static final int COST = 4;
+    private static final int MIN_STOCK = 5;
+    private static final int STATE = 8;
+
+    public enum Kind {
+        // The item was added (or re-added) with the recorded state
+        ADDED,
+        // Restock, sale or adjustment: the quantity changed
+        CHANGED,
+        // An import rewrote the item; quantity, cost or min stock may differ
+        UPDATED,
+        // The item was removed; from here on it holds nothing
+        DELETED
+    }
+    private static final Kind[] KINDS = Kind.values();
+
+    // A SKU's state at some time
+    public static final class Position {
+        public final String sku;
+        public final long since;
+        public final int quantity;
+        public final int costCents;
+        public final int minStock;
+
+        Position(String sku, long since, int quantity, int costCents, int minStock) {
+            this.sku = sku;
+            this.since = since;
+            this.quantity = quantity;
+            this.costCents = costCents;
+            this.minStock = minStock;
+        }
+
+        public boolean isLow() { return quantity <= minStock; }
+        public long getValueCents() { return (long) quantity * costCents; }
+    }
+
+    // The catalog's totals at some time
+    public static final class Totals {
+        public final long time;
+        public final int items;
+        public final long units;
+        public final long valueCents;
+        public final int lowStockItems;
+        // Movements replayed on top of the checkpoint to get here
+        public final int replayed;
+
+        Totals(long time, int items, long units, long valueCents, int lowStockItems, int replayed) {
+            this.time = time;
+            this.items = items;
+            this.units = units;
+            this.valueCents = valueCents;
+            this.lowStockItems = lowStockItems;
+            this.replayed = replayed;
+        }
+    }
+
+    public interface Visitor {
+        void position(int skuId, int quantity, int costCents, int minStock);
+    }
+
+    // CHUNK movements of every column; chunks never move, and the table grows copy-on-write
+    private static final class Chunk {
+        final long[] times = new long[CHUNK];
+        final int[] skuIds = new int[CHUNK];
+        // Kind ordinal + 1, set last by the appender; 0 while the slot is still being filled
+        final byte[] kinds = new byte[CHUNK];
+        final int[] quantities = new int[CHUNK];
+        final int[] costs = new int[CHUNK];
+        final int[] minStocks = new int[CHUNK];
+        // Previous movement of the same SKU, or -1; set when the movement is linked
+        final int[] prevs = new int[CHUNK];
+    }
+    private static final VarHandle KIND = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    // Slots handed to appenders, and the linked prefix of them that queries see
+    private final AtomicInteger reserved = new AtomicInteger();
+    private volatile int size;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastTime = Long.MIN_VALUE;
+
+    // SKU dictionary and, per id, its state record and checkpoints. The record repeats the latest
+    // movement's state so an append touches one cache line instead of chasing the chain.
+    private final StringIntMap skuIndex = new StringIntMap(64);
+    private String[] skus = new String[64];
+    private int[] skuState = new int[64 * STATE];
+    private int[][] skuCheckpoints = new int[64][];
+    private volatile int skuCount;
+
+    // Running totals, and their value every TOTALS_CHECKPOINT_EVERY movements (entry 0 is empty)
+    private int items;
+    private long units;
+    private long valueCents;
+    private int lowStockItems;
+    private int[] checkpointItems = new int[64];
+    private long[] checkpointUnits = new long[64];
+    private long[] checkpointValues = new long[64];
+    private int[] checkpointLow = new int[64];
+
+    // History SKU id of each store row, kept in step with row moves
+    private int[] rowIds = new int[64];
+
+    // Set during journal replay so movements carry the time they first happened
+    private volatile long pinnedTime = Long.MIN_VALUE;
+    // Set while a snapshot restores rows whose history was restored separately
+    private volatile boolean muted;
+
+    // Movements so far, including any still waiting to be linked
+    public int size() {
+        settle();
+        return size;
+    }
+
+    public int getSkuCount() { return skuCount; }
+    public String getSku(int skuId) { return skus[skuId]; }
+
+    // Id of a SKU that has ever been stocked, or -1
+    public int skuIdOf(String sku) {
+        lock.lock();
+        try {
+            return skuIndex.get(sku);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTimestamp(int i) { return chunks[i >>> CHUNK_BITS].times[i & CHUNK_MASK]; }
+    public int getSkuId(int i) { return chunks[i >>> CHUNK_BITS].skuIds[i & CHUNK_MASK]; }
+    public Kind getKind(int i) { return KINDS[chunks[i >>> CHUNK_BITS].kinds[i & CHUNK_MASK] - 1]; }
+    // The SKU's state after the movement
+    public int getQuantity(int i) { return chunks[i >>> CHUNK_BITS].quantities[i & CHUNK_MASK]; }
+    public int getCostCents(int i) { return chunks[i >>> CHUNK_BITS].costs[i & CHUNK_MASK]; }
+    public int getMinStock(int i) { return chunks[i >>> CHUNK_BITS].minStocks[i & CHUNK_MASK]; }
+
+    // How much the movement changed the SKU's quantity on hand
+    public int getChange(int i) {
+        int prev = getPrev(i);
+        return onHand(i) - (prev == -1 ? 0 : onHand(prev));
+    }
+
+    // Number of movements with timestamp <= time
+    public int countAt(long time) {
+        settle();
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getTimestamp(mid) <= time) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // The SKU's state as of 'time' (movements at or before it), or null if it was not stocked then
+    public Position positionAt(String sku, long time) {
+        int id = skuIdOf(sku);
+        if (id == -1) return null;
+        int m = movementAt(id, countAt(time));
+        if (m == -1 || getKind(m) == Kind.DELETED) return null;
+        return new Position(sku, getTimestamp(m), getQuantity(m), getCostCents(m), getMinStock(m));
+    }
+
+    // Visits every SKU stocked as of 'time' with its state then, in SKU id order
+    public void scanAt(long time, Visitor v) {
+        int end = countAt(time);
+        int n = skuCount;
+        for (int id = 0; id < n; id++) {
+            int m = movementAt(id, end);
+            if (m != -1 && getKind(m) != Kind.DELETED) v.position(id, getQuantity(m), getCostCents(m), getMinStock(m));
+        }
+    }
+
+    // Catalog totals as of 'time': the checkpoint below it plus the movements since
+    public Totals totalsAt(long time) {
+        int end = countAt(time);
+        int c = end / TOTALS_CHECKPOINT_EVERY;
+        int totalItems;
+        long totalUnits, totalValue;
+        int totalLow;
+        lock.lock();
+        try {
+            totalItems = checkpointItems[c];
+            totalUnits = checkpointUnits[c];
+            totalValue = checkpointValues[c];
+            totalLow = checkpointLow[c];
+        } finally {
+            lock.unlock();
+        }
+        int from = c * TOTALS_CHECKPOINT_EVERY;
+        for (int i = from; i < end; i++) {
+            int prev = getPrev(i);
+            if (prev != -1 && getKind(prev) != Kind.DELETED) {
+                totalItems--;
+                totalUnits -= getQuantity(prev);
+                totalValue -= (long) getQuantity(prev) * getCostCents(prev);
+                if (getQuantity(prev) <= getMinStock(prev)) totalLow--;
+            }
+            if (getKind(i) != Kind.DELETED) {
+                totalItems++;
+                totalUnits += getQuantity(i);
+                totalValue += (long) getQuantity(i) * getCostCents(i);
+                if (getQuantity(i) <= getMinStock(i)) totalLow++;
+            }
+        }
+        return new Totals(time, totalItems, totalUnits, totalValue, totalLow, end - from);
+    }
+
+    // Parses an as-of time: epoch millis, a yyyy-MM-dd date (meaning the end of that day) or a
+    // local yyyy-MM-ddTHH:mm[:ss] time, in 'zone'
+    public static long parseTime(String text, ZoneId zone) {
+        String s = text == null ? "" : text.trim();
+        try {
+            if (!s.isEmpty() && s.chars().allMatch(Character::isDigit)) return Long.parseLong(s);
+            if (s.length() == 10) return LocalDate.parse(s).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+            return LocalDateTime.parse(s).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid time: " + text + " (use yyyy-MM-dd, yyyy-MM-ddTHH:mm or epoch millis)");
+        }
+    }
+
+    // Journal replay: movements get this time until unpinClock
+    void pinClock(long time) { pinnedTime = time; }
+    void unpinClock() { pinnedTime = Long.MIN_VALUE; }
+
+    void setMuted(boolean muted) { this.muted = muted; }
+
+    // Store hooks, called after the row holds its new values (before, for removal)
+
+    void rowAdded(int row, String sku, int qty, int costCents, int min) {
+        lock.lock();
+        try {
+            publishFilled();
+            int id = skuIndex.get(sku);
+            if (id == -1) id = newSku(sku);
+            if (row == rowIds.length) rowIds = Arrays.copyOf(rowIds, row * 2);
+            rowIds[row] = id;
+            // A restored row the restored history doesn't hold gets an opening movement anyway
+            if (!muted || skuState[id * STATE + STOCKED] == 0) record(now(), id, Kind.ADDED, qty, costCents, min);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void rowUpdated(int row, int qty, int costCents, int min) {
+        lock.lock();
+        try {
+            publishFilled();
+            int at = rowIds[row] * STATE;
+            // Re-imports mostly change nothing the history tracks
+            if (muted || skuState[at + QUANTITY] == qty && skuState[at + COST] == costCents && skuState[at + MIN_STOCK] == min) return;
+            record(now(), at / STATE, Kind.UPDATED, qty, costCents, min);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The hot path: takes a slot and fills it without waiting for the lock (see the class comment)
+    void quantityChanged(int row, int oldQty, int qty, int costCents, int min) {
+        if (muted || qty == oldQty) return;
+        fill(now(), rowIds[row], Kind.CHANGED, qty, costCents, min);
+        publish();
+    }
+
+    // The row is about to go; if movedFromRow != -1 the last row will take its place
+    void rowRemoving(int row, int movedFromRow) {
+        lock.lock();
+        try {
+            publishFilled();
+            int id = rowIds[row];
+            int at = id * STATE;
+            if (!muted) record(now(), id, Kind.DELETED, 0, skuState[at + COST], skuState[at + MIN_STOCK]);
+            if (movedFromRow != -1) rowIds[row] = rowIds[movedFromRow];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Copies the first 'count' movements of another history (a snapshot's) into this empty one
+    void restore(StockHistory from, int count, int fromSkuCount) {
+        lock.lock();
+        try {
+            int[] idMap = new int[fromSkuCount];
+            for (int id = 0; id < fromSkuCount; id++) {
+                int mapped = skuIndex.get(from.getSku(id));
+                idMap[id] = mapped != -1 ? mapped : newSku(from.getSku(id));
+            }
+            for (int i = 0; i < count; i++) {
+                record(from.getTimestamp(i), idMap[from.getSkuId(i)], from.getKind(i), from.getQuantity(i),
+                    from.getCostCents(i), from.getMinStock(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // For snapshot reads, which rebuild chains and checkpoints as they go
+    void append(long timestamp, String sku, Kind kind, int qty, int costCents, int min) {
+        lock.lock();
+        try {
+            int id = skuIndex.get(sku);
+            if (id == -1) id = newSku(sku);
+            record(timestamp, id, kind, qty, costCents, min);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long now() {
+        return pinnedTime != Long.MIN_VALUE ? pinnedTime : System.currentTimeMillis();
+    }
+
+    private int onHand(int i) {
+        return getKind(i) == Kind.DELETED ? 0 : getQuantity(i);
+    }
+
+    private int getPrev(int i) { return chunks[i >>> CHUNK_BITS].prevs[i & CHUNK_MASK]; }
+
+    // Latest movement of the SKU below 'end', or -1
+    private int movementAt(int id, int end) {
+        int head, checkpointCount;
+        int[] checkpoints;
+        lock.lock();
+        try {
+            head = skuState[id * STATE + LATEST];
+            checkpoints = skuCheckpoints[id];
+            checkpointCount = skuState[id * STATE + MOVES] / SKU_CHECKPOINT_EVERY;
+        } finally {
+            lock.unlock();
+        }
+        // Start from the first checkpoint at or past 'end', so the walk back is short
+        int lo = 0, hi = checkpointCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (checkpoints[mid] < end) lo = mid + 1; else hi = mid;
+        }
+        int m = lo < checkpointCount ? checkpoints[lo] : head;
+        while (m >= end) m = getPrev(m);
+        return m;
+    }
+
+    private int newSku(String sku) {
+        int id = skuCount;
+        if (id == skus.length) {
+            int cap = id * 2;
+            skus = Arrays.copyOf(skus, cap);
+            skuState = Arrays.copyOf(skuState, cap * STATE);
+            skuCheckpoints = Arrays.copyOf(skuCheckpoints, cap);
+        }
+        skus[id] = sku;
+        skuState[id * STATE + LATEST] = -1;
+        skuIndex.put(sku, id);
+        skuCount = id + 1;
+        return id;
+    }
+
+    // Takes the next slot and writes the movement into it; it is seen once linked
+    private void fill(long timestamp, int id, Kind kind, int qty, int costCents, int min) {
+        int i = reserved.getAndIncrement();
+        Chunk c = chunk(i >>> CHUNK_BITS);
+        int at = i & CHUNK_MASK;
+        c.times[at] = timestamp;
+        c.skuIds[at] = id;
+        c.quantities[at] = qty;
+        c.costs[at] = costCents;
+        c.minStocks[at] = min;
+        // Volatile, not just release: publish() relies on it being ordered before the tryLock
+        KIND.setVolatile(c.kinds, at, (byte) (kind.ordinal() + 1));
+    }
+
+    // Links every filled slot unless another thread is already doing so. That thread checks
+    // again after letting go, so a slot filled while it held the lock is never left behind.
+    private void publish() {
+        while (lock.tryLock()) {
+            try {
+                publishFilled();
+            } finally {
+                lock.unlock();
+            }
+            if (!isFilled(size)) return;
+        }
+    }
+
+    // Under the lock: a movement appended and linked in one go
+    private void record(long timestamp, int id, Kind kind, int qty, int costCents, int min) {
+        fill(timestamp, id, kind, qty, costCents, min);
+        publishFilled();
+    }
+
+    // Links whatever appenders have filled, so a query sees every movement that finished before it
+    private void settle() {
+        if (size == reserved.get()) return;
+        lock.lock();
+        try {
+            publishFilled();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Under the lock: links the filled slots after the published prefix, in slot order
+    private void publishFilled() {
+        int i = size;
+        while (isFilled(i)) link(i++);
+    }
+
+    private boolean isFilled(int i) {
+        Chunk[] table = chunks;
+        int c = i >>> CHUNK_BITS;
+        return c < table.length && (byte) KIND.getVolatile(table[c].kinds, i & CHUNK_MASK) != 0;
+    }
+
+    // Fixes the movement's time, chains it to the SKU's previous one, folds it into the per-SKU
+    // state, checkpoints and running totals, and makes it visible
+    private void link(int i) {
+        Chunk chunk = chunks[i >>> CHUNK_BITS];
+        int at = i & CHUNK_MASK;
+        // Clocks can step back, and appenders stamp before they take a slot
+        long t = Math.max(chunk.times[at], lastTime);
+        chunk.times[at] = t;
+        lastTime = t;
+        int id = chunk.skuIds[at];
+        boolean deleted = chunk.kinds[at] - 1 == Kind.DELETED.ordinal();
+        int qty = chunk.quantities[at];
+        int costCents = chunk.costs[at];
+        int min = chunk.minStocks[at];
+        int[] state = skuState;
+        int s = id * STATE;
+        chunk.prevs[at] = state[s + LATEST];
+
+        if (state[s + STOCKED] != 0) {
+            items--;
+            units -= state[s + QUANTITY];
+            valueCents -= (long) state[s + QUANTITY] * state[s + COST];
+            if (state[s + QUANTITY] <= state[s + MIN_STOCK]) lowStockItems--;
+        }
+        state[s + STOCKED] = deleted ? 0 : 1;
+        state[s + QUANTITY] = qty;
+        state[s + COST] = costCents;
+        state[s + MIN_STOCK] = min;
+        if (!deleted) {
+            items++;
+            units += qty;
+            valueCents += (long) qty * costCents;
+            if (qty <= min) lowStockItems++;
+        }
+
+        state[s + LATEST] = i;
+        int moves = ++state[s + MOVES];
+        if (moves % SKU_CHECKPOINT_EVERY == 0) {
+            int c = moves / SKU_CHECKPOINT_EVERY - 1;
+            int[] checkpoints = skuCheckpoints[id];
+            if (checkpoints == null) checkpoints = new int[4];
+            else if (c == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, c * 2);
+            checkpoints[c] = i;
+            skuCheckpoints[id] = checkpoints;
+        }
+        if ((i + 1) % TOTALS_CHECKPOINT_EVERY == 0) {
+            int c = (i + 1) / TOTALS_CHECKPOINT_EVERY;
+            if (c == checkpointItems.length) {
+                int cap = c * 2;
+                checkpointItems = Arrays.copyOf(checkpointItems, cap);
+                checkpointUnits = Arrays.copyOf(checkpointUnits, cap);
+                checkpointValues = Arrays.copyOf(checkpointValues, cap);
+                checkpointLow = Arrays.copyOf(checkpointLow, cap);
+            }
+            checkpointItems[c] = items;
+            checkpointUnits[c] = units;
+            checkpointValues[c] = valueCents;
+            checkpointLow[c] = lowStockItems;
+        }
+        size = i + 1;
+    }
+
+    private Chunk chunk(int c) {
+        Chunk[] table = chunks;
+        if (c < table.length) return table[c];
+        // Once per CHUNK movements
+        lock.lock();
+        try {
+            table = chunks;
+            while (c >= table.length) {
+                // Copy-on-write: readers holding the old table still see every published movement
+                table = Arrays.copyOf(table, table.length + 1);
+                table[table.length - 1] = new Chunk();
+                chunks = table;
+            }
+            return table[c];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
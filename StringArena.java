@@ -0,0 +1,92 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Append-only UTF-8 string storage in direct memory. Each string is written once as its byte
+// length followed by its bytes, in 1 MB chunks, and named by a long ref (chunk << 32 | offset),
+// so a million names cost the GC nothing. Freeing a string only counts its bytes; the owner
+// copies the live strings into a fresh arena (copy) once most of the old one is garbage.
+// Not thread-safe for writes; reads may run concurrently with each other.
+final class StringArena {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int position;
+    private long allocatedBytes;
+    private long liveBytes;
+    private long freedBytes;
+
+    long getAllocatedBytes() { return allocatedBytes; }
+    long getLiveBytes() { return liveBytes; }
+    long getFreedBytes() { return freedBytes; }
+
+    long add(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        long ref = reserve(bytes.length);
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        chunk.put((int) ref + 4, bytes);
+        return ref;
+    }
+
+    // Copies a string from another arena without decoding it
+    long copy(StringArena from, long ref) {
+        ByteBuffer source = from.chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int length = source.getInt(offset);
+        long copied = reserve(length);
+        chunks[(int) (copied >>> 32)].put((int) copied + 4, source, offset + 4, length);
+        return copied;
+    }
+
+    String get(long ref) {
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compares without decoding while both sides are ASCII, which SKUs and most names are
+    boolean equals(long ref, String s) {
+        ByteBuffer chunk = chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int length = chunk.getInt(offset);
+        int chars = s.length();
+        // UTF-8 never takes fewer bytes than UTF-16 takes chars
+        if (length < chars) return false;
+        if (length == chars) {
+            for (int i = 0; i < chars; i++) {
+                byte b = chunk.get(offset + 4 + i);
+                if (b < 0) return get(ref).equals(s);
+                if (b != s.charAt(i)) return false;
+            }
+            return true;
+        }
+        return get(ref).equals(s);
+    }
+
+    void free(long ref) {
+        int length = chunks[(int) (ref >>> 32)].getInt((int) ref) + 4;
+        liveBytes -= length;
+        freedBytes += length;
+    }
+
+    // Room for a string of 'length' bytes; a string never spans two chunks
+    private long reserve(int length) {
+        int needed = length + 4;
+        int last = chunks.length - 1;
+        if (last < 0 || position + needed > chunks[last].capacity()) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, needed)).order(ByteOrder.nativeOrder());
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[++last] = chunk;
+            position = 0;
+            allocatedBytes += chunk.capacity();
+        }
+        long ref = ((long) last << 32) | position;
+        chunks[last].putInt(position, length);
+        position += needed;
+        liveBytes += needed;
+        return ref;
+    }
+}
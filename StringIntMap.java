@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+// Open-addressing String -> int hash map with linear probing. Values must be >= 0;
+// -1 means absent. Unlike HashMap<String, Integer> there is no boxing and no entry
+// object per key, which matters when indexing a million SKUs at startup.
+public class StringIntMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private String[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public StringIntMap(int expectedSize) {
+        int cap = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(cap);
+    }
+
+    public int size() { return size; }
+
+    public int get(String key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            String k = keys[i];
+            if (k == null) return -1;
+            if (k.equals(key)) return values[i];
+        }
+    }
+
+    public boolean containsKey(String key) { return get(key) != -1; }
+
+    // Returns the previous value, or -1 if the key was absent
+    public int put(String key, int value) {
+        return insert(key, value, true);
+    }
+
+    // Stores the value only if the key is absent; returns the existing value, or -1
+    public int putIfAbsent(String key, int value) {
+        return insert(key, value, false);
+    }
+
+    // Returns the removed value, or -1 if the key was absent
+    public int remove(String key) {
+        int i = slot(key);
+        while (true) {
+            String k = keys[i];
+            if (k == null) return -1;
+            if (k.equals(key)) break;
+            i = (i + 1) & mask;
+        }
+        int old = values[i];
+        // Backward-shift deletion keeps every probe chain contiguous without tombstones
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int ideal = slot(keys[j]);
+            boolean between = hole <= j ? (hole < ideal && ideal <= j) : (hole < ideal || ideal <= j);
+            if (!between) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return old;
+    }
+
+    private int insert(String key, int value, boolean overwrite) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            String k = keys[i];
+            if (k == null) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > resizeAt) rehash(keys.length << 1);
+                return -1;
+            }
+            if (k.equals(key)) {
+                int old = values[i];
+                if (overwrite) values[i] = value;
+                return old;
+            }
+        }
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int cap) {
+        keys = new String[cap];
+        values = new int[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private void rehash(int cap) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(cap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            String k = oldKeys[i];
+            if (k == null) continue;
+            int j = slot(k);
+            while (keys[j] != null) j = (j + 1) & mask;
+            keys[j] = k;
+            values[j] = oldValues[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+}
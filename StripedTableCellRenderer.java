@@ -0,0 +1,32 @@
+import javax.swing.BorderFactory;
+import javax.swing.JTable;
+import javax.swing.border.Border;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+
+// Alternating-row cell renderer shared by the app's tables. All fonts, colors and
+// borders are created once, so painting a cell allocates nothing of its own.
+public class StripedTableCellRenderer extends DefaultTableCellRenderer {
+    static final Font CELL_FONT = new Font("Segoe UI", Font.PLAIN, 13);
+    static final Color EVEN_ROW = Color.WHITE;
+    static final Color ODD_ROW = new Color(240, 240, 240);
+    static final Color SELECTED_ROW = new Color(200, 220, 255); // Selection highlight
+    static final Border CELL_PADDING = BorderFactory.createEmptyBorder(0, 5, 0, 5);
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        setFont(CELL_FONT);
+        setBackground(isSelected ? SELECTED_ROW : rowBackground(table, row));
+        setForeground(Color.BLACK);
+        setBorder(CELL_PADDING);
+        return this;
+    }
+
+    // Background for an unselected view row
+    protected Color rowBackground(JTable table, int row) {
+        return row % 2 == 0 ? EVEN_ROW : ODD_ROW;
+    }
+}
@@ -0,0 +1,53 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+// Formats epoch millis as "yyyy-MM-dd HH:mm:ss" in a time zone, for display and export.
+// The zone offset and the date prefix are cached until the next offset change or day,
+// so formatting a run of nearby timestamps costs a few divisions. Not thread-safe.
+public class TimestampFormatter {
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final ZoneRules rules;
+    private long offsetMillis;
+    private long offsetFrom = Long.MAX_VALUE;
+    private long offsetTo = Long.MIN_VALUE;
+    private long cachedDay = Long.MIN_VALUE;
+    private String datePrefix;
+
+    public TimestampFormatter(ZoneId zone) {
+        this.rules = zone.getRules();
+    }
+
+    public String format(long millis) {
+        return append(new StringBuilder(19), millis).toString();
+    }
+
+    public StringBuilder append(StringBuilder sb, long millis) {
+        if (millis < offsetFrom || millis >= offsetTo) {
+            Instant instant = Instant.ofEpochMilli(millis);
+            offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+            ZoneOffsetTransition prev = rules.previousTransition(instant.plusMillis(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            offsetFrom = prev == null ? Long.MIN_VALUE : prev.toEpochSecond() * 1000;
+            offsetTo = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        }
+        long local = millis + offsetMillis;
+        long day = Math.floorDiv(local, DAY_MILLIS);
+        if (day != cachedDay) {
+            cachedDay = day;
+            datePrefix = LocalDate.ofEpochDay(day) + " ";
+        }
+        int seconds = (int) (Math.floorMod(local, DAY_MILLIS) / 1000);
+        sb.append(datePrefix);
+        twoDigits(sb, seconds / 3600).append(':');
+        twoDigits(sb, seconds / 60 % 60).append(':');
+        return twoDigits(sb, seconds % 60);
+    }
+
+    private static StringBuilder twoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
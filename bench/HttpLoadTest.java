@@ -0,0 +1,124 @@
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Loopback load test for InventoryServer: starts the API in-process on an ephemeral port and
+// drives it from client threads with a till-like mix (60% sales, 20% lookups, 15% restocks,
+// 5% summaries) over keep-alive connections, then reports requests per second and latency
+// percentiles. A warm-up pass runs first and is not counted.
+//
+//   javac -d out *.java && javac -cp out -d out bench/HttpLoadTest.java
+//   java -cp out HttpLoadTest [clients] [seconds] [items]
+public class HttpLoadTest {
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        int items = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        InventoryService service = new InventoryService(store, new SalesLedger(), false);
+        ItemValidator validator = new ItemValidator(CATEGORIES, LOCATIONS);
+        String[] skus = new String[items];
+        for (int i = 0; i < items; i++) {
+            skus[i] = service.addItem(validator.parse("Item " + i, "1000000", "1.00", "2.50",
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], "10"));
+        }
+        InventoryServer server = new InventoryServer(service, validator);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        String base = "http://127.0.0.1:" + server.getPort();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            run(client, base, skus, clients, Math.min(2, seconds), false);
+            run(client, base, skus, clients, seconds, true);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void run(HttpClient client, String base, String[] skus, int clients, double seconds, boolean report)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(clients);
+        long began = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int id = c;
+            Thread t = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long[] lat = new long[1 << 14];
+                int n = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String sku = skus[rnd.nextInt(skus.length)];
+                        int pick = rnd.nextInt(100);
+                        HttpRequest request;
+                        if (pick < 60) {
+                            request = post(base + "/items/" + sku + "/sale", "{\"quantity\": " + (1 + rnd.nextInt(3)) + "}");
+                        } else if (pick < 80) {
+                            request = HttpRequest.newBuilder(URI.create(base + "/items/" + sku)).GET().build();
+                        } else if (pick < 95) {
+                            request = post(base + "/items/" + sku + "/restock", "{\"quantity\": " + (1 + rnd.nextInt(5)) + "}");
+                        } else {
+                            request = HttpRequest.newBuilder(URI.create(base + "/summary")).GET().build();
+                        }
+                        long start = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() != 200) errors.increment();
+                        if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                        lat[n++] = elapsed;
+                    }
+                } catch (Exception e) {
+                    errors.increment();
+                    e.printStackTrace();
+                } finally {
+                    latencies[id] = lat;
+                    counts[id] = n;
+                    done.countDown();
+                }
+            }, "client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - began) / 1e9;
+        if (!report) return;
+
+        int total = 0;
+        for (int n : counts) total += n;
+        long[] all = new long[total];
+        int at = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, at, counts[c]);
+            at += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("clients=%d  requests=%,d  errors=%d  %,.0f req/s%n", clients, total, errors.sum(), total / elapsed);
+        System.out.printf("latency  p50=%.3f ms  p99=%.3f ms  p99.9=%.3f ms  max=%.3f ms%n",
+            percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), total == 0 ? 0 : all[total - 1] / 1e6);
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,142 @@
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableRowSorter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Headless UI responsiveness benchmark: producer threads push sales and restocks through
+// InventoryService at a fixed rate while a JTable sorted live by quantity listens, and a probe
+// measures how long the EDT takes to run a tiny task. Runs once with the coalescing model and
+// once with a model that posts one EDT event per change, which is what the table used to do.
+// Live re-sorting (sortsOnUpdates) is the worst case, since every update event re-sorts.
+//
+//   javac -d out *.java && javac -cp out -d out bench/LiveUpdateBenchmark.java
+//   java -Djava.awt.headless=true -cp out LiveUpdateBenchmark [changes per second] [seconds] [rows] [live sort]
+public class LiveUpdateBenchmark {
+    private static final String[] COLUMN_NAMES = {
+        "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+        "Category", "Location", "Min Stock Threshold"
+    };
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+    private static final int PRODUCERS = 4;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        boolean liveSort = args.length <= 3 || Boolean.parseBoolean(args[3]);
+
+        run("coalesced", false, rate, seconds, rows, liveSort);
+        run("per-event", true, rate, seconds, rows, liveSort);
+    }
+
+    private static void run(String label, boolean perEvent, int rate, double seconds, int rows, boolean liveSort)
+            throws Exception {
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        InventoryService service = new InventoryService(store, new SalesLedger(), false);
+        String[] skus = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            skus[i] = String.format("UQ%07d", i);
+            store.addItem(skus[i], "Item " + i, 1_000_000, 1.00, 2.50,
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], 10);
+        }
+
+        InventoryTableModel[] holder = new InventoryTableModel[1];
+        LongAdder fired = new LongAdder();
+        SwingUtilities.invokeAndWait(() -> {
+            InventoryTableModel model = perEvent ? new PerEventModel(store) : new InventoryTableModel(store, COLUMN_NAMES);
+            model.addTableModelListener(e -> fired.increment());
+            JTable table = new JTable(model);
+            TableRowSorter<InventoryTableModel> sorter = new TableRowSorter<>(model);
+            sorter.setSortsOnUpdates(liveSort);
+            sorter.setSortKeys(List.of(new RowSorter.SortKey(InventoryTableModel.COL_QUANTITY, SortOrder.DESCENDING)));
+            table.setRowSorter(sorter);
+            holder[0] = model;
+        });
+        InventoryTableModel model = holder[0];
+
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        LongAdder changes = new LongAdder();
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers[p] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long interval = 1_000_000_000L * PRODUCERS / rate;
+                long next = System.nanoTime();
+                while (next < deadline) {
+                    String sku = skus[rnd.nextInt(skus.length)];
+                    if (rnd.nextInt(4) == 0) service.restock(sku, 1 + rnd.nextInt(5));
+                    else service.sell(sku, 1 + rnd.nextInt(3));
+                    changes.increment();
+                    next += interval;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) LockSupport.parkNanos(sleep);
+                }
+            }, "producer-" + p);
+            producers[p].setDaemon(true);
+        }
+
+        // Probe: how long a 1-line task waits for the EDT, sampled every 5 ms
+        long[] probes = new long[(int) (seconds * 200) + 16];
+        int probeCount = 0;
+        long began = System.nanoTime();
+        for (Thread t : producers) t.start();
+        while (System.nanoTime() < deadline && probeCount < probes.length) {
+            long posted = System.nanoTime();
+            long[] ran = new long[1];
+            SwingUtilities.invokeAndWait(() -> ran[0] = System.nanoTime());
+            probes[probeCount++] = ran[0] - posted;
+            Thread.sleep(5);
+        }
+        for (Thread t : producers) t.join();
+        // Let the queue drain so the event counts are complete
+        long drainStart = System.nanoTime();
+        SwingUtilities.invokeAndWait(() -> {});
+        Thread.sleep(50);
+        SwingUtilities.invokeAndWait(() -> {});
+        double drainMs = (System.nanoTime() - drainStart) / 1e6;
+        double elapsed = (System.nanoTime() - began) / 1e9;
+
+        Arrays.sort(probes, 0, probeCount);
+        System.out.printf("%s  %,.0f changes/s  table events=%,d  drain=%.1f ms%n",
+            label, changes.sum() / elapsed, fired.sum(), drainMs);
+        System.out.printf("  EDT latency  p50=%.2f ms  p99=%.2f ms  max=%.2f ms%n",
+            percentile(probes, probeCount, 0.50), percentile(probes, probeCount, 0.99), probes[probeCount - 1] / 1e6);
+        if (!perEvent) {
+            CoalescingTableUpdater.Metrics m = model.getUpdates().sampleMetrics();
+            System.out.printf("  deltas=%,d  frames=%,d  events=%,d  apply avg=%.3f ms max=%.3f ms%n",
+                m.deltas, m.frames, m.events, m.frames == 0 ? 0 : m.applyNanos / 1e6 / m.frames, m.maxApplyNanos / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, int n, double p) {
+        if (n == 0) return 0;
+        return sorted[Math.min(n - 1, (int) Math.ceil(p * n) - 1)] / 1e6;
+    }
+
+    // One invokeLater and one table event per change, as before coalescing
+    private static final class PerEventModel extends InventoryTableModel {
+        PerEventModel(InventoryStore store) {
+            super(store, COLUMN_NAMES);
+        }
+
+        @Override
+        public void rowUpdated(int row) {
+            SwingUtilities.invokeLater(() -> {
+                if (row < getRowCount()) fireTableRowsUpdated(row, row);
+            });
+        }
+
+        @Override
+        public void rowsUpdated(int[] rows, int count) {
+            for (int i = 0; i < count; i++) rowUpdated(rows[i]);
+        }
+    }
+}
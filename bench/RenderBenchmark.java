@@ -0,0 +1,105 @@
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+// Headless repaint benchmark: scrolls a viewport through a large inventory table and
+// reports paint time and bytes allocated per row, for the shared-style renderer and
+// for the original per-cell-allocating renderer.
+//
+//   javac -d out *.java && javac -cp out -d out bench/RenderBenchmark.java
+//   java -Djava.awt.headless=true -cp out RenderBenchmark [rows] [passes]
+public class RenderBenchmark {
+    private static final String[] COLUMN_NAMES = {
+        "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+        "Category", "Location", "Min Stock Threshold"
+    };
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+    private static final int VIEWPORT_WIDTH = 1000;
+    private static final int VIEWPORT_HEIGHT = 560;
+    private static final int ROW_HEIGHT = 28;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        for (int i = 0; i < rows; i++) {
+            store.addItem(String.format("UQ%07d", i), "Item " + i, i % 50, 1 + (i % 100) / 10.0, 2 + (i % 100) / 10.0,
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], 10);
+        }
+        InventoryTableModel model = new InventoryTableModel(store, COLUMN_NAMES);
+
+        JTable shared = newTable(model);
+        InventoryCellRenderer renderer = new InventoryCellRenderer(shared, store.getStats());
+        shared.setDefaultRenderer(Object.class, renderer);
+        shared.setDefaultRenderer(Number.class, renderer);
+
+        JTable legacy = newTable(model);
+        DefaultTableCellRenderer legacyRenderer = new LegacyRenderer();
+        legacy.setDefaultRenderer(Object.class, legacyRenderer);
+        legacy.setDefaultRenderer(Number.class, legacyRenderer);
+
+        for (int p = 0; p < passes; p++) {
+            scroll("shared styles", shared, rows);
+            scroll("legacy       ", legacy, rows);
+        }
+    }
+
+    private static JTable newTable(InventoryTableModel model) {
+        JTable table = new JTable(model);
+        table.setRowSorter(new TableRowSorter<>(model));
+        table.setRowHeight(ROW_HEIGHT);
+        table.setSize(VIEWPORT_WIDTH, ROW_HEIGHT * model.getRowCount());
+        table.doLayout();
+        return table;
+    }
+
+    private static void scroll(String label, JTable table, int rows) {
+        BufferedImage image = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long allocBefore = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        long totalHeight = (long) ROW_HEIGHT * rows;
+        for (long y = 0; y < totalHeight; y += VIEWPORT_HEIGHT) {
+            Graphics2D g = image.createGraphics();
+            g.translate(0, -y);
+            g.setClip(0, (int) y, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+            table.paint(g);
+            g.dispose();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(tid) - allocBefore;
+        System.out.printf("%s: %d rows in %d ms, %.1f ns/row, %.1f bytes allocated/row%n",
+            label, rows, elapsed / 1_000_000, (double) elapsed / rows, (double) allocated / rows);
+    }
+
+    // The renderer as it was before shared styles: new Font/Color/Border and string parsing per cell
+    private static class LegacyRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            int modelRow = table.convertRowIndexToModel(row);
+            c.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+            int qty = Integer.parseInt(table.getModel().getValueAt(modelRow, 2).toString());
+            int min = Integer.parseInt(table.getModel().getValueAt(modelRow, 7).toString());
+            if (qty <= min) {
+                c.setBackground(new Color(255, 200, 200));
+            } else {
+                c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(240, 240, 240));
+            }
+            if (isSelected) c.setBackground(new Color(200, 220, 255));
+            c.setForeground(Color.BLACK);
+            setBorder(javax.swing.BorderFactory.createEmptyBorder(0, 5, 0, 5));
+            return c;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Multi-threaded stress test for InventoryService: terminal threads sell, restock and check out
+// multi-line baskets over a small, hot set of SKUs (so stripes are contended and stock regularly
+// runs out) while one thread keeps adding and deleting other items. Afterwards every invariant
+// is checked against what the threads observed, and throughput is reported per thread count.
+//
+//   javac -d out *.java && javac -cp out -d out bench/ServiceStressTest.java
+//   java -Djava.awt.headless=true -cp out ServiceStressTest [seconds per run] [hot SKUs]
+public class ServiceStressTest {
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+    private static final int INITIAL_QTY = 50;
+
+    public static void main(String[] args) throws Exception {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int hot = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean ok = true;
+        for (int threads = 1; threads <= Math.max(8, cores * 2); threads *= 2) {
+            ok &= run(threads, hot, (long) (seconds * 1000));
+        }
+        if (!ok) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static boolean run(int threads, int hot, long millis) throws InterruptedException {
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        SalesLedger sales = new SalesLedger();
+        InventoryService service = new InventoryService(store, sales, false);
+        ItemValidator validator = new ItemValidator(CATEGORIES, LOCATIONS);
+
+        String[] skus = new String[hot];
+        for (int i = 0; i < hot; i++) {
+            skus[i] = service.addItem(validator.parse("Hot " + i, String.valueOf(INITIAL_QTY), "1.00", "2.50",
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], "5"));
+        }
+
+        AtomicLongArray sold = new AtomicLongArray(hot);
+        AtomicLongArray restocked = new AtomicLongArray(hot);
+        LongAdder operations = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder completed = new LongAdder();
+        LongAdder violations = new LongAdder();
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[threads + 1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                await(start);
+                long ops = 0;
+                while ((ops & 255) != 0 || System.nanoTime() < deadline) {
+                    int i = rnd.nextInt(hot);
+                    int qty = 1 + rnd.nextInt(4);
+                    int pick = rnd.nextInt(10);
+                    if (pick == 0) {
+                        // A three-line basket across stripes: all lines sell or none do
+                        int[] lines = {i, rnd.nextInt(hot), rnd.nextInt(hot)};
+                        String[] basket = new String[3];
+                        int[] amounts = new int[3];
+                        for (int k = 0; k < 3; k++) {
+                            basket[k] = skus[lines[k]];
+                            amounts[k] = 1 + rnd.nextInt(3);
+                        }
+                        try {
+                            int[] remaining = service.sellAll(basket, amounts);
+                            for (int k = 0; k < 3; k++) {
+                                if (remaining[k] < 0) violations.increment();
+                                sold.addAndGet(lines[k], amounts[k]);
+                            }
+                            completed.add(3);
+                        } catch (InventoryService.InsufficientStockException e) {
+                            rejected.increment();
+                        }
+                    } else if (pick < 7) {
+                        try {
+                            int remaining = service.sell(skus[i], qty);
+                            if (remaining < 0) violations.increment();
+                            sold.addAndGet(i, qty);
+                            completed.increment();
+                        } catch (InventoryService.InsufficientStockException e) {
+                            if (e.getAvailable() >= qty) violations.increment();
+                            rejected.increment();
+                        }
+                    } else {
+                        service.restock(skus[i], qty);
+                        restocked.addAndGet(i, qty);
+                    }
+                    ops++;
+                }
+                operations.add(ops);
+            }, "terminal-" + t);
+        }
+        // Structural churn: rows move under the terminals' feet
+        LongAdder churn = new LongAdder();
+        workers[threads] = new Thread(() -> {
+            await(start);
+            while (System.nanoTime() < deadline) {
+                String sku = service.addItem(validator.parse("Churn", "3", "1.00", "2.00", "Other", "Other", "1"));
+                if (!service.delete(sku)) violations.increment();
+                churn.increment();
+            }
+        }, "churn");
+
+        for (Thread w : workers) w.start();
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        double elapsed = (System.nanoTime() - began) / 1e9;
+
+        boolean ok = violations.sum() == 0;
+        long totalQty = 0;
+        for (int i = 0; i < hot; i++) {
+            int qty = service.getQuantity(skus[i]);
+            long expected = INITIAL_QTY + restocked.get(i) - sold.get(i);
+            if (qty != expected || qty < 0) {
+                System.out.printf("  %s: quantity %d, expected %d%n", skus[i], qty, expected);
+                ok = false;
+            }
+            totalQty += qty;
+        }
+        if (store.size() != hot) {
+            System.out.printf("  store has %d rows, expected %d%n", store.size(), hot);
+            ok = false;
+        }
+        if (store.getStats().getTotalQuantity() != totalQty) {
+            System.out.printf("  stats total %d, expected %d%n", store.getStats().getTotalQuantity(), totalQty);
+            ok = false;
+        }
+        int low = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (store.isLowStock(row)) low++;
+            if (store.isLowStock(row) != store.getStats().isLowStock(row)) ok = false;
+        }
+        if (low != store.getStats().getLowStockCount()) ok = false;
+        if (sales.size() != completed.sum()) {
+            System.out.printf("  ledger has %d sales, expected %d%n", sales.size(), completed.sum());
+            ok = false;
+        }
+        long ledgerUnits = 0;
+        SalesLedger.View view = sales.view();
+        for (int k = 0; k < view.size(); k++) ledgerUnits += view.getQuantity(k);
+        long soldUnits = 0;
+        for (int i = 0; i < hot; i++) soldUnits += sold.get(i);
+        if (ledgerUnits != soldUnits) ok = false;
+
+        System.out.printf("threads=%2d  %,12.0f ops/s  sales=%,d rejected=%,d churn=%,d  %s%n",
+            threads, operations.sum() / elapsed, completed.sum(), rejected.sum(), churn.sum(), ok ? "ok" : "INVARIANT VIOLATED");
+        return ok;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
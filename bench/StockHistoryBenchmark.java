@@ -0,0 +1,103 @@
+import java.util.Random;
+
+// As-of queries over a year of stock movements: loads a catalog, drives the given number of
+// quantity changes (plus occasional re-priced imports) through InventoryStore with the history's
+// clock spread evenly over 365 days, then times catalog totals, single-SKU positions and the
+// full per-SKU listing at random past instants, against the same totals recomputed by replaying
+// every movement from the first. Checks that both agree.
+//
+//   javac -d out *.java && javac -cp out -d out bench/StockHistoryBenchmark.java
+//   java -Xmx3g -cp out StockHistoryBenchmark [items] [movements]
+public class StockHistoryBenchmark {
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final long YEAR_MILLIS = 365L * 86_400_000L;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int movements = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        Random random = new Random(42);
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        StockHistory history = store.getHistory();
+
+        long start = System.nanoTime();
+        history.pinClock(START_MILLIS);
+        for (int i = 0; i < items; i++) {
+            store.addItem(String.format("UQ%07d", i), "Item " + i, 20 + random.nextInt(50), 1 + (i % 100) / 10.0, 20,
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], 10);
+        }
+        for (int i = 0; i < movements; i++) {
+            history.pinClock(START_MILLIS + (long) ((double) i / movements * YEAR_MILLIS));
+            // Skewed like real demand: a tenth of the items take half the movements
+            int row = random.nextBoolean() ? random.nextInt(items / 10) : random.nextInt(items);
+            if (i % 10_000 == 0) {
+                store.upsertItem(store.getSku(row), store.getName(row), store.getQuantity(row), store.getCostPrice(row) * 1.01,
+                    store.getSellingPrice(row), store.getCategory(row), store.getLocation(row), store.getMinStock(row));
+                continue;
+            }
+            int qty = store.getQuantity(row);
+            store.setQuantity(row, qty > 5 && random.nextInt(4) != 0 ? qty - 1 - random.nextInt(5) : qty + 10 + random.nextInt(40));
+        }
+        history.unpinClock();
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%,d items, %,d movements recorded in %,d ms (%.0f ns each)%n", items, history.size(), loadMillis,
+            loadMillis * 1e6 / (items + movements));
+
+        int queries = 1000;
+        long[] times = new long[queries];
+        for (int q = 0; q < queries; q++) times[q] = START_MILLIS + (long) (random.nextDouble() * YEAR_MILLIS);
+
+        long totalsNanos = 0, worstTotals = 0;
+        long replayed = 0;
+        for (int q = 0; q < queries; q++) {
+            long t0 = System.nanoTime();
+            StockHistory.Totals totals = history.totalsAt(times[q]);
+            long elapsed = System.nanoTime() - t0;
+            totalsNanos += elapsed;
+            worstTotals = Math.max(worstTotals, elapsed);
+            replayed += totals.replayed;
+        }
+        System.out.printf("totalsAt:    %,8.1f us avg, %,8.1f us max, %,d movements replayed on average%n",
+            totalsNanos / 1e3 / queries, worstTotals / 1e3, replayed / queries);
+
+        int positions = 100_000;
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (int q = 0; q < positions; q++) {
+            int row = random.nextBoolean() ? random.nextInt(items / 10) : random.nextInt(items);
+            StockHistory.Position p = history.positionAt(store.getSku(row), times[q % queries]);
+            if (p != null) sink += p.quantity;
+        }
+        System.out.printf("positionAt:  %,8.2f us avg%n", (System.nanoTime() - t0) / 1e3 / positions);
+
+        long[] listed = new long[1];
+        t0 = System.nanoTime();
+        for (int q = 0; q < 10; q++) history.scanAt(times[q], (skuId, quantity, costCents, minStock) -> listed[0] += quantity);
+        System.out.printf("scanAt:      %,8.1f ms per full listing%n", (System.nanoTime() - t0) / 1e6 / 10);
+
+        // The alternative: every movement since the first, folded into per-SKU state
+        t0 = System.nanoTime();
+        for (int q = 0; q < 10; q++) {
+            long valueCents = replayAll(history, times[q]);
+            if (valueCents != history.totalsAt(times[q]).valueCents) throw new AssertionError("Replay disagrees at " + times[q]);
+        }
+        System.out.printf("full replay: %,8.1f ms per instant%n", (System.nanoTime() - t0) / 1e6 / 10);
+        if (sink == 42) System.out.println();
+    }
+
+    private static long replayAll(StockHistory history, long time) {
+        int skus = history.getSkuCount();
+        int[] quantity = new int[skus];
+        int[] cost = new int[skus];
+        int end = history.countAt(time);
+        for (int i = 0; i < end; i++) {
+            int id = history.getSkuId(i);
+            quantity[id] = history.getKind(i) == StockHistory.Kind.DELETED ? 0 : history.getQuantity(i);
+            cost[id] = history.getCostCents(i);
+        }
+        long valueCents = 0;
+        for (int id = 0; id < skus; id++) valueCents += (long) quantity[id] * cost[id];
+        return valueCents;
+    }
+}
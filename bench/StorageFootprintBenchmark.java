@@ -0,0 +1,209 @@
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import javax.swing.table.DefaultTableModel;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+// Heap footprint and GC pauses of a large catalog and sales log in three layouts: the original
+// DefaultTableModel rows (a Vector of boxed cells per item, a SaleRecord per sale), InventoryStore
+// on heap columns, and InventoryStore with off-heap storage. Each layout loads in a JVM of its
+// own with the same fixed heap, reports the live heap and direct memory it needs and how long a
+// full GC takes, then churns (reads rows, sets quantities, logs sales, keeps recent report lines
+// around) while every GC pause is recorded.
+//
+//   javac -d out *.java && javac -cp out -d out bench/StorageFootprintBenchmark.java
+//   java -cp out StorageFootprintBenchmark [items] [sales] [churnSeconds] [heap]
+public class StorageFootprintBenchmark {
+    private static final String[] COLUMN_NAMES = {
+        "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+        "Category", "Location", "Min Stock Threshold"
+    };
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"};
+    private static final String[] MODES = {"table", "heap", "offheap"};
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZONE);
+    private static final long START_MILLIS = 1_700_000_000_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int RECENT_LINES = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--run")) {
+            run(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+        String items = args.length > 0 ? args[0] : "1000000";
+        String sales = args.length > 1 ? args[1] : "1000000";
+        String seconds = args.length > 2 ? args[2] : "20";
+        String heap = args.length > 3 ? args[3] : "2g";
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        System.out.printf("%s items, %s sales, %s s churn, -Xmx%s%n", items, sales, seconds, heap);
+        for (String mode : MODES) {
+            Process p = new ProcessBuilder(java, "-Xms" + heap, "-Xmx" + heap, "-Djava.awt.headless=true",
+                "-cp", System.getProperty("java.class.path"), "StorageFootprintBenchmark", "--run", mode, items, sales, seconds)
+                .inheritIO().start();
+            if (p.waitFor() != 0) System.out.println(mode + ": failed");
+        }
+    }
+
+    // What the churn loop needs from each layout
+    private interface Catalog {
+        int size();
+        String describe(int row);
+        int getQuantity(int row);
+        void setQuantity(int row, int qty);
+        void recordSale(long timestamp, int row, int qty);
+    }
+
+    private static void run(String mode, int items, int sales, int seconds) {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        Catalog catalog = mode.equals("table") ? new TableCatalog(items)
+            : new StoreCatalog(items, mode.equals("offheap") ? InventoryStore.Storage.OFFHEAP : InventoryStore.Storage.HEAP);
+        for (int i = 0; i < sales; i++) {
+            catalog.recordSale(START_MILLIS + (long) (random.nextDouble() * 30 * DAY_MILLIS), random.nextInt(items), 1 + random.nextInt(5));
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.gc();
+        long gcStart = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - gcStart) / 1_000_000;
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) direct = pool.getMemoryUsed();
+        }
+
+        AtomicLong pauses = new AtomicLong();
+        AtomicLong pauseTotal = new AtomicLong();
+        AtomicLong pauseMax = new AtomicLong();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((Notification n, Object handback) -> {
+                if (!n.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+                // G1's concurrent cycle reports its own bean in newer JDKs; only stop-the-world work counts
+                if (info.getGcName().contains("Concurrent")) return;
+                long ms = info.getGcInfo().getDuration();
+                pauses.incrementAndGet();
+                pauseTotal.addAndGet(ms);
+                pauseMax.accumulateAndGet(ms, Math::max);
+            }, null, null);
+        }
+
+        String[] recent = new String[RECENT_LINES];
+        long ops = 0;
+        long now = START_MILLIS + 30 * DAY_MILLIS;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 1000; i++, ops++) {
+                int row = random.nextInt(catalog.size());
+                recent[(int) (ops % RECENT_LINES)] = catalog.describe(row);
+                int qty = catalog.getQuantity(row);
+                if (qty > 0 && random.nextBoolean()) {
+                    catalog.setQuantity(row, qty - 1);
+                    catalog.recordSale(now + ops, row, 1);
+                } else {
+                    catalog.setQuantity(row, qty + 5);
+                }
+            }
+        }
+
+        System.out.printf("%-8s load %,6d ms, live heap %,6.1f MB, direct %,6.1f MB, full GC %,5d ms | %,d ops: %d pauses, total %,d ms, max %,d ms%n",
+            mode, loadMillis, heapUsed / 1048576.0, direct / 1048576.0, fullGcMillis, ops, pauses.get(), pauseTotal.get(), pauseMax.get());
+    }
+
+    // The table model and sales log as the app first kept them
+    private static class TableCatalog implements Catalog {
+        private final DefaultTableModel model = new DefaultTableModel(COLUMN_NAMES, 0);
+        private final List<SaleRecord> salesLog = new ArrayList<>();
+
+        TableCatalog(int items) {
+            for (int i = 0; i < items; i++) {
+                model.addRow(new Object[]{sku(i), "Item " + i, i % 50, cost(i), cost(i) + 1,
+                    CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], 10});
+            }
+        }
+
+        @Override public int size() { return model.getRowCount(); }
+
+        @Override
+        public String describe(int row) {
+            return model.getValueAt(row, 0) + " " + model.getValueAt(row, 1) + " x" + model.getValueAt(row, 2);
+        }
+
+        @Override public int getQuantity(int row) { return (Integer) model.getValueAt(row, 2); }
+        @Override public void setQuantity(int row, int qty) { model.setValueAt(qty, row, 2); }
+
+        @Override
+        public void recordSale(long timestamp, int row, int qty) {
+            salesLog.add(new SaleRecord((String) model.getValueAt(row, 0), (String) model.getValueAt(row, 1),
+                (String) model.getValueAt(row, 5), qty, (Double) model.getValueAt(row, 4), TIME.format(Instant.ofEpochMilli(timestamp))));
+        }
+    }
+
+    private static class SaleRecord {
+        final String sku, name, category;
+        final int quantity;
+        final double sellingPrice;
+        final String timestamp;
+
+        SaleRecord(String sku, String name, String category, int quantity, double sellingPrice, String timestamp) {
+            this.sku = sku;
+            this.name = name;
+            this.category = category;
+            this.quantity = quantity;
+            this.sellingPrice = sellingPrice;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class StoreCatalog implements Catalog {
+        private final InventoryStore store;
+        private final SalesLedger ledger;
+
+        StoreCatalog(int items, InventoryStore.Storage storage) {
+            store = new InventoryStore(CATEGORIES, LOCATIONS, storage);
+            ledger = new SalesLedger(ZONE, storage);
+            for (int i = 0; i < items; i++) {
+                store.addItem(sku(i), "Item " + i, i % 50, cost(i), cost(i) + 1,
+                    CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], 10);
+            }
+        }
+
+        @Override public int size() { return store.size(); }
+
+        @Override
+        public String describe(int row) {
+            return store.getSku(row) + " " + store.getName(row) + " x" + store.getQuantity(row);
+        }
+
+        @Override public int getQuantity(int row) { return store.getQuantity(row); }
+        @Override public void setQuantity(int row, int qty) { store.setQuantity(row, qty); }
+
+        @Override
+        public void recordSale(long timestamp, int row, int qty) {
+            ledger.record(timestamp, store.getSku(row), store.getName(row), store.getCategory(row), store.getLocation(row),
+                qty, (int) InventoryStats.toCents(store.getSellingPrice(row)), (int) InventoryStats.toCents(store.getCostPrice(row)));
+        }
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%07d", i);
+    }
+
+    private static double cost(int i) {
+        return 1 + (i % 100) / 10.0;
+    }
+}
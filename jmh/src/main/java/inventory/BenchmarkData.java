@@ -0,0 +1,69 @@
+package inventory;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+// Synthetic catalogs and sales logs for the benchmarks. Every row starts with the same large
+// quantity so sales never run out mid-measurement; every fifth item has a minimum equal to
+// that quantity, so about 20% of the catalog is low on stock, as in a busy shop.
+final class BenchmarkData {
+    static final String[] CATEGORIES = InventoryManagementApp.CATEGORIES;
+    static final String[] LOCATIONS = InventoryManagementApp.LOCATIONS;
+    static final String[] COLUMN_NAMES = InventoryManagementApp.COLUMN_NAMES;
+    static final int INITIAL_QUANTITY = 1_000_000;
+    static final ZoneId ZONE = ZoneId.of("UTC");
+
+    private BenchmarkData() {}
+
+    static String sku(int i) { return String.format("UQ%07d", i); }
+    static String name(int i) { return "Item " + i; }
+
+    static InventoryStore catalog(int size) {
+        InventoryStore store = new InventoryStore(CATEGORIES, LOCATIONS);
+        for (int i = 0; i < size; i++) {
+            store.addItem(sku(i), name(i), INITIAL_QUANTITY, 1 + (i % 100) / 10.0, 2 + (i % 100) / 10.0,
+                CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], i % 5 == 0 ? INITIAL_QUANTITY : 10);
+        }
+        return store;
+    }
+
+    // Puts a catalog that benchmarks have added to or sold from back to its initial state
+    static void reset(InventoryStore store, int size) {
+        while (store.size() > size) store.removeRow(store.size() - 1);
+        for (int row = 0; row < size; row++) {
+            if (store.getQuantity(row) != INITIAL_QUANTITY) store.setQuantity(row, INITIAL_QUANTITY);
+        }
+    }
+
+    // 'size' sales of the first 'items' catalog rows, a minute apart and ending now
+    static SalesLedger salesLog(InventoryStore store, int items, int size) {
+        return salesLog(new SalesLedger(ZONE), store, items, size);
+    }
+
+    // The same, appended to a given ledger (so listeners attached to it see the sales)
+    static SalesLedger salesLog(SalesLedger sales, InventoryStore store, int items, int size) {
+        long start = ZonedDateTime.now(ZONE).toInstant().toEpochMilli() - size * 60_000L;
+        for (int i = 0; i < size; i++) {
+            int row = (int) ((i * 7919L) % items);
+            sales.record(start + i * 60_000L, store.getSku(row), store.getName(row), store.getCategory(row),
+                store.getLocation(row), 1 + i % 3, (int) InventoryStats.toCents(store.getSellingPrice(row)),
+                (int) InventoryStats.toCents(store.getCostPrice(row)));
+        }
+        return sales;
+    }
+
+    // A fixed pseudo-random visiting order over n rows, so lookups don't walk memory in order
+    static int[] shuffledRows(int n) {
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        Random rnd = new Random(42);
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = rows[i];
+            rows[i] = rows[j];
+            rows[j] = t;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,77 @@
+package inventory;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.table.TableRowSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Paints one screenful of the inventory table, set up as the Inventory tab is (sorter and
+// InventoryCellRenderer), into an offscreen image. Each call scrolls a page further, wrapping
+// at the end, so the whole catalog is rendered over a run rather than the same cached rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CellRenderBenchmark {
+    private static final int VIEWPORT_WIDTH = 1000;
+    private static final int VIEWPORT_HEIGHT = 560;
+    private static final int ROW_HEIGHT = 28;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private JTable table;
+    private BufferedImage image;
+    private Graphics2D g;
+    private long y;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InventoryStore store = BenchmarkData.catalog(catalogSize);
+        InventoryTableModel model = new InventoryTableModel(store, BenchmarkData.COLUMN_NAMES);
+        table = new JTable(model);
+        table.setRowSorter(new TableRowSorter<>(model));
+        table.setRowHeight(ROW_HEIGHT);
+        InventoryCellRenderer renderer = new InventoryCellRenderer(table, store.getStats());
+        table.setDefaultRenderer(Object.class, renderer);
+        table.setDefaultRenderer(Number.class, renderer);
+        table.setSize(VIEWPORT_WIDTH, ROW_HEIGHT * catalogSize);
+        table.doLayout();
+        image = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintPage() {
+        long total = (long) ROW_HEIGHT * catalogSize;
+        if (y + VIEWPORT_HEIGHT > total) y = 0;
+        Graphics2D page = (Graphics2D) g.create();
+        page.translate(0, -y);
+        page.setClip(0, (int) y, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        table.paint(page);
+        page.dispose();
+        y += VIEWPORT_HEIGHT;
+        return image;
+    }
+}
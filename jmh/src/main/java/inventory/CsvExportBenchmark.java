@@ -0,0 +1,89 @@
+package inventory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// "Save to CSV" for the inventory and for the sales log: capturing the snapshot or pinning the
+// ledger view, plus writing it out (both on the export worker in the app). Files go to a
+// temporary directory.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CsvExportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int catalogSize;
+
+        InventoryStore store;
+        SalesLedger sales;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            store = BenchmarkData.catalog(catalogSize);
+            sales = new SalesLedger(BenchmarkData.ZONE);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SalesLog {
+        @Param({"10000", "100000", "1000000"})
+        public int salesLogSize;
+
+        InventoryStore store;
+        SalesLedger sales;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            store = BenchmarkData.catalog(1000);
+            sales = BenchmarkData.salesLog(store, 1000, salesLogSize);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Output {
+        Path dir;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("inventory-bench");
+            file = dir.resolve("export.csv");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Benchmark
+    public boolean exportInventory(Catalog catalog, Output output) throws IOException {
+        InventorySnapshot snapshot = InventorySnapshot.capture(catalog.store, catalog.sales);
+        return CsvExporter.writeInventory(snapshot, BenchmarkData.COLUMN_NAMES, output.file, (done, total) -> true);
+    }
+
+    @Benchmark
+    public boolean exportSales(SalesLog log, Output output) throws IOException {
+        return CsvExporter.writeSales(log.sales, log.sales.view(), output.file, (done, total) -> true);
+    }
+}
@@ -0,0 +1,62 @@
+package inventory;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// DemandForecast: what each recorded sale pays to keep the forecasts current (including the
+// day rollovers), and the Days of Cover report over a catalog with ten sales per SKU.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ForecastBenchmark {
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private InventoryStore store;
+    private DemandForecast forecast;
+    private int[] rows;
+    private int cursor;
+    private long day;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkData.catalog(catalogSize);
+        SalesLedger sales = new SalesLedger(BenchmarkData.ZONE);
+        forecast = new DemandForecast(sales);
+        BenchmarkData.salesLog(sales, store, catalogSize, catalogSize * 10);
+        rows = BenchmarkData.shuffledRows(catalogSize);
+        day = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+    }
+
+    // One sale of a random SKU; the day moves on once per catalogSize sales, so every SKU rolls
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void saleAppended() {
+        if (cursor == rows.length) {
+            cursor = 0;
+            day += DAY_MILLIS;
+        }
+        forecast.saleAppended(day, day + 1, rows[cursor++], 1, 250);
+    }
+
+    @Benchmark
+    public int coverReport() {
+        return forecast.coverReport(store, System.currentTimeMillis()).size();
+    }
+}
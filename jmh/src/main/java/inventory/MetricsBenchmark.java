@@ -0,0 +1,36 @@
+package inventory;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of recording one operation in OperationMetrics, which every sale and restock pays.
+// Run with -prof gc to confirm it allocates nothing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MetricsBenchmark {
+    private final OperationMetrics metrics = new OperationMetrics();
+
+    @Benchmark
+    public void record() {
+        metrics.record(OperationMetrics.Operation.SALE, System.nanoTime() - 25_000, false);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        metrics.record(OperationMetrics.Operation.SALE, System.nanoTime() - 25_000, false);
+    }
+}
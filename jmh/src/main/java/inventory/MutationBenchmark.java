@@ -0,0 +1,102 @@
+package inventory;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The till and stock-room operations, through InventoryService as the UI and HTTP API call them.
+// Added rows, sold stock and the sales they logged are undone after every iteration, so each
+// iteration measures the same catalog size; transfers go out and back on alternate passes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MutationBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private InventoryStore store;
+    private InventoryService service;
+    private ItemValidator.Item newItem;
+    private String[] skus;
+    private String[] names;
+    private String[] homes;
+    private String[] others;
+    private boolean outbound = true;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkData.catalog(catalogSize);
+        int[] order = BenchmarkData.shuffledRows(catalogSize);
+        skus = new String[catalogSize];
+        names = new String[catalogSize];
+        homes = new String[catalogSize];
+        others = new String[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            skus[i] = store.getSku(order[i]);
+            names[i] = store.getName(order[i]);
+            homes[i] = store.getLocation(order[i]);
+            others[i] = BenchmarkData.LOCATIONS[(store.getLocationCode(order[i]) + 1) % BenchmarkData.LOCATIONS.length];
+        }
+        newItem = new ItemValidator(BenchmarkData.CATEGORIES, BenchmarkData.LOCATIONS)
+            .parse("New item", "25", "1.00", "2.50", "Other", "Other", "5");
+        newService();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset() {
+        BenchmarkData.reset(store, catalogSize);
+        newService();
+    }
+
+    private void newService() {
+        service = new InventoryService(store, new SalesLedger(BenchmarkData.ZONE), false);
+        service.advanceSkuCounter(catalogSize);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == catalogSize ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public String addItem() {
+        return service.addItem(newItem);
+    }
+
+    @Benchmark
+    public int restockBySku() {
+        return service.restock(skus[next()], 1);
+    }
+
+    // As the Exit tab does it: the name picked in the combo box resolves to one SKU, then sells
+    @Benchmark
+    public int saleByName() {
+        int[] rows = store.findByName(names[next()]);
+        return service.sell(store.getSku(rows[0]), 1);
+    }
+
+    // One unit from the item's location to the next one, and back on the next pass
+    @Benchmark
+    public int transfer() {
+        int i = next();
+        int left = outbound ? service.transfer(skus[i], homes[i], others[i], 1) : service.transfer(skus[i], others[i], homes[i], 1);
+        if (cursor == 0) outbound = !outbound;
+        return left;
+    }
+}
@@ -0,0 +1,118 @@
+package inventory;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Read paths of the Inventory and Reports tabs: the search box (index query, then the row
+// filter the sorter applies on the EDT), the facet pickers (bitmap intersection against a
+// column scan, and the counts shown in the pickers), the low-stock list, the stock summary and
+// the per-location roll-ups.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class QueryBenchmark {
+    // A narrow name match, a SKU prefix and a whole category
+    private static final String[] QUERIES = {"item 4242", "uq00001", "electr"};
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private InventoryStore store;
+    private InventorySearchIndex index;
+    private TableRowSorter<InventoryTableModel> sorter;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkData.catalog(catalogSize);
+        index = new InventorySearchIndex(store);
+        index.prepare();
+        // The first query builds the trigram postings; that is not what is measured here
+        index.search(QUERIES[0]);
+        sorter = new TableRowSorter<>(new InventoryTableModel(store, BenchmarkData.COLUMN_NAMES));
+    }
+
+    private String nextQuery() {
+        String q = QUERIES[cursor];
+        cursor = (cursor + 1) % QUERIES.length;
+        return q;
+    }
+
+    @Benchmark
+    public BitSet searchIndex() {
+        return index.search(nextQuery());
+    }
+
+    // What a keystroke costs end to end, minus the debounce
+    @Benchmark
+    public int searchFilter() {
+        BitSet matches = index.search(nextQuery());
+        sorter.setRowFilter(new RowFilter<Object, Object>() {
+            @Override
+            public boolean include(Entry<? extends Object, ? extends Object> entry) {
+                return matches.get((Integer) entry.getIdentifier());
+            }
+        });
+        return sorter.getViewRowCount();
+    }
+
+    // "Electronics in Warehouse A, low on stock": 5% of the catalog
+    @Benchmark
+    public BitSet facetRows() {
+        return store.getFacets().rows(0, 0, true);
+    }
+
+    // The same selection by reading the columns row by row
+    @Benchmark
+    public BitSet facetScan() {
+        BitSet rows = new BitSet(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            if (store.getCategoryCode(row) == 0 && store.getLocationCode(row) == 0 && store.isLowStock(row)) rows.set(row);
+        }
+        return rows;
+    }
+
+    // Every label of the pickers under that selection, as the Inventory tab refreshes them
+    @Benchmark
+    public int facetCounts() {
+        FacetIndex facets = store.getFacets();
+        int[] categories = facets.categoryCounts(0, true);
+        int[] locations = facets.locationCounts(0, true);
+        return categories.length + locations.length + facets.count(0, 0, true) + facets.count(FacetIndex.ANY, 0, true);
+    }
+
+    @Benchmark
+    public StringBuilder lowStockScan() {
+        return InventoryManagementApp.appendLowStock(new StringBuilder(), store);
+    }
+
+    @Benchmark
+    public String stockSummary() {
+        return InventoryManagementApp.stockSummary(store);
+    }
+
+    @Benchmark
+    public long locationRollUp() {
+        LocationStock stock = store.getStock();
+        long onHand = stock.total().onHand;
+        for (LocationStock.Summary s : stock.summaries()) onHand += s.onHand;
+        return onHand;
+    }
+}